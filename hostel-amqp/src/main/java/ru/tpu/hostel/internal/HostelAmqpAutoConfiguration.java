@@ -2,17 +2,32 @@ package ru.tpu.hostel.internal;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import ru.tpu.hostel.internal.common.logging.AmqpMessageSenderLoggingFilter;
 import ru.tpu.hostel.internal.config.amqp.RabbitConfiguration;
+import ru.tpu.hostel.internal.config.amqp.RabbitActuatorConfiguration;
+import ru.tpu.hostel.internal.config.amqp.metrics.AmqpProducerMetrics;
 import ru.tpu.hostel.internal.config.amqp.util.RabbitListenerContainerFactoryNameResolver;
+import ru.tpu.hostel.internal.config.aot.HostelAmqpRuntimeHints;
+import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpEventPublisher;
+import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpMessagePuller;
 import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpMessageSender;
+import ru.tpu.hostel.internal.external.amqp.impl.LoopbackAmqpMessageSender;
+import ru.tpu.hostel.internal.recording.TrafficRecordingConfiguration;
 
 @AutoConfiguration
+@ImportRuntimeHints(HostelAmqpRuntimeHints.class)
 @Import({
         DefaultAmqpMessageSender.class,
+        LoopbackAmqpMessageSender.class,
+        DefaultAmqpMessagePuller.class,
+        DefaultAmqpEventPublisher.class,
+        AmqpProducerMetrics.class,
         AmqpMessageSenderLoggingFilter.class,
         RabbitConfiguration.class,
-        RabbitListenerContainerFactoryNameResolver.class
+        RabbitActuatorConfiguration.class,
+        RabbitListenerContainerFactoryNameResolver.class,
+        TrafficRecordingConfiguration.class
 })
 public class HostelAmqpAutoConfiguration {
 }
@@ -19,13 +19,15 @@ import ru.tpu.hostel.internal.external.amqp.Microservice;
 import static ru.tpu.hostel.internal.common.logging.Message.FINISH_RABBIT_RECEIVING_RPC;
 import static ru.tpu.hostel.internal.common.logging.Message.FINISH_RABBIT_SENDING_METHOD_EXECUTION;
 import static ru.tpu.hostel.internal.common.logging.Message.RABBIT_SENDING_OR_RECEIVING_EXCEPTION;
+import static ru.tpu.hostel.internal.common.logging.Message.START_RABBIT_PUBLISHING_EVENT;
 import static ru.tpu.hostel.internal.common.logging.Message.START_RABBIT_SENDING_METHOD_EXECUTION;
 import static ru.tpu.hostel.internal.common.logging.Message.START_RABBIT_SENDING_METHOD_VIA_ROUTING_KEY_AND_EXCHANGE_EXECUTION;
 import static ru.tpu.hostel.internal.common.logging.Message.START_RABBIT_SENDING_METHOD_VIA_ROUTING_KEY_EXECUTION;
 import static ru.tpu.hostel.internal.utils.TimeUtil.getLocalDateTimeStingFromMillis;
 
 /**
- * Аспект для логирования сендеров RabbitMQ. Логирует методы всех наследников {@link AmqpMessageSender}
+ * Аспект для логирования сендеров RabbitMQ. Логирует методы всех наследников {@link AmqpMessageSender} и публикацию
+ * событий через {@link ru.tpu.hostel.internal.external.amqp.AmqpEventPublisher}
  *
  * @author Илья Лапшин
  * @version 1.1.0
@@ -85,6 +87,14 @@ public class AmqpMessageSenderLoggingFilter {
         return executeSendMethod(joinPoint, properties.getMessageId());
     }
 
+    @Around("execution(* ru.tpu.hostel..external.amqp.AmqpEventPublisher.publish(..))")
+    public Object logPublishEvent(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object[] args = joinPoint.getArgs();
+        String messageId = (String) args[2];
+        log.info(START_RABBIT_PUBLISHING_EVENT, args[0], args[1], messageId, safeMapToJson(args[3]));
+        return executeSendMethod(joinPoint, messageId);
+    }
+
     private Object executeSendMethod(ProceedingJoinPoint joinPoint, String messageId) throws Throwable {
         long startTime = System.currentTimeMillis();
         try {
@@ -17,6 +17,9 @@ class Message {
     static final String START_RABBIT_SENDING_METHOD_VIA_ROUTING_KEY_AND_EXCHANGE_EXECUTION
             = "[RABBIT] Отправка сообщения в микросервис {} через обменник {} по ключу {}: messageId={}, payload={}";
 
+    static final String START_RABBIT_PUBLISHING_EVENT
+            = "[RABBIT] Публикация события {} по ключу {}: messageId={}, payload={}";
+
     static final String FINISH_RABBIT_SENDING_METHOD_EXECUTION
             = "[RABBIT] Сообщение отправлено: messageId={}. Время выполнения {} мс";
 
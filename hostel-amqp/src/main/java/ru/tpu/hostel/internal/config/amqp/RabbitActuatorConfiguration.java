@@ -0,0 +1,34 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitParkingLotEndpoint;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitParkingLotManager;
+
+/**
+ * Конфигурация индикаторов здоровья и эндпоинтов RabbitMQ. Подключается, только если в сервисе есть
+ * Spring Boot Actuator.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.health.HealthIndicator")
+public class RabbitActuatorConfiguration {
+
+    @Bean("rabbitConnectionsHealthIndicator")
+    RabbitConnectionsHealthIndicator rabbitConnectionsHealthIndicator(RabbitConnectionWarmUp rabbitConnectionWarmUp) {
+        return new RabbitConnectionsHealthIndicator(rabbitConnectionWarmUp);
+    }
+
+    @Bean
+    RabbitParkingLotEndpoint rabbitParkingLotEndpoint(
+            RabbitParkingLotManager rabbitParkingLotManager,
+            RabbitListenerLocator rabbitListenerLocator
+    ) {
+        return new RabbitParkingLotEndpoint(rabbitParkingLotManager, rabbitListenerLocator);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.opentelemetry.api.OpenTelemetry;
 import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.aop.Advice;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
@@ -13,47 +14,85 @@ import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.util.StringUtils;
+import ru.tpu.hostel.internal.config.amqp.ack.RabbitCumulativeAckInterceptor;
+import ru.tpu.hostel.internal.config.amqp.autoscaling.RabbitConsumerAutoscaler;
+import ru.tpu.hostel.internal.config.amqp.autoscaling.RabbitListenerLatencyInterceptor;
+import ru.tpu.hostel.internal.config.amqp.conflation.RabbitConflationInterceptor;
 import ru.tpu.hostel.internal.config.amqp.customizer.Customizer;
+import ru.tpu.hostel.internal.config.amqp.filter.LazyPayloadMessageConverter;
+import ru.tpu.hostel.internal.config.amqp.filter.RabbitMessageFilterInterceptor;
+import ru.tpu.hostel.internal.config.amqp.dedup.InMemoryDeduplicationStore;
+import ru.tpu.hostel.internal.config.amqp.dedup.MappedDeduplicationStore;
+import ru.tpu.hostel.internal.config.amqp.dedup.MessageDeduplicationStore;
+import ru.tpu.hostel.internal.config.amqp.dedup.RabbitDeduplicationInterceptor;
+import ru.tpu.hostel.internal.config.amqp.keyed.RabbitKeyedDispatchInterceptor;
+import ru.tpu.hostel.internal.config.amqp.monitoring.RabbitQueueMonitor;
+import ru.tpu.hostel.internal.config.amqp.customizer.DirectRabbitListenerContainerFactoryCustomizer;
 import ru.tpu.hostel.internal.config.amqp.customizer.RabbitTemplateCustomizer;
 import ru.tpu.hostel.internal.config.amqp.customizer.SimpleRabbitListenerContainerFactoryCustomizer;
 import ru.tpu.hostel.internal.config.amqp.customizer.TracedConnectionFactoryCustomizer;
+import ru.tpu.hostel.internal.config.amqp.loopback.RabbitLoopbackBroker;
 import ru.tpu.hostel.internal.config.amqp.properties.RabbitConnectionProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitDeduplicationProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitExchangeType;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerExecutor;
 import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitLoopbackProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitMonitoringProperties;
 import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
 import ru.tpu.hostel.internal.config.amqp.properties.RabbitSenderProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitServiceProperties;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitParkingLotManager;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitRetryInterceptor;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitRetryTopology;
+import ru.tpu.hostel.internal.config.amqp.rpc.AmqpRpcEndpointProcessor;
 import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
 import ru.tpu.hostel.internal.config.amqp.tracing.interceptor.AmqpMessageReceiveInterceptor;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitPublishRateLimiter;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitTrafficClasses;
 import ru.tpu.hostel.internal.external.amqp.Microservice;
+import ru.tpu.hostel.internal.recording.TrafficRecorder;
 
-import java.util.Arrays;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Configuration
-@EnableConfigurationProperties(RabbitProperties.class)
+@EnableConfigurationProperties({
+        RabbitProperties.class,
+        RabbitLoopbackProperties.class,
+        RabbitMonitoringProperties.class
+})
 public class RabbitConfiguration {
 
-    private static final String LISTENER_POSTFIX = "RabbitListener";
-
     @Bean("customMessageConverters")
     Map<Microservice, Map<String, MessageConverter>> customMessageConverters(
             RabbitProperties rabbitProperties,
@@ -90,9 +129,9 @@ public class RabbitConfiguration {
             ApplicationContext applicationContext
     ) {
         Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories = new EnumMap<>(Microservice.class);
-        Map<String, TracedConnectionFactory> connectionFactoriesMap = new HashMap<>();
 
         rabbitProperties.properties().forEach(((microservice, stringRabbitServicePropertiesMap) -> {
+            Map<String, TracedConnectionFactory> connectionFactoriesMap = new HashMap<>();
             stringRabbitServicePropertiesMap.forEach((servicePropertiesName, serviceProperties) -> {
                 String customizerName = serviceProperties.connectionProperties().customizerName();
                 TracedConnectionFactoryCustomizer customizer = getBean(
@@ -119,6 +158,20 @@ public class RabbitConfiguration {
             RabbitConnectionProperties connectionProperties,
             TracedConnectionFactoryCustomizer customizer,
             OpenTelemetry openTelemetry
+    ) {
+        CachingConnectionFactory connectionFactory = getCachingConnectionFactory(connectionProperties, customizer);
+        // Фабрика не бин контекста: без явного вызова у её кэша каналов нет статистики для метрик
+        connectionFactory.afterPropertiesSet();
+        return new TracedConnectionFactory(
+                connectionFactory,
+                openTelemetry,
+                !Boolean.FALSE.equals(connectionProperties.consumerSpan())
+        );
+    }
+
+    private static CachingConnectionFactory getCachingConnectionFactory(
+            RabbitConnectionProperties connectionProperties,
+            TracedConnectionFactoryCustomizer customizer
     ) {
         CachingConnectionFactory connectionFactory = new CachingConnectionFactory();
         if (customizer != null) {
@@ -129,7 +182,63 @@ public class RabbitConfiguration {
         connectionFactory.setVirtualHost(connectionProperties.virtualHost());
         connectionFactory.setAddresses(connectionProperties.addresses());
         connectionFactory.setConnectionTimeout((int) connectionProperties.connectionTimeout().toMillis());
-        return new TracedConnectionFactory(connectionFactory, openTelemetry);
+        return connectionFactory;
+    }
+
+    /**
+     * Подключения классов трафика. Каждое настраивается теми же свойствами и кастомайзером, что и основное
+     * подключение комплекта, но получает свой кэш каналов и имя {@code <микросервис>.<комплект>.<класс>}.
+     */
+    @Bean
+    RabbitTrafficClasses rabbitTrafficClasses(
+            @Qualifier("customConnectionFactories") Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
+            RabbitProperties rabbitProperties,
+            OpenTelemetry openTelemetry,
+            ApplicationContext applicationContext
+    ) {
+        Map<Microservice, Map<String, Map<String, TracedConnectionFactory>>> trafficClassConnectionFactories =
+                new EnumMap<>(Microservice.class);
+
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) -> {
+            Map<String, Map<String, TracedConnectionFactory>> serviceMap = new HashMap<>();
+            servicePropertiesMap.forEach((propertiesName, serviceProperties) -> {
+                RabbitConnectionProperties connectionProperties = serviceProperties.connectionProperties();
+                if (connectionProperties.trafficClasses() == null) {
+                    return;
+                }
+                TracedConnectionFactoryCustomizer customizer = getBean(
+                        connectionProperties.customizerName(),
+                        applicationContext,
+                        TracedConnectionFactoryCustomizer.class
+                );
+
+                Map<String, TracedConnectionFactory> classMap = new HashMap<>();
+                connectionProperties.trafficClasses().forEach((trafficClass, classProperties) -> {
+                    CachingConnectionFactory connectionFactory =
+                            getCachingConnectionFactory(connectionProperties, customizer);
+                    String connectionName = microservice.name().toLowerCase() + "." + propertiesName + "."
+                            + trafficClass;
+                    connectionFactory.setConnectionNameStrategy(_ -> connectionName);
+                    if (classProperties.channelCacheSize() != null) {
+                        connectionFactory.setChannelCacheSize(classProperties.channelCacheSize());
+                    }
+                    connectionFactory.afterPropertiesSet();
+                    classMap.put(trafficClass, new TracedConnectionFactory(
+                            connectionFactory,
+                            openTelemetry,
+                            !Boolean.FALSE.equals(connectionProperties.consumerSpan()),
+                            trafficClass,
+                            classProperties.rateLimit() == null
+                                    ? null
+                                    : new RabbitPublishRateLimiter(classProperties.rateLimit())
+                    ));
+                });
+                serviceMap.put(propertiesName, classMap);
+            });
+            trafficClassConnectionFactories.put(microservice, serviceMap);
+        });
+
+        return new RabbitTrafficClasses(connectionFactories, trafficClassConnectionFactories, openTelemetry);
     }
 
     @Bean("customRabbitTemplates")
@@ -162,7 +271,8 @@ public class RabbitConfiguration {
     @Bean("customAmqpAdmins")
     Map<Microservice, Map<String, RabbitAdmin>> customAmqpAdmins(
             @Qualifier("customRabbitTemplates") Map<Microservice, Map<String, RabbitTemplate>> rabbitTemplates,
-            RabbitProperties rabbitProperties
+            RabbitProperties rabbitProperties,
+            RabbitLoopbackProperties loopbackProperties
     ) {
         Map<Microservice, Map<String, RabbitAdmin>> amqpAdmins = new EnumMap<>(Microservice.class);
         rabbitProperties.properties().forEach((microservice, servicePropertiesMap) -> {
@@ -172,13 +282,11 @@ public class RabbitConfiguration {
                 RabbitAdmin rabbitAdmin = new RabbitAdmin(rabbitTemplates.get(microservice).get(propertiesName));
                 rabbitAdminMap.put(propertiesName, rabbitAdmin);
 
-                serviceProperties.queueingProperties().senders().forEach((_, sender) ->
-                        initQueue(rabbitAdmin, sender)
-                );
-
-                serviceProperties.queueingProperties().listeners().forEach((_, listener) ->
-                        initQueue(rabbitAdmin, listener)
-                );
+                // При ленивом подключении топологию объявляет RabbitConnectionWarmUp, в loopback-режиме брокера нет
+                if (!Boolean.TRUE.equals(serviceProperties.connectionProperties().lazyStartup())
+                        && !Boolean.TRUE.equals(loopbackProperties.enabled())) {
+                    declareTopology(rabbitAdmin, serviceProperties);
+                }
             });
             amqpAdmins.put(microservice, rabbitAdminMap);
         });
@@ -186,7 +294,104 @@ public class RabbitConfiguration {
         return amqpAdmins;
     }
 
-    private void initQueue(RabbitAdmin rabbitAdmin, RabbitSenderProperties rabbitSenderProperties) {
+    @Bean
+    RabbitConnectionWarmUp rabbitConnectionWarmUp(
+            @Qualifier("customConnectionFactories") Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
+            @Qualifier("customAmqpAdmins") Map<Microservice, Map<String, RabbitAdmin>> amqpAdmins,
+            RabbitProperties rabbitProperties,
+            RabbitTrafficClasses rabbitTrafficClasses,
+            RabbitLoopbackProperties loopbackProperties,
+            ApplicationContext applicationContext
+    ) {
+        return new RabbitConnectionWarmUp(
+                connectionFactories,
+                amqpAdmins,
+                rabbitProperties,
+                rabbitTrafficClasses,
+                Boolean.TRUE.equals(loopbackProperties.enabled()),
+                applicationContext
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "rabbitmq.loopback", name = "enabled", havingValue = "true")
+    RabbitLoopbackBroker rabbitLoopbackBroker(
+            RabbitLoopbackProperties loopbackProperties,
+            RabbitListenerLocator rabbitListenerLocator,
+            ApplicationContext applicationContext
+    ) {
+        return new RabbitLoopbackBroker(loopbackProperties, rabbitListenerLocator, applicationContext);
+    }
+
+    @Bean
+    RabbitListenerLocator rabbitListenerLocator(
+            RabbitProperties rabbitProperties,
+            RabbitTrafficClasses rabbitTrafficClasses,
+            @Qualifier("customMessageConverters") Map<Microservice, Map<String, MessageConverter>> messageConverters
+    ) {
+        return new RabbitListenerLocator(rabbitProperties, rabbitTrafficClasses, messageConverters);
+    }
+
+    @Bean
+    RabbitConsumerAutoscaler rabbitConsumerAutoscaler(
+            RabbitListenerLocator rabbitListenerLocator,
+            ApplicationContext applicationContext,
+            OpenTelemetry openTelemetry
+    ) {
+        return new RabbitConsumerAutoscaler(rabbitListenerLocator, applicationContext, openTelemetry);
+    }
+
+    /**
+     * В loopback-режиме опрашивать нечего, поэтому мониторинг не создаётся.
+     */
+    @Bean
+    @ConditionalOnExpression("${rabbitmq.monitoring.enabled:false} and !${rabbitmq.loopback.enabled:false}")
+    RabbitQueueMonitor rabbitQueueMonitor(
+            RabbitMonitoringProperties monitoringProperties,
+            RabbitProperties rabbitProperties,
+            @Qualifier("customConnectionFactories") Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
+            OpenTelemetry openTelemetry
+    ) {
+        return new RabbitQueueMonitor(monitoringProperties, rabbitProperties, connectionFactories, openTelemetry);
+    }
+
+    @Bean
+    RabbitParkingLotManager rabbitParkingLotManager(RabbitListenerLocator rabbitListenerLocator) {
+        return new RabbitParkingLotManager(rabbitListenerLocator);
+    }
+
+    static void declareTopology(RabbitAdmin rabbitAdmin, RabbitServiceProperties serviceProperties) {
+        serviceProperties.queueingProperties().senders().forEach((_, sender) ->
+                initQueue(rabbitAdmin, sender)
+        );
+
+        serviceProperties.queueingProperties().listeners().forEach((_, listener) ->
+                initQueue(rabbitAdmin, listener)
+        );
+
+        if (serviceProperties.queueingProperties().events() != null) {
+            serviceProperties.queueingProperties().events().forEach((_, event) ->
+                    rabbitAdmin.declareExchange(new TopicExchange(event.exchangeName()))
+            );
+        }
+    }
+
+    /**
+     * Ключи, с которыми очередь слушателя привязывается к обменнику: {@code routingKey} и {@code bindingKeys}.
+     *
+     * @param listenerProperties свойства слушателя.
+     * @return ключи привязки без повторов.
+     */
+    public static Set<String> bindingKeys(RabbitListenerProperties listenerProperties) {
+        Set<String> bindingKeys = new LinkedHashSet<>();
+        bindingKeys.add(listenerProperties.routingKey());
+        if (listenerProperties.bindingKeys() != null) {
+            bindingKeys.addAll(listenerProperties.bindingKeys());
+        }
+        return bindingKeys;
+    }
+
+    private static void initQueue(RabbitAdmin rabbitAdmin, RabbitSenderProperties rabbitSenderProperties) {
         DirectExchange exchange = new DirectExchange(rabbitSenderProperties.exchangeName());
 
         Queue queue = QueueBuilder.durable(rabbitSenderProperties.queueName())
@@ -198,19 +403,30 @@ public class RabbitConfiguration {
         declareAndBindQueue(rabbitAdmin, rabbitSenderProperties.routingKey(), exchange, queue);
     }
 
-    private void initQueue(RabbitAdmin rabbitAdmin, RabbitListenerProperties rabbitListenerProperties) {
-        DirectExchange exchange = new DirectExchange(rabbitListenerProperties.exchangeName());
-
+    private static void initQueue(RabbitAdmin rabbitAdmin, RabbitListenerProperties rabbitListenerProperties) {
         Queue queue = QueueBuilder.durable(rabbitListenerProperties.queueName())
                 .quorum()
                 .build();
 
         rabbitAdmin.declareQueue(queue);
-        rabbitAdmin.declareExchange(exchange);
-        declareAndBindQueue(rabbitAdmin, rabbitListenerProperties.routingKey(), exchange, queue);
+        if (rabbitListenerProperties.exchangeType() == RabbitExchangeType.TOPIC) {
+            // Очередь подписчика своя у каждого сервиса, обменник событий общий
+            TopicExchange exchange = new TopicExchange(rabbitListenerProperties.exchangeName());
+            rabbitAdmin.declareExchange(exchange);
+            bindingKeys(rabbitListenerProperties).forEach(bindingKey ->
+                    rabbitAdmin.declareBinding(BindingBuilder.bind(queue).to(exchange).with(bindingKey))
+            );
+        } else {
+            DirectExchange exchange = new DirectExchange(rabbitListenerProperties.exchangeName());
+            rabbitAdmin.declareExchange(exchange);
+            bindingKeys(rabbitListenerProperties).forEach(bindingKey ->
+                    declareAndBindQueue(rabbitAdmin, bindingKey, exchange, queue)
+            );
+        }
+        RabbitRetryTopology.declare(rabbitAdmin, rabbitListenerProperties);
     }
 
-    private void initQueue(RabbitAdmin rabbitAdmin, String queueName) {
+    private static void initQueue(RabbitAdmin rabbitAdmin, String queueName) {
         Queue queue = QueueBuilder.durable(queueName)
                 .quorum()
                 .build();
@@ -218,7 +434,7 @@ public class RabbitConfiguration {
         rabbitAdmin.declareQueue(queue);
     }
 
-    private void declareAndBindQueue(
+    private static void declareAndBindQueue(
             RabbitAdmin rabbitAdmin,
             String replyRoutingKey,
             DirectExchange exchange,
@@ -230,65 +446,38 @@ public class RabbitConfiguration {
         rabbitAdmin.declareBinding(binding);
     }
 
+    /**
+     * Регистратор фабрик слушателей. Метод статический, чтобы пост-процессор создавался до загрузки конфигурации.
+     */
+    @Bean
+    static RabbitListenerContainerFactoryRegistrar rabbitListenerContainerFactoryRegistrar() {
+        return new RabbitListenerContainerFactoryRegistrar();
+    }
+
+    @Bean
+    static AmqpRpcEndpointProcessor amqpRpcEndpointProcessor() {
+        return new AmqpRpcEndpointProcessor();
+    }
+
     @Bean("customRabbitListeners")
-    Map<Microservice, Map<String, Map<String, String>>> customRabbitListeners(
-            @Qualifier("customConnectionFactories") Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
-            RabbitProperties rabbitProperties,
-            ApplicationContext applicationContext,
-            OpenTelemetry openTelemetry,
-            ConfigurableListableBeanFactory beanFactory
-    ) {
+    Map<Microservice, Map<String, Map<String, String>>> customRabbitListeners(RabbitProperties rabbitProperties) {
         Map<Microservice, Map<String, Map<String, String>>> listenersBeanNames = new EnumMap<>(Microservice.class);
 
-        connectionFactories.forEach((microservice, innerMap) -> {
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) -> {
             Map<String, Map<String, String>> serviceMap = new HashMap<>();
-            innerMap.forEach((name, connectionFactory) -> {
+            servicePropertiesMap.forEach((propertiesName, serviceProperties) -> {
                 Map<String, String> listenerToBeanNameMap = new HashMap<>();
-
-                Set<String> listenerNames = rabbitProperties.properties()
-                        .get(microservice)
-                        .get(name)
-                        .queueingProperties()
-                        .listeners()
-                        .keySet()
-                        .stream()
-                        .map(s -> Arrays.stream(s.split(" "))
-                                .map(s1 -> StringUtils.capitalize(s1.trim()))
-                                .collect(Collectors.joining())
+                serviceProperties.queueingProperties().listeners().keySet().forEach(listenerKey ->
+                        listenerToBeanNameMap.put(
+                                RabbitListenerContainerFactoryRegistrar.listenerName(listenerKey),
+                                RabbitListenerContainerFactoryRegistrar.listenerBeanName(
+                                        microservice,
+                                        propertiesName,
+                                        listenerKey
+                                )
                         )
-                        .collect(Collectors.toSet());
-                listenerNames.forEach(listenerName -> {
-                    String beanName = microservice.name().toLowerCase()
-                            + StringUtils.capitalize(name)
-                            + listenerName
-                            + LISTENER_POSTFIX;
-
-                    listenerToBeanNameMap.put(listenerName, beanName);
-
-                    SimpleRabbitListenerContainerFactory listenerFactory = createListenerContainerFactory(
-                            connectionFactory,
-                            getBean(
-                                    rabbitProperties.properties()
-                                            .get(microservice)
-                                            .get(name)
-                                            .queueingProperties()
-                                            .listeners()
-                                            .get(listenerName)
-                                            .customizerName(),
-                                    applicationContext,
-                                    SimpleRabbitListenerContainerFactoryCustomizer.class
-                            ),
-                            openTelemetry
-                    );
-
-                    if (log.isDebugEnabled()) {
-                        log.debug("Create listener bean: {}", beanName);
-                    }
-                    beanFactory.registerSingleton(beanName, listenerFactory);
-                    beanFactory.autowireBean(listenerFactory);          // @Autowired и пр.
-                    beanFactory.initializeBean(listenerFactory, beanName); // BeanPostProcessor'ы
-                });
-                serviceMap.put(name, listenerToBeanNameMap);
+                );
+                serviceMap.put(propertiesName, listenerToBeanNameMap);
             });
             listenersBeanNames.put(microservice, serviceMap);
         });
@@ -296,21 +485,230 @@ public class RabbitConfiguration {
         return listenersBeanNames;
     }
 
-    private SimpleRabbitListenerContainerFactory createListenerContainerFactory(
+    static SimpleRabbitListenerContainerFactory createListenerContainerFactory(
             TracedConnectionFactory connectionFactory,
             SimpleRabbitListenerContainerFactoryCustomizer customizer,
-            OpenTelemetry openTelemetry
+            OpenTelemetry openTelemetry,
+            TrafficRecorder trafficRecorder,
+            RabbitListenerProperties listenerProperties
     ) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         if (customizer != null) {
             customizer.customize(factory);
         }
-        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        configureListenerContainerFactory(
+                factory,
+                connectionFactory,
+                openTelemetry,
+                trafficRecorder,
+                listenerProperties
+        );
+        if (listenerProperties.autoscaling() != null) {
+            // Максимум равен текущему количеству, дальше количеством управляет RabbitConsumerAutoscaler
+            factory.setConcurrentConsumers(listenerProperties.autoscaling().minConsumers());
+            factory.setMaxConcurrentConsumers(listenerProperties.autoscaling().minConsumers());
+        } else {
+            if (listenerProperties.concurrentConsumers() != null) {
+                factory.setConcurrentConsumers(listenerProperties.concurrentConsumers());
+            }
+            if (listenerProperties.maxConsumers() != null) {
+                factory.setMaxConcurrentConsumers(listenerProperties.maxConsumers());
+            }
+        }
+        if (listenerProperties.executor() == RabbitListenerExecutor.VIRTUAL) {
+            // ExecutionContext и MDC живут в ThreadLocal и заполняются интерцептором на время обработки сообщения,
+            // поэтому на виртуальных потоках работают так же, как на платформенных
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(listenerProperties.queueName() + "-");
+            taskExecutor.setVirtualThreads(true);
+            factory.setTaskExecutor(taskExecutor);
+        }
+        if (listenerProperties.ack() != null && listenerProperties.batch() != null) {
+            throw new IllegalArgumentException("Свойства ack и batch не задаются вместе: очередь "
+                    + listenerProperties.queueName());
+        }
+        if (listenerProperties.batch() != null) {
+            factory.setBatchListener(true);
+            factory.setConsumerBatchEnabled(true);
+            factory.setBatchSize(listenerProperties.batch().size());
+            if (listenerProperties.batch().receiveTimeout() != null) {
+                factory.setBatchReceiveTimeout(listenerProperties.batch().receiveTimeout().toMillis());
+            }
+        }
+
+        return factory;
+    }
+
+    /**
+     * Фабрика {@link DirectRabbitListenerContainerFactory}: слушатель вызывается прямо в потоке клиента RabbitMQ,
+     * без передачи сообщения потоку контейнера. Пакетный режим, {@code max-consumers} и {@code executor} у такого
+     * контейнера не поддерживаются, а {@code concurrent-consumers} задаёт количество потребителей на очередь.
+     */
+    static DirectRabbitListenerContainerFactory createDirectListenerContainerFactory(
+            TracedConnectionFactory connectionFactory,
+            DirectRabbitListenerContainerFactoryCustomizer customizer,
+            OpenTelemetry openTelemetry,
+            TrafficRecorder trafficRecorder,
+            RabbitListenerProperties listenerProperties
+    ) {
+        if (listenerProperties.batch() != null
+                || listenerProperties.maxConsumers() != null
+                || listenerProperties.executor() == RabbitListenerExecutor.VIRTUAL) {
+            throw new IllegalArgumentException("Свойства batch, max-consumers и executor не поддерживаются "
+                    + "контейнером DIRECT: очередь " + listenerProperties.queueName());
+        }
+
+        DirectRabbitListenerContainerFactory factory = new DirectRabbitListenerContainerFactory();
+        if (customizer != null) {
+            customizer.customize(factory);
+        }
+        configureListenerContainerFactory(
+                factory,
+                connectionFactory,
+                openTelemetry,
+                trafficRecorder,
+                listenerProperties
+        );
+        if (listenerProperties.autoscaling() != null) {
+            factory.setConsumersPerQueue(listenerProperties.autoscaling().minConsumers());
+        } else if (listenerProperties.concurrentConsumers() != null) {
+            factory.setConsumersPerQueue(listenerProperties.concurrentConsumers());
+        }
+
+        return factory;
+    }
+
+    /**
+     * Общие для обоих типов контейнеров настройки. Применяются после кастомайзера, поэтому перекрывают его.
+     */
+    private static void configureListenerContainerFactory(
+            AbstractRabbitListenerContainerFactory<?> factory,
+            TracedConnectionFactory connectionFactory,
+            OpenTelemetry openTelemetry,
+            TrafficRecorder trafficRecorder,
+            RabbitListenerProperties listenerProperties
+    ) {
+        if (listenerProperties.keyed() != null) {
+            validateKeyedDispatch(listenerProperties);
+            // Сообщения подтверждают полосы RabbitKeyedDispatchInterceptor после обработки
+            factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        } else if (listenerProperties.conflation() != null) {
+            validateConflation(listenerProperties);
+            // Сообщения подтверждает RabbitConflationInterceptor, заменённые - сразу, остальные - после обработки
+            factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        } else if (listenerProperties.ack() != null) {
+            // Сообщения подтверждает RabbitCumulativeAckInterceptor: контейнер при ошибке отклонил бы с multiple=true
+            // и уже обработанные сообщения пачки
+            factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        } else {
+            factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        }
         factory.setDefaultRequeueRejected(false);
         factory.setConnectionFactory(connectionFactory);
-        factory.setAdviceChain(new AmqpMessageReceiveInterceptor(openTelemetry));
+        if (listenerProperties.prefetch() != null) {
+            factory.setPrefetchCount(listenerProperties.prefetch());
+        }
+        // Конвертер, заданный кастомайзером, остаётся, но разбор тела для параметров LazyPayload откладывается
+        MessageConverter messageConverter = (MessageConverter) new DirectFieldAccessor(factory)
+                .getPropertyValue("messageConverter");
+        factory.setMessageConverter(new LazyPayloadMessageConverter(
+                messageConverter == null ? new SimpleMessageConverter() : messageConverter
+        ));
+        List<Advice> adviceChain = new ArrayList<>();
+        if (listenerProperties.ack() != null) {
+            // Первым, чтобы отброшенные фильтром сообщения подтверждались вместе с остальными
+            adviceChain.add(new RabbitCumulativeAckInterceptor(
+                    listenerProperties.ack(),
+                    listenerProperties.queueName()
+            ));
+        }
+        if (listenerProperties.filter() != null) {
+            adviceChain.add(new RabbitMessageFilterInterceptor(
+                    listenerProperties.filter(),
+                    listenerProperties.queueName(),
+                    listenerProperties.keyed() != null || listenerProperties.conflation() != null,
+                    openTelemetry
+            ));
+        }
+        if (listenerProperties.keyed() != null) {
+            adviceChain.add(new RabbitKeyedDispatchInterceptor(
+                    listenerProperties.keyed(),
+                    listenerProperties.queueName()
+            ));
+        }
+        if (listenerProperties.conflation() != null) {
+            adviceChain.add(new RabbitConflationInterceptor(
+                    listenerProperties.conflation(),
+                    listenerProperties.queueName(),
+                    openTelemetry
+            ));
+        }
+        if (listenerProperties.autoscaling() != null) {
+            adviceChain.add(new RabbitListenerLatencyInterceptor());
+        }
+        if (listenerProperties.retry() != null) {
+            adviceChain.add(new RabbitRetryInterceptor(listenerProperties));
+        }
+        if (listenerProperties.deduplication() != null) {
+            // После интерцептора повторов: упавшее сообщение не должно запоминаться как обработанное
+            adviceChain.add(new RabbitDeduplicationInterceptor(
+                    createDeduplicationStore(listenerProperties.deduplication()),
+                    listenerProperties.queueName(),
+                    openTelemetry
+            ));
+        }
+        adviceChain.add(new AmqpMessageReceiveInterceptor(
+                openTelemetry,
+                trafficRecorder,
+                listenerProperties.payloadLog(),
+                connectionFactory.isConsumerSpan()
+        ));
+        factory.setAdviceChain(adviceChain.toArray(Advice[]::new));
+    }
 
-        return factory;
+    /**
+     * Порядок по ключу держится только при одном потребителе, а накопительное подтверждение и пачки несовместимы с
+     * подтверждением сообщений полосами по одному в произвольном порядке.
+     */
+    private static void validateKeyedDispatch(RabbitListenerProperties listenerProperties) {
+        if (!isSingleConsumer(listenerProperties)
+                || listenerProperties.batch() != null
+                || listenerProperties.ack() != null
+                || listenerProperties.conflation() != null) {
+            throw new IllegalArgumentException("Свойство keyed требует одного потребителя и несовместимо с batch, "
+                    + "ack, autoscaling и conflation: очередь " + listenerProperties.queueName());
+        }
+    }
+
+    /**
+     * Сообщения подтверждаются по одному после схлопывания, поэтому пачки и накопительное подтверждение не подходят,
+     * а полосы {@code keyed} сами решают, в каком потоке обрабатывать сообщение. Потребитель только кладёт сообщение
+     * в таблицу ожидающих ключей, поэтому лишние потребители ничего не ускоряют, а автомасштабирование мерило бы
+     * время постановки в таблицу вместо обработки.
+     */
+    private static void validateConflation(RabbitListenerProperties listenerProperties) {
+        if (!isSingleConsumer(listenerProperties)
+                || listenerProperties.batch() != null
+                || listenerProperties.ack() != null
+                || listenerProperties.keyed() != null) {
+            throw new IllegalArgumentException("Свойство conflation требует одного потребителя и несовместимо с "
+                    + "batch, ack, autoscaling и keyed: очередь " + listenerProperties.queueName());
+        }
+    }
+
+    /**
+     * Количество потребителей {@code DIRECT} контейнера ({@code consumersPerQueue}) задаётся теми же свойствами,
+     * поэтому проверка подходит обоим типам контейнеров.
+     */
+    private static boolean isSingleConsumer(RabbitListenerProperties listenerProperties) {
+        return (listenerProperties.concurrentConsumers() == null || listenerProperties.concurrentConsumers() == 1)
+                && (listenerProperties.maxConsumers() == null || listenerProperties.maxConsumers() == 1)
+                && listenerProperties.autoscaling() == null;
+    }
+
+    private static MessageDeduplicationStore createDeduplicationStore(RabbitDeduplicationProperties properties) {
+        return StringUtils.hasText(properties.file())
+                ? new MappedDeduplicationStore(Path.of(properties.file()), properties.window(), properties.maxEntries())
+                : new InMemoryDeduplicationStore(properties.window(), properties.maxEntries());
     }
 
     @Bean
@@ -318,12 +716,14 @@ public class RabbitConfiguration {
             @Qualifier("customConnectionFactories") Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
             @Qualifier("customMessageConverters") Map<Microservice, Map<String, MessageConverter>> messageConverters,
             RabbitProperties rabbitProperties,
+            RabbitConnectionWarmUp rabbitConnectionWarmUp,
+            RabbitTrafficClasses rabbitTrafficClasses,
             ApplicationContext applicationContext
     ) {
         Set<AmqpMessagingConfig> amqpMessagingConfigs = new HashSet<>();
 
         connectionFactories.forEach((microservice, connectionFactoriesMap) ->
-                connectionFactoriesMap.forEach((name, connectionFactory) -> {
+                connectionFactoriesMap.forEach((name, _) -> {
                     Map<String, RabbitSenderProperties> senders = rabbitProperties.properties()
                             .get(microservice)
                             .get(name)
@@ -337,10 +737,16 @@ public class RabbitConfiguration {
                                 applicationContext,
                                 RabbitTemplateCustomizer.class
                         );
+                        TracedConnectionFactory connectionFactory = rabbitTrafficClasses.resolve(
+                                microservice,
+                                name,
+                                senderProperties.trafficClass()
+                        );
 
                         AmqpMessagingConfig config = new AmqpMessagingConfig() {
                             @Override
                             public @NotNull RabbitTemplate rabbitTemplate() {
+                                rabbitConnectionWarmUp.await(microservice, name, senderProperties.trafficClass());
                                 return getRabbitTemplate(
                                         connectionFactory,
                                         messageConverters.get(microservice).get(name),
@@ -398,7 +804,7 @@ public class RabbitConfiguration {
         return rabbitTemplate;
     }
 
-    private <T> T getBean(
+    static <T> T getBean(
             String beanName,
             ApplicationContext applicationContext,
             Class<T> beanClass
@@ -0,0 +1,329 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.AmqpAuthenticationException;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.StringUtils;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitServiceProperties;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitTrafficClasses;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Фоновое подключение к RabbitMQ для комплектов свойств с {@code lazy-startup: true}.
+ * <p>
+ * После {@link ApplicationReadyEvent} каждое ленивое подключение устанавливается в отдельном виртуальном потоке:
+ * открывается соединение, объявляются очереди, обменники и привязки, затем запускаются контейнеры слушателей этого
+ * подключения. Подключения классов трафика ({@code connection-properties.traffic-classes}) ждут основное
+ * подключение комплекта, которое объявляет топологию, затем открывают своё соединение и запускают контейнеры своих
+ * слушателей. При ошибке попытка повторяется с экспоненциальной задержкой. Повторы прекращаются при ошибке
+ * аутентификации и при остановке контекста: подключение помечается неудачным, и ожидающие отправки сразу получают
+ * ошибку. Подключения без ленивого режима считаются готовыми сразу - их топология объявляется при создании
+ * контекста, как и раньше.
+ * <p>
+ * Отправка ждёт только своё подключение ({@link #await(Microservice, String, String)}), поэтому медленный брокер
+ * одного микросервиса не задерживает остальные. Если отправка случилась раньше {@link ApplicationReadyEvent},
+ * подключение запускается сразу.
+ * <p>
+ * В loopback-режиме все подключения считаются готовыми: к брокеру никто не подключается.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitConnectionsHealthIndicator
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitConnectionWarmUp implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final Map<Microservice, Map<String, ConnectionState>> connections = new EnumMap<>(Microservice.class);
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("rabbit-warm-up-", 0).factory()
+    );
+
+    private final ApplicationContext applicationContext;
+
+    private volatile boolean stopped;
+
+    public RabbitConnectionWarmUp(
+            Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
+            Map<Microservice, Map<String, RabbitAdmin>> amqpAdmins,
+            RabbitProperties rabbitProperties,
+            RabbitTrafficClasses rabbitTrafficClasses,
+            boolean loopback,
+            ApplicationContext applicationContext
+    ) {
+        this.applicationContext = applicationContext;
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) -> {
+            Map<String, ConnectionState> states = new HashMap<>();
+            servicePropertiesMap.forEach((propertiesName, serviceProperties) -> {
+                String name = microservice.name().toLowerCase() + "." + propertiesName;
+                ConnectionState state = new ConnectionState(
+                        name,
+                        connectionFactories.get(microservice).get(propertiesName),
+                        amqpAdmins.get(microservice).get(propertiesName),
+                        serviceProperties,
+                        null,
+                        loopback
+                );
+                Map<String, ?> trafficClasses = serviceProperties.connectionProperties().trafficClasses();
+                if (trafficClasses != null) {
+                    trafficClasses.keySet().forEach(trafficClass -> state.trafficClasses.put(
+                            trafficClass,
+                            new ConnectionState(
+                                    name + "." + trafficClass,
+                                    rabbitTrafficClasses.resolve(microservice, propertiesName, trafficClass),
+                                    null,
+                                    serviceProperties,
+                                    state,
+                                    loopback
+                            )
+                    ));
+                }
+                states.put(propertiesName, state);
+            });
+            connections.put(microservice, states);
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(@NotNull ApplicationReadyEvent event) {
+        states().forEach(this::start);
+    }
+
+    /**
+     * Ожидает установки подключения комплекта свойств или его класса трафика. Время ожидания ограничено таймаутом
+     * подключения из свойств.
+     *
+     * @param microservice   микросервис.
+     * @param propertiesName имя сервисных свойств (комплекта свойств).
+     * @param trafficClass   класс трафика отправителя, {@code null} - основное подключение комплекта.
+     * @throws AmqpConnectException если подключение не установлено за отведённое время или попытки подключения
+     *                              прекращены.
+     */
+    public void await(@NotNull Microservice microservice, @NotNull String propertiesName, String trafficClass) {
+        ConnectionState state = connections.getOrDefault(microservice, Map.of()).get(propertiesName);
+        if (state != null && StringUtils.hasText(trafficClass)) {
+            state = state.trafficClasses.get(trafficClass);
+        }
+        if (state == null || state.isUp()) {
+            return;
+        }
+
+        start(state);
+        long timeout = state.serviceProperties.connectionProperties().connectionTimeout().toMillis();
+        try {
+            state.ready.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AmqpConnectException("Подключение " + state.name + " к RabbitMQ ещё не установлено", e);
+        } catch (ExecutionException e) {
+            throw new AmqpConnectException("Подключение " + state.name + " к RabbitMQ не установлено", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpConnectException("Ожидание подключения " + state.name + " прервано", e);
+        }
+    }
+
+    /**
+     * @return готовы ли все подключения.
+     */
+    public boolean isReady() {
+        return states().allMatch(ConnectionState::isUp);
+    }
+
+    /**
+     * @return состояние каждого подключения, включая подключения классов трафика: {@code UP}, {@code CONNECTING},
+     * текст последней ошибки подключения или {@code DOWN: <ошибка>}, если попытки подключения прекращены.
+     */
+    public Map<String, String> details() {
+        Map<String, String> details = new LinkedHashMap<>();
+        states().forEach(state -> details.put(
+                state.name,
+                state.isUp()
+                        ? "UP"
+                        : state.ready.isCompletedExceptionally()
+                        ? "DOWN: " + state.lastError
+                        : state.lastError == null ? "CONNECTING" : state.lastError
+        ));
+        return details;
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return основные подключения комплектов и подключения их классов трафика.
+     */
+    private Stream<ConnectionState> states() {
+        return connections.values()
+                .stream()
+                .flatMap(states -> states.values().stream())
+                .flatMap(state -> Stream.concat(Stream.of(state), state.trafficClasses.values().stream()));
+    }
+
+    /**
+     * Подключение класса трафика ждёт основное подключение комплекта, поэтому запускает и его.
+     */
+    private void start(ConnectionState state) {
+        if (state.parent != null) {
+            start(state.parent);
+        }
+        if (!state.ready.isDone() && state.started.compareAndSet(false, true)) {
+            executor.execute(() -> warmUp(state));
+        }
+    }
+
+    private void warmUp(ConnectionState state) {
+        if (state.parent != null && !awaitParent(state)) {
+            return;
+        }
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (!stopped) {
+            try {
+                state.connectionFactory.createConnection().close();
+                if (state.amqpAdmin != null) {
+                    RabbitConfiguration.declareTopology(state.amqpAdmin, state.serviceProperties);
+                }
+                startListenerContainers(state.connectionFactory);
+                state.ready.complete(null);
+                log.info("[RABBIT] Подключение {} установлено", state.name);
+                return;
+            } catch (AmqpAuthenticationException e) {
+                // Неверные учётные данные или виртуальный хост повтором не исправить
+                giveUp(state, e);
+                return;
+            } catch (Exception e) {
+                state.lastError = e.getMessage();
+                log.warn("[RABBIT] Ошибка подключения {}, повтор через {} мс: {}", state.name, backoff, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                giveUp(state, e);
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+        giveUp(state, new AmqpConnectException("Контекст остановлен", null));
+    }
+
+    /**
+     * Топологию объявляет основное подключение комплекта: без неё слушатели класса трафика не найдут свои очереди.
+     *
+     * @return установлено ли основное подключение. Если нет, подключение класса помечается неудачным.
+     */
+    private static boolean awaitParent(ConnectionState state) {
+        try {
+            state.parent.ready.get();
+            return true;
+        } catch (ExecutionException e) {
+            giveUp(state, e.getCause() instanceof Exception cause ? cause : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            giveUp(state, e);
+        }
+        return false;
+    }
+
+    private static void giveUp(ConnectionState state, Exception cause) {
+        if (state.lastError == null || cause instanceof AmqpAuthenticationException) {
+            state.lastError = cause.getMessage();
+        }
+        state.ready.completeExceptionally(cause);
+        log.error("[RABBIT] Попытки подключения {} прекращены: {}", state.name, state.lastError);
+    }
+
+    private void startListenerContainers(TracedConnectionFactory connectionFactory) {
+        applicationContext.getBeanProvider(RabbitListenerEndpointRegistry.class).ifAvailable(registry ->
+                registry.getListenerContainers().forEach(container -> {
+                    if (container instanceof AbstractMessageListenerContainer listenerContainer
+                            && listenerContainer.getConnectionFactory() == connectionFactory
+                            && !listenerContainer.isRunning()) {
+                        listenerContainer.start();
+                    }
+                })
+        );
+    }
+
+    private static final class ConnectionState {
+
+        private final String name;
+
+        private final TracedConnectionFactory connectionFactory;
+
+        private final RabbitAdmin amqpAdmin;
+
+        private final RabbitServiceProperties serviceProperties;
+
+        /**
+         * Основное подключение комплекта для подключения класса трафика, {@code null} - у основного подключения.
+         */
+        private final ConnectionState parent;
+
+        /**
+         * Подключения классов трафика основного подключения по имени класса.
+         */
+        private final Map<String, ConnectionState> trafficClasses = new LinkedHashMap<>();
+
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private volatile String lastError;
+
+        private ConnectionState(
+                String name,
+                TracedConnectionFactory connectionFactory,
+                RabbitAdmin amqpAdmin,
+                RabbitServiceProperties serviceProperties,
+                ConnectionState parent,
+                boolean loopback
+        ) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+            this.amqpAdmin = amqpAdmin;
+            this.serviceProperties = serviceProperties;
+            this.parent = parent;
+            if (loopback || !Boolean.TRUE.equals(serviceProperties.connectionProperties().lazyStartup())) {
+                ready.complete(null);
+            }
+        }
+
+        private boolean isUp() {
+            return ready.isDone() && !ready.isCompletedExceptionally();
+        }
+
+    }
+
+}
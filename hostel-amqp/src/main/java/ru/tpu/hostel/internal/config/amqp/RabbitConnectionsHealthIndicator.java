@@ -0,0 +1,37 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Индикатор здоровья подключений к RabbitMQ. Возвращает {@code DOWN}, пока хотя бы одно ленивое подключение не
+ * установлено, в деталях - состояние каждого комплекта свойств.
+ * <p>
+ * Чтобы не принимать трафик до установки подключений, индикатор добавляется в группу readiness:
+ * <pre>{@code
+ * management:
+ *   endpoint:
+ *     health:
+ *       group:
+ *         readiness:
+ *           include: readinessState,rabbitConnections
+ * }</pre>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitConnectionWarmUp
+ * @since 2.0.0
+ */
+@RequiredArgsConstructor
+public class RabbitConnectionsHealthIndicator implements HealthIndicator {
+
+    private final RabbitConnectionWarmUp rabbitConnectionWarmUp;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = rabbitConnectionWarmUp.isReady() ? Health.up() : Health.down();
+        return builder.withDetails(rabbitConnectionWarmUp.details()).build();
+    }
+
+}
@@ -0,0 +1,149 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import io.opentelemetry.api.OpenTelemetry;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.aopalliance.aop.Advice;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import ru.tpu.hostel.internal.config.amqp.customizer.DirectRabbitListenerContainerFactoryCustomizer;
+import ru.tpu.hostel.internal.config.amqp.customizer.SimpleRabbitListenerContainerFactoryCustomizer;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerContainerType;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitLoopbackProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitServiceProperties;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitTrafficClasses;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+import ru.tpu.hostel.internal.recording.TrafficRecorder;
+
+/**
+ * Фабрика бина {@link SimpleRabbitListenerContainerFactory} или {@link DirectRabbitListenerContainerFactory} для
+ * одного слушателя из свойств.
+ * <p>
+ * Определения этого бина регистрирует {@link RabbitListenerContainerFactoryRegistrar}. Аргументы конструктора -
+ * только простые значения (включая тип контейнера), а подключение, кастомайзер и OpenTelemetry берутся из контекста в
+ * {@link #getObject()}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@RequiredArgsConstructor
+public class RabbitListenerContainerFactoryBean
+        implements FactoryBean<AbstractRabbitListenerContainerFactory<?>>, ApplicationContextAware, DisposableBean {
+
+    private final Microservice microservice;
+
+    private final String propertiesName;
+
+    private final String listenerKey;
+
+    private final RabbitListenerContainerType containerType;
+
+    private ApplicationContext applicationContext;
+
+    private AbstractRabbitListenerContainerFactory<?> factory;
+
+    @Override
+    public void setApplicationContext(@NotNull ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public AbstractRabbitListenerContainerFactory<?> getObject() {
+        RabbitProperties rabbitProperties = applicationContext.getBean(RabbitProperties.class);
+
+        RabbitServiceProperties serviceProperties = rabbitProperties.properties()
+                .get(microservice)
+                .get(propertiesName);
+        RabbitListenerProperties listenerProperties = serviceProperties.queueingProperties()
+                .listeners()
+                .get(listenerKey);
+
+        TracedConnectionFactory connectionFactory = applicationContext.getBean(RabbitTrafficClasses.class)
+                .resolve(microservice, propertiesName, listenerProperties.trafficClass());
+        OpenTelemetry openTelemetry = applicationContext.getBean(OpenTelemetry.class);
+        TrafficRecorder trafficRecorder = applicationContext.getBeanProvider(TrafficRecorder.class).getIfAvailable();
+        AbstractRabbitListenerContainerFactory<?> factory = containerType == RabbitListenerContainerType.DIRECT
+                ? RabbitConfiguration.createDirectListenerContainerFactory(
+                        connectionFactory,
+                        RabbitConfiguration.getBean(
+                                listenerProperties.customizerName(),
+                                applicationContext,
+                                DirectRabbitListenerContainerFactoryCustomizer.class
+                        ),
+                        openTelemetry,
+                        trafficRecorder,
+                        listenerProperties
+                )
+                : RabbitConfiguration.createListenerContainerFactory(
+                        connectionFactory,
+                        RabbitConfiguration.getBean(
+                                listenerProperties.customizerName(),
+                                applicationContext,
+                                SimpleRabbitListenerContainerFactoryCustomizer.class
+                        ),
+                        openTelemetry,
+                        trafficRecorder,
+                        listenerProperties
+                );
+
+        if (Boolean.TRUE.equals(serviceProperties.connectionProperties().lazyStartup())) {
+            // Контейнеры запустит RabbitConnectionWarmUp после подключения и объявления очередей
+            factory.setAutoStartup(false);
+            factory.setMissingQueuesFatal(false);
+        }
+
+        if (Boolean.TRUE.equals(applicationContext.getBean(RabbitLoopbackProperties.class).enabled())) {
+            // Сообщения доставляет RabbitLoopbackBroker, контейнеры к брокеру не подключаются
+            factory.setAutoStartup(false);
+        }
+
+        // Продукт FactoryBean не проходит Aware-колбэки контейнера
+        factory.setApplicationContext(applicationContext);
+        factory.setApplicationEventPublisher(applicationContext);
+        this.factory = factory;
+        return factory;
+    }
+
+    /**
+     * Продукт FactoryBean не уничтожается контекстом, поэтому интерцепторы со своими потоками (полосы, схлопывание)
+     * останавливаются здесь.
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (factory == null || factory.getAdviceChain() == null) {
+            return;
+        }
+        for (Advice advice : factory.getAdviceChain()) {
+            if (advice instanceof DisposableBean disposableAdvice) {
+                disposableAdvice.destroy();
+            }
+        }
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return objectType(containerType);
+    }
+
+    /**
+     * Возвращает класс фабрики слушателя для типа контейнера.
+     *
+     * @param containerType тип контейнера, {@code null} - тип по умолчанию.
+     * @return класс фабрики.
+     */
+    static Class<?> objectType(RabbitListenerContainerType containerType) {
+        return containerType == RabbitListenerContainerType.DIRECT
+                ? DirectRabbitListenerContainerFactory.class
+                : SimpleRabbitListenerContainerFactory.class;
+    }
+
+}
@@ -0,0 +1,123 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Регистрирует определения бинов фабрик RabbitMQ слушателей на фазе {@link BeanDefinitionRegistry}.
+ * <p>
+ * Каждому слушателю из свойств {@code rabbitmq.properties.*.*.queueing-properties.listeners} соответствует
+ * {@link RootBeanDefinition} с классом {@link RabbitListenerContainerFactoryBean} и простыми аргументами
+ * конструктора (микросервис, имя комплекта свойств, ключ слушателя, тип контейнера). Такие определения Spring AOT
+ * превращает в сгенерированный код, поэтому фабрики попадают и в native-image, и в AOT-кэш JVM. Сами зависимости
+ * фабрики (подключение, кастомайзер, OpenTelemetry) разрешаются только при создании бина.
+ * <p>
+ * При запуске из AOT-кода определения уже зарегистрированы, поэтому повторная регистрация пропускается.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitListenerContainerFactoryRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    private static final String PROPERTIES_PREFIX = "rabbitmq";
+
+    private static final String LISTENER_POSTFIX = "RabbitListener";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(@NotNull Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(@NotNull BeanDefinitionRegistry registry) throws BeansException {
+        RabbitProperties rabbitProperties = Binder.get(environment)
+                .bind(PROPERTIES_PREFIX, RabbitProperties.class)
+                .orElse(null);
+        if (rabbitProperties == null || rabbitProperties.properties() == null) {
+            return;
+        }
+
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) ->
+                servicePropertiesMap.forEach((propertiesName, serviceProperties) ->
+                        serviceProperties.queueingProperties().listeners().forEach((listenerKey, listener) -> {
+                            String beanName = listenerBeanName(microservice, propertiesName, listenerKey);
+                            if (registry.containsBeanDefinition(beanName)) {
+                                return;
+                            }
+
+                            RootBeanDefinition beanDefinition = new RootBeanDefinition(
+                                    RabbitListenerContainerFactoryBean.class
+                            );
+                            beanDefinition.getConstructorArgumentValues()
+                                    .addIndexedArgumentValue(0, microservice);
+                            beanDefinition.getConstructorArgumentValues()
+                                    .addIndexedArgumentValue(1, propertiesName);
+                            beanDefinition.getConstructorArgumentValues()
+                                    .addIndexedArgumentValue(2, listenerKey);
+                            beanDefinition.getConstructorArgumentValues()
+                                    .addIndexedArgumentValue(3, listener.containerType());
+                            beanDefinition.setAttribute(
+                                    FactoryBean.OBJECT_TYPE_ATTRIBUTE,
+                                    RabbitListenerContainerFactoryBean.objectType(listener.containerType())
+                            );
+
+                            if (log.isDebugEnabled()) {
+                                log.debug("[RABBIT] Регистрация определения бина слушателя: {}", beanName);
+                            }
+                            registry.registerBeanDefinition(beanName, beanDefinition);
+                        })
+                )
+        );
+    }
+
+    /**
+     * Возвращает имя слушателя в формате, который используется в именах бинов: слова ключа из свойств
+     * пишутся с заглавной буквы и склеиваются ({@code "book reply"} -> {@code "BookReply"}).
+     *
+     * @param listenerKey ключ слушателя из свойств.
+     * @return имя слушателя.
+     */
+    public static String listenerName(@NotNull String listenerKey) {
+        return Arrays.stream(listenerKey.split(" "))
+                .map(s -> StringUtils.capitalize(s.trim()))
+                .collect(Collectors.joining());
+    }
+
+    /**
+     * Возвращает имя бина фабрики слушателя.
+     *
+     * @param microservice   микросервис, из которого слушаем.
+     * @param propertiesName имя сервисных свойств (комплекта свойств).
+     * @param listenerKey    ключ слушателя из свойств.
+     * @return имя бина фабрики слушателя.
+     */
+    public static String listenerBeanName(
+            @NotNull Microservice microservice,
+            @NotNull String propertiesName,
+            @NotNull String listenerKey
+    ) {
+        return microservice.name().toLowerCase()
+                + StringUtils.capitalize(propertiesName)
+                + listenerName(listenerKey)
+                + LISTENER_POSTFIX;
+    }
+
+}
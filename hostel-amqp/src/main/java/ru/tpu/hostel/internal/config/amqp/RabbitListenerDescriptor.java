@@ -0,0 +1,29 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+/**
+ * Описание слушателя из свойств вместе с его подключением и конвертером.
+ *
+ * @param microservice       микросервис, из которого слушаем.
+ * @param propertiesName     имя сервисных свойств (комплекта свойств).
+ * @param listenerKey        ключ слушателя из свойств.
+ * @param listenerProperties свойства слушателя.
+ * @param connectionFactory  подключение комплекта свойств.
+ * @param messageConverter   конвертер сообщений комплекта свойств.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record RabbitListenerDescriptor(
+        Microservice microservice,
+        String propertiesName,
+        String listenerKey,
+        RabbitListenerProperties listenerProperties,
+        TracedConnectionFactory connectionFactory,
+        MessageConverter messageConverter
+) {
+}
@@ -0,0 +1,91 @@
+package ru.tpu.hostel.internal.config.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitTrafficClasses;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск слушателя из свойств по имени. Имя - это ключ слушателя ({@code book}) или полное имя
+ * {@code <микросервис>.<комплект свойств>.<ключ слушателя>} ({@code schedule.default.book}), если один ключ
+ * используется в нескольких комплектах.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class RabbitListenerLocator {
+
+    private final List<RabbitListenerDescriptor> listeners = new ArrayList<>();
+
+    public RabbitListenerLocator(
+            RabbitProperties rabbitProperties,
+            RabbitTrafficClasses trafficClasses,
+            Map<Microservice, Map<String, MessageConverter>> messageConverters
+    ) {
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) ->
+                servicePropertiesMap.forEach((propertiesName, serviceProperties) ->
+                        serviceProperties.queueingProperties().listeners().forEach((listenerKey, listener) ->
+                                listeners.add(new RabbitListenerDescriptor(
+                                        microservice,
+                                        propertiesName,
+                                        listenerKey,
+                                        listener,
+                                        trafficClasses.resolve(microservice, propertiesName, listener.trafficClass()),
+                                        messageConverters.get(microservice).get(propertiesName)
+                                ))
+                        )
+                )
+        );
+    }
+
+    /**
+     * Возвращает слушателя по имени.
+     *
+     * @param listenerName ключ слушателя или полное имя {@code <микросервис>.<комплект свойств>.<ключ слушателя>}.
+     * @return описание слушателя.
+     * @throws IllegalArgumentException если слушатель не найден или ключ неоднозначен.
+     */
+    @NotNull
+    public RabbitListenerDescriptor get(@NotNull String listenerName) {
+        List<RabbitListenerDescriptor> found = listeners.stream()
+                .filter(listener -> listenerName.equals(listener.listenerKey())
+                        || listenerName.equalsIgnoreCase(fullName(listener)))
+                .toList();
+
+        if (found.isEmpty()) {
+            throw new IllegalArgumentException("Не найден слушатель RabbitMQ: " + listenerName);
+        }
+        if (found.size() > 1) {
+            throw new IllegalArgumentException("Слушатель " + listenerName + " есть в нескольких комплектах свойств, "
+                    + "используйте полное имя: " + found.stream().map(RabbitListenerLocator::fullName).toList());
+        }
+        return found.get(0);
+    }
+
+    /**
+     * @return все слушатели из свойств.
+     */
+    @NotNull
+    public List<RabbitListenerDescriptor> getAll() {
+        return List.copyOf(listeners);
+    }
+
+    /**
+     * Возвращает полное имя слушателя.
+     *
+     * @param listener описание слушателя.
+     * @return имя в формате {@code <микросервис>.<комплект свойств>.<ключ слушателя>}.
+     */
+    public static String fullName(RabbitListenerDescriptor listener) {
+        return listener.microservice().name().toLowerCase()
+                + "." + listener.propertiesName()
+                + "." + listener.listenerKey();
+    }
+
+}
@@ -0,0 +1,202 @@
+package ru.tpu.hostel.internal.config.amqp.ack;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.beans.factory.DisposableBean;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitAckProperties;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Интерцептор накопительного подтверждения сообщений. Ставится первым в цепочку советов фабрики слушателя с ручным
+ * подтверждением.
+ * <p>
+ * Для каждого канала потребителя запоминается delivery tag последнего успешно обработанного сообщения. После каждых
+ * {@code messages} успешных сообщений или по истечении {@code timeout} с первого неподтверждённого они
+ * подтверждаются одним {@code basicAck} с {@code multiple=true}. При ошибке обработки сначала так же подтверждаются
+ * успешные сообщения перед упавшим, а затем только упавшее отклоняется без возврата в очередь: отклонение с
+ * {@code multiple=true} задело бы уже обработанные сообщения. Сообщения, отброшенные фильтром или переотправленные
+ * интерцептором повторов, считаются успешными.
+ * <p>
+ * Неподтверждённые сообщения закрытого канала брокер возвращает в очередь сам, поэтому после перезапуска
+ * потребителя обработанные, но не подтверждённые сообщения могут прийти повторно. При закрытии контекста
+ * {@link #destroy()} подтверждает накопленные сообщения открытых каналов.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitCumulativeAckInterceptor implements MethodInterceptor, DisposableBean {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final String PROCESSING_EXCEPTION = "[RABBIT] Сообщение отклонено при накопительном "
+            + "подтверждении очереди {}: messageId={}";
+
+    private static final String ACK_EXCEPTION = "[RABBIT] Не удалось подтвердить сообщения очереди {}: deliveryTag={}";
+
+    private final String queue;
+
+    private final int messages;
+
+    private final long timeoutNanos;
+
+    private final Map<Channel, PendingAcks> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean started;
+
+    /**
+     * @param properties свойства накопительного подтверждения.
+     * @param queue      очередь слушателя, для логов и имени потока.
+     */
+    public RabbitCumulativeAckInterceptor(RabbitAckProperties properties, String queue) {
+        this.queue = queue;
+        this.messages = properties.messages();
+        this.timeoutNanos = (properties.timeout() == null ? DEFAULT_TIMEOUT : properties.timeout()).toNanos();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2 || !(arguments[0] instanceof Channel channel)
+                || !(arguments[1] instanceof Message message)) {
+            return invocation.proceed();
+        }
+        startScheduler();
+        PendingAcks acks = pending.computeIfAbsent(channel, PendingAcks::new);
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            // Контейнер с ручным подтверждением отклонил бы сообщение ещё раз, поэтому исключение дальше не идёт
+            log.warn(PROCESSING_EXCEPTION, queue, message.getMessageProperties().getMessageId(), e);
+            acks.reject(deliveryTag);
+            return null;
+        }
+        acks.ack(deliveryTag);
+        return result;
+    }
+
+    /**
+     * Останавливает поток подтверждения по таймауту и подтверждает накопленные сообщения открытых каналов.
+     */
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+            }
+        }
+        pending.values().forEach(PendingAcks::flush);
+        pending.clear();
+    }
+
+    private void startScheduler() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            long periodNanos = Math.max(timeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(10));
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rabbit-ack-" + queue);
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushExpired, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+            started = true;
+        }
+    }
+
+    /**
+     * Подтверждает сообщения, ждущие дольше таймаута, и забывает закрытые каналы: их сообщения брокер уже вернул в
+     * очередь.
+     */
+    private void flushExpired() {
+        long now = System.nanoTime();
+        pending.values().removeIf(acks -> !acks.channel.isOpen());
+        pending.values().forEach(acks -> acks.flushExpired(now));
+    }
+
+    /**
+     * Неподтверждённые успешные сообщения одного канала. Delivery tag в канале растут, а сообщения канала
+     * обрабатываются одним потребителем по очереди, поэтому подтверждение последнего успешного с {@code multiple=true}
+     * задевает только успешные сообщения.
+     */
+    private final class PendingAcks {
+
+        private final Channel channel;
+
+        private long lastTag;
+
+        private int count;
+
+        private long firstNanos;
+
+        private PendingAcks(Channel channel) {
+            this.channel = channel;
+        }
+
+        private synchronized void ack(long deliveryTag) {
+            if (count == 0) {
+                firstNanos = System.nanoTime();
+            }
+            lastTag = deliveryTag;
+            count++;
+            if (count >= messages) {
+                flush();
+            }
+        }
+
+        private synchronized void reject(long deliveryTag) {
+            flush();
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                channel.basicNack(deliveryTag, false, false);
+            } catch (IOException | RuntimeException e) {
+                log.warn(ACK_EXCEPTION, queue, deliveryTag, e);
+            }
+        }
+
+        private synchronized void flushExpired(long now) {
+            if (count > 0 && now - firstNanos >= timeoutNanos) {
+                flush();
+            }
+        }
+
+        private synchronized void flush() {
+            if (count == 0) {
+                return;
+            }
+            count = 0;
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                channel.basicAck(lastTag, true);
+            } catch (IOException | RuntimeException e) {
+                log.warn(ACK_EXCEPTION, queue, lastTag, e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,339 @@
+package ru.tpu.hostel.internal.config.amqp.autoscaling;
+
+import com.rabbitmq.client.Channel;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.aop.Advice;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.DirectMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerContainerFactoryRegistrar;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerDescriptor;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitAutoscalingProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Автомасштабирование потребителей слушателей со свойством {@code autoscaling}.
+ * <p>
+ * Раз в {@code interval} для каждого такого слушателя замеряется глубина очереди (пассивным объявлением очереди) и
+ * среднее время обработки из {@link RabbitListenerLatencyInterceptor}, после чего:
+ * <ul>
+ * <li>если сообщений больше {@code messagesPerConsumer} на потребителя, а время обработки не выше
+ * {@code targetLatency}, количество потребителей сразу поднимается до нужного по глубине очереди;</li>
+ * <li>если очередь {@code scaleDownIntervals} замеров подряд почти пуста, убирается один потребитель;</li>
+ * <li>prefetch подбирается так, чтобы сообщения в буфере потребителя ждали не дольше {@code targetLatency}.
+ * Prefetch задаётся каналу при создании потребителя, и у работающих потребителей он не меняется, поэтому новый
+ * prefetch применяется только вместе с добавлением потребителей и достаётся только им.</li>
+ * </ul>
+ * Быстрый рост и медленное уменьшение не дают количеству потребителей колебаться на границе порога.
+ * Решения пишутся в лог и в метрики {@code hostel.amqp.listener.autoscaler.decisions},
+ * {@code hostel.amqp.listener.consumers}, {@code hostel.amqp.listener.prefetch} (prefetch последних созданных
+ * потребителей) и {@code hostel.amqp.listener.queue.depth}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitConsumerAutoscaler implements SmartLifecycle {
+
+    private static final int DEFAULT_MESSAGES_PER_CONSUMER = 100;
+
+    private static final int DEFAULT_SCALE_DOWN_INTERVALS = 3;
+
+    private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+
+    private static final AttributeKey<String> QUEUE = AttributeKey.stringKey("messaging.destination.name");
+
+    private static final AttributeKey<String> DECISION = AttributeKey.stringKey("decision");
+
+    private static final String SCALED
+            = "[RABBIT] Автомасштабирование {}: потребители {} -> {}, prefetch {} -> {}, глубина {}, время {} мс";
+
+    private static final String SATURATED
+            = "[RABBIT] Автомасштабирование {}: очередь растёт ({}), но время обработки {} мс выше целевого, "
+            + "потребители не добавляются";
+
+    private static final String AUTOSCALING_EXCEPTION = "[RABBIT] Ошибка автомасштабирования очереди {}";
+
+    private final RabbitListenerLocator listenerLocator;
+
+    private final ApplicationContext applicationContext;
+
+    private final LongCounter decisions;
+
+    private final List<ScaledListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean running;
+
+    public RabbitConsumerAutoscaler(
+            RabbitListenerLocator listenerLocator,
+            ApplicationContext applicationContext,
+            OpenTelemetry openTelemetry
+    ) {
+        this.listenerLocator = listenerLocator;
+        this.applicationContext = applicationContext;
+
+        Meter meter = openTelemetry.getMeter("ru.tpu.hostel.internal.amqp");
+        decisions = meter.counterBuilder("hostel.amqp.listener.autoscaler.decisions")
+                .setDescription("Количество изменений потребителей и prefetch автомасштабированием")
+                .build();
+        meter.gaugeBuilder("hostel.amqp.listener.consumers")
+                .setDescription("Количество потребителей слушателя")
+                .ofLongs()
+                .buildWithCallback(measurement -> listeners.forEach(listener ->
+                        measurement.record(listener.consumers, listener.attributes)
+                ));
+        meter.gaugeBuilder("hostel.amqp.listener.prefetch")
+                .setDescription("Prefetch последних созданных потребителей слушателя")
+                .ofLongs()
+                .buildWithCallback(measurement -> listeners.forEach(listener ->
+                        measurement.record(listener.prefetch, listener.attributes)
+                ));
+        meter.gaugeBuilder("hostel.amqp.listener.queue.depth")
+                .setDescription("Глубина очереди слушателя на последнем замере")
+                .ofLongs()
+                .buildWithCallback(measurement -> listeners.forEach(listener -> {
+                    if (listener.depth >= 0) {
+                        measurement.record(listener.depth, listener.attributes);
+                    }
+                }));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        listeners.clear();
+
+        List<RabbitListenerDescriptor> scaled = listenerLocator.getAll()
+                .stream()
+                .filter(listener -> listener.listenerProperties().autoscaling() != null)
+                .toList();
+        if (scaled.isEmpty()) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rabbit-autoscaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scaled.forEach(descriptor -> {
+            ScaledListener listener = new ScaledListener(descriptor);
+            listeners.add(listener);
+            long intervalMillis = listener.autoscaling.interval() == null
+                    ? DEFAULT_INTERVAL.toMillis()
+                    : listener.autoscaling.interval().toMillis();
+            scheduler.scheduleWithFixedDelay(listener::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private final class ScaledListener {
+
+        private final RabbitListenerDescriptor descriptor;
+
+        private final RabbitAutoscalingProperties autoscaling;
+
+        private final Attributes attributes;
+
+        private List<AbstractMessageListenerContainer> containers;
+
+        private RabbitListenerLatencyInterceptor latencyInterceptor;
+
+        private volatile int consumers;
+
+        private volatile int prefetch;
+
+        private volatile long depth = -1;
+
+        private int idleIntervals;
+
+        private ScaledListener(RabbitListenerDescriptor descriptor) {
+            this.descriptor = descriptor;
+            this.autoscaling = descriptor.listenerProperties().autoscaling();
+            this.attributes = Attributes.of(QUEUE, descriptor.listenerProperties().queueName());
+            this.consumers = autoscaling.minConsumers();
+            this.prefetch = descriptor.listenerProperties().prefetch() == null
+                    ? AbstractMessageListenerContainer.DEFAULT_PREFETCH_COUNT
+                    : descriptor.listenerProperties().prefetch();
+        }
+
+        private void tick() {
+            try {
+                scale();
+            } catch (Exception e) {
+                log.warn(AUTOSCALING_EXCEPTION, descriptor.listenerProperties().queueName(), e);
+            }
+        }
+
+        private void scale() throws Exception {
+            List<AbstractMessageListenerContainer> running = getContainers()
+                    .stream()
+                    .filter(AbstractMessageListenerContainer::isRunning)
+                    .toList();
+            if (running.isEmpty()) {
+                return;
+            }
+            String queue = descriptor.listenerProperties().queueName();
+            depth = queueDepth(queue);
+            double latencyMillis = latencyInterceptor == null ? -1 : latencyInterceptor.drainAverageMillis();
+
+            int messagesPerConsumer = autoscaling.messagesPerConsumer() == null
+                    ? DEFAULT_MESSAGES_PER_CONSUMER
+                    : autoscaling.messagesPerConsumer();
+            int scaleDownIntervals = autoscaling.scaleDownIntervals() == null
+                    ? DEFAULT_SCALE_DOWN_INTERVALS
+                    : autoscaling.scaleDownIntervals();
+            boolean saturated = autoscaling.targetLatency() != null
+                    && latencyMillis > autoscaling.targetLatency().toMillis();
+
+            int targetConsumers = consumers;
+            if (depth > (long) messagesPerConsumer * consumers) {
+                idleIntervals = 0;
+                if (saturated) {
+                    log.warn(SATURATED, queue, depth, Math.round(latencyMillis));
+                    decisions.add(1, attributes.toBuilder().put(DECISION, "saturated").build());
+                } else {
+                    long needed = (depth + messagesPerConsumer - 1) / messagesPerConsumer;
+                    targetConsumers = (int) Math.min(Math.max(needed, consumers + 1L), autoscaling.maxConsumers());
+                }
+            } else if (depth < messagesPerConsumer && ++idleIntervals >= scaleDownIntervals) {
+                idleIntervals = 0;
+                targetConsumers = Math.max(consumers - 1, autoscaling.minConsumers());
+            }
+
+            if (targetConsumers == consumers) {
+                return;
+            }
+            // Работающие потребители prefetch не меняют, поэтому он меняется, только когда создаются новые
+            int targetPrefetch = targetConsumers > consumers ? targetPrefetch(latencyMillis) : prefetch;
+
+            for (AbstractMessageListenerContainer container : running) {
+                if (targetPrefetch != prefetch) {
+                    container.setPrefetchCount(targetPrefetch);
+                }
+                setConsumers(container, targetConsumers);
+            }
+            log.info(SCALED, queue, consumers, targetConsumers, prefetch, targetPrefetch, depth,
+                    Math.round(latencyMillis));
+            String decision = targetConsumers > consumers ? "scale_up" : "scale_down";
+            decisions.add(1, attributes.toBuilder().put(DECISION, decision).build());
+            if (targetPrefetch != prefetch) {
+                decisions.add(1, attributes.toBuilder().put(DECISION, "prefetch").build());
+            }
+            consumers = targetConsumers;
+            prefetch = targetPrefetch;
+        }
+
+        /**
+         * По закону Литтла потребитель со средним временем обработки {@code t} за {@code targetLatency} успевает
+         * обработать {@code targetLatency / t} сообщений - больше держать в буфере нет смысла.
+         */
+        private int targetPrefetch(double latencyMillis) {
+            if (autoscaling.minPrefetch() == null
+                    || autoscaling.maxPrefetch() == null
+                    || autoscaling.targetLatency() == null
+                    || latencyMillis < 0) {
+                return prefetch;
+            }
+            long target = latencyMillis == 0
+                    ? autoscaling.maxPrefetch()
+                    : Math.round(autoscaling.targetLatency().toMillis() / latencyMillis);
+            return (int) Math.min(Math.max(target, autoscaling.minPrefetch()), autoscaling.maxPrefetch());
+        }
+
+        /**
+         * У {@link SimpleMessageListenerContainer} максимум держится равным текущему количеству, чтобы встроенное
+         * масштабирование контейнера не спорило с автомасштабированием.
+         */
+        private void setConsumers(AbstractMessageListenerContainer container, int target) {
+            if (container instanceof SimpleMessageListenerContainer simpleContainer) {
+                if (target > consumers) {
+                    simpleContainer.setMaxConcurrentConsumers(target);
+                    simpleContainer.setConcurrentConsumers(target);
+                } else {
+                    simpleContainer.setConcurrentConsumers(target);
+                    simpleContainer.setMaxConcurrentConsumers(target);
+                }
+            } else if (container instanceof DirectMessageListenerContainer directContainer) {
+                directContainer.setConsumersPerQueue(target);
+            }
+        }
+
+        private long queueDepth(String queue) throws Exception {
+            try (Channel channel = descriptor.connectionFactory().createConnection().getDelegate().createChannel()) {
+                return channel.queueDeclarePassive(queue).getMessageCount();
+            }
+        }
+
+        /**
+         * Контейнеры {@code @RabbitListener} регистрируются только после создания всех бинов, поэтому ищутся при
+         * первом замере.
+         */
+        private List<AbstractMessageListenerContainer> getContainers() {
+            if (containers == null) {
+                String queue = descriptor.listenerProperties().queueName();
+                containers = applicationContext.getBean(RabbitListenerEndpointRegistry.class)
+                        .getListenerContainers()
+                        .stream()
+                        .filter(AbstractMessageListenerContainer.class::isInstance)
+                        .map(AbstractMessageListenerContainer.class::cast)
+                        .filter(container -> List.of(container.getQueueNames()).contains(queue))
+                        .toList();
+
+                AbstractRabbitListenerContainerFactory<?> factory = applicationContext.getBean(
+                        RabbitListenerContainerFactoryRegistrar.listenerBeanName(
+                                descriptor.microservice(),
+                                descriptor.propertiesName(),
+                                descriptor.listenerKey()
+                        ),
+                        AbstractRabbitListenerContainerFactory.class
+                );
+                if (factory.getAdviceChain() != null) {
+                    for (Advice advice : factory.getAdviceChain()) {
+                        if (advice instanceof RabbitListenerLatencyInterceptor interceptor) {
+                            latencyInterceptor = interceptor;
+                        }
+                    }
+                }
+            }
+            return containers;
+        }
+
+    }
+
+}
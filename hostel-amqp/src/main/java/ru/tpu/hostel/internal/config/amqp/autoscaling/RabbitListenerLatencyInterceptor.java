@@ -0,0 +1,44 @@
+package ru.tpu.hostel.internal.config.amqp.autoscaling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Интерцептор, который копит время обработки сообщений слушателем для {@link RabbitConsumerAutoscaler}. Ставится
+ * первым в цепочку советов фабрики слушателя с автомасштабированием.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class RabbitListenerLatencyInterceptor implements MethodInterceptor {
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAdder invocations = new LongAdder();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long startNanos = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            totalNanos.add(System.nanoTime() - startNanos);
+            invocations.increment();
+        }
+    }
+
+    /**
+     * Возвращает среднее время обработки с прошлого вызова и сбрасывает накопленные значения.
+     *
+     * @return среднее время обработки, мс, или {@code -1}, если сообщений не было.
+     */
+    public double drainAverageMillis() {
+        long count = invocations.sumThenReset();
+        long nanos = totalNanos.sumThenReset();
+        return count == 0 ? -1 : nanos / (double) count / 1_000_000;
+    }
+
+}
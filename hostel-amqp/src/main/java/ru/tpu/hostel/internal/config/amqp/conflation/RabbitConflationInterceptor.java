@@ -0,0 +1,357 @@
+package ru.tpu.hostel.internal.config.amqp.conflation;
+
+import com.rabbitmq.client.Channel;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import ru.tpu.hostel.internal.config.amqp.keyed.MessageKeyReader;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitConflationProperties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Интерцептор схлопывания сообщений по ключу. Ставится первым в цепочку советов фабрики слушателя с ручным
+ * подтверждением.
+ * <p>
+ * Потребитель только определяет ключ сообщения и кладёт остаток цепочки советов в ограниченную таблицу ожидающих
+ * ключей. Если по ключу уже ждёт сообщение, оно заменяется новым и сразу подтверждается без обработки, а место
+ * ключа в очереди обработки сохраняется, чтобы часто обновляемый ключ не откладывался бесконечно. Потоки обработки
+ * забирают ключи в порядке поступления, пропуская ключи, которые сейчас обрабатываются, подтверждают сообщение после
+ * обработки и отклоняют без возврата в очередь при ошибке. Сообщения без ключа не схлопываются.
+ * <p>
+ * Неподтверждённые сообщения ограничены prefetch, поэтому схлопываются обновления в пределах prefetch: пока
+ * обработчик занят, подтверждённые устаревшие сообщения освобождают место, и брокер досылает новые. Доля
+ * схлопнутых сообщений считается метриками {@code hostel.amqp.listener.conflation.received} и
+ * {@code hostel.amqp.listener.conflation.superseded}, количество ожидающих ключей -
+ * {@code hostel.amqp.listener.conflation.pending}.
+ * <p>
+ * Если канал сообщения закрыт (контейнер остановлен или перезапущен), поток обработки пропускает его: брокер уже
+ * вернул сообщение в очередь. При закрытии контекста {@link #destroy()} возвращает в очередь ожидающие сообщения,
+ * ждёт завершения текущих и останавливает потоки обработки.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitConflationInterceptor implements MethodInterceptor, DisposableBean {
+
+    private static final int DEFAULT_MAX_KEYS = 1024;
+
+    private static final String PROCESSING_EXCEPTION = "[RABBIT] Сообщение отклонено при схлопывании очереди {}: "
+            + "messageId={}";
+
+    private static final String ACK_EXCEPTION = "[RABBIT] Не удалось подтвердить сообщение очереди {}: deliveryTag={}";
+
+    private static final String CHANNEL_CLOSED
+            = "[RABBIT] Канал закрыт, сообщение пропущено при схлопывании очереди {}: messageId={}";
+
+    private static final String WORKERS_STOPPED
+            = "[RABBIT] Потоки схлопывания очереди {} остановлены, возвращено в очередь: {}";
+
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private final String queue;
+
+    private final MessageKeyReader keyReader;
+
+    private final int maxKeys;
+
+    private final Thread[] workerThreads;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition ready = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Ожидающие обработки сообщения по ключу в порядке поступления ключей.
+     */
+    private final Map<Object, PendingTask> pending = new LinkedHashMap<>();
+
+    private final Set<Object> inProgress = new HashSet<>();
+
+    private final Attributes attributes;
+
+    private final LongCounter received;
+
+    private final LongCounter superseded;
+
+    private volatile boolean started;
+
+    private volatile boolean stopped;
+
+    /**
+     * @param properties    свойства схлопывания.
+     * @param queue         очередь слушателя, для логов, метрик и имён потоков.
+     * @param openTelemetry OpenTelemetry для метрик.
+     */
+    public RabbitConflationInterceptor(
+            RabbitConflationProperties properties,
+            String queue,
+            OpenTelemetry openTelemetry
+    ) {
+        this.queue = queue;
+        this.keyReader = new MessageKeyReader(properties.header(), properties.payloadField());
+        this.maxKeys = properties.maxKeys() == null ? DEFAULT_MAX_KEYS : properties.maxKeys();
+        this.workerThreads = new Thread[properties.workers() == null ? 1 : properties.workers()];
+        this.attributes = Attributes.of(AttributeKey.stringKey("messaging.destination.name"), queue);
+
+        Meter meter = openTelemetry.getMeter("ru.tpu.hostel.internal.amqp");
+        received = meter.counterBuilder("hostel.amqp.listener.conflation.received")
+                .setDescription("Количество сообщений, полученных слушателем со схлопыванием")
+                .build();
+        superseded = meter.counterBuilder("hostel.amqp.listener.conflation.superseded")
+                .setDescription("Количество сообщений, заменённых более новыми до обработки")
+                .build();
+        meter.gaugeBuilder("hostel.amqp.listener.conflation.pending")
+                .ofLongs()
+                .setDescription("Количество ключей, ожидающих обработки")
+                .buildWithCallback(measurement -> measurement.record(pendingSize(), attributes));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2 || !(arguments[1] instanceof Message message)) {
+            return invocation.proceed();
+        }
+        if (stopped) {
+            requeue(new PendingTask(null, invocation, (Channel) arguments[0], message));
+            return null;
+        }
+        startWorkers();
+        received.add(1, attributes);
+
+        String messageKey = keyReader.read(message);
+        // У сообщения без ключа собственный ключ, который ни с чем не совпадёт
+        Object key = messageKey == null ? new Object() : messageKey;
+        // Остаток цепочки выполняется в другом потоке, поэтому нужна копия вызова
+        MethodInvocation taskInvocation = invocation instanceof ProxyMethodInvocation proxyMethodInvocation
+                ? proxyMethodInvocation.invocableClone()
+                : invocation;
+        PendingTask replaced = offer(key, new PendingTask(key, taskInvocation, (Channel) arguments[0], message));
+        if (replaced != null) {
+            superseded.add(1, attributes);
+            acknowledge(replaced, true);
+        }
+        return null;
+    }
+
+    /**
+     * Если интерцептор остановлен, пока потребитель ждал места, сообщение возвращается в очередь.
+     *
+     * @return заменённое сообщение этого ключа или {@code null}, если ключ не ждал обработки.
+     */
+    private PendingTask offer(Object key, PendingTask task) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            PendingTask previous = pending.get(key);
+            if (previous != null && !stopped) {
+                pending.put(key, task);
+                return previous;
+            }
+            while (pending.size() >= maxKeys && !stopped) {
+                notFull.await();
+            }
+            if (stopped) {
+                requeue(task);
+                return null;
+            }
+            pending.put(key, task);
+            ready.signal();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return следующее сообщение или {@code null}, если за время ожидания его не было или интерцептор остановлен.
+     */
+    private PendingTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!stopped) {
+                Iterator<PendingTask> iterator = pending.values().iterator();
+                while (iterator.hasNext()) {
+                    PendingTask task = iterator.next();
+                    if (!inProgress.contains(task.key())) {
+                        iterator.remove();
+                        inProgress.add(task.key());
+                        notFull.signal();
+                        return task;
+                    }
+                }
+                if (!ready.await(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return null;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void complete(PendingTask task) {
+        lock.lock();
+        try {
+            inProgress.remove(task.key());
+            // Новое сообщение этого ключа могло прийти во время обработки и ждать освобождения ключа
+            if (pending.containsKey(task.key())) {
+                ready.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int pendingSize() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startWorkers() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            ThreadFactory threadFactory = Thread.ofVirtual().name("rabbit-conflation-" + queue + "-", 0).factory();
+            for (int i = 0; i < workerThreads.length; i++) {
+                workerThreads[i] = threadFactory.newThread(this::runWorker);
+                workerThreads[i].start();
+            }
+            started = true;
+        }
+    }
+
+    /**
+     * Возвращает в очередь ожидающие сообщения и останавливает потоки обработки. Текущим сообщениям даётся время
+     * завершиться.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        if (!started) {
+            return;
+        }
+        List<PendingTask> queued;
+        lock.lock();
+        try {
+            queued = new ArrayList<>(pending.values());
+            pending.clear();
+            ready.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        queued.forEach(this::requeue);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        for (Thread workerThread : workerThreads) {
+            workerThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            workerThread.interrupt();
+        }
+        log.info(WORKERS_STOPPED, queue, queued.size());
+    }
+
+    private void runWorker() {
+        while (!stopped) {
+            PendingTask task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+            if (task.channel() != null && !task.channel().isOpen()) {
+                log.debug(CHANNEL_CLOSED, queue, task.message().getMessageProperties().getMessageId());
+                complete(task);
+                continue;
+            }
+
+            boolean processed;
+            try {
+                task.invocation().proceed();
+                processed = true;
+            } catch (Throwable e) {
+                log.warn(PROCESSING_EXCEPTION, queue, task.message().getMessageProperties().getMessageId());
+                processed = false;
+            } finally {
+                complete(task);
+            }
+            acknowledge(task, processed);
+        }
+    }
+
+    /**
+     * В loopback-режиме канала нет и подтверждать нечего.
+     */
+    private void acknowledge(PendingTask task, boolean processed) {
+        if (task.channel() == null) {
+            return;
+        }
+        long deliveryTag = task.message().getMessageProperties().getDeliveryTag();
+        try {
+            if (processed) {
+                task.channel().basicAck(deliveryTag, false);
+            } else {
+                task.channel().basicNack(deliveryTag, false, false);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Канал закрыт - брокер сам вернёт неподтверждённое сообщение в очередь
+            log.warn(ACK_EXCEPTION, queue, deliveryTag, e);
+        }
+    }
+
+    /**
+     * Возвращает сообщение в очередь, если канал ещё открыт. Если закрыт - брокер уже вернул сообщение сам.
+     */
+    private void requeue(PendingTask task) {
+        if (task.channel() == null || !task.channel().isOpen()) {
+            return;
+        }
+        long deliveryTag = task.message().getMessageProperties().getDeliveryTag();
+        try {
+            task.channel().basicNack(deliveryTag, false, true);
+        } catch (IOException | RuntimeException e) {
+            log.warn(ACK_EXCEPTION, queue, deliveryTag, e);
+        }
+    }
+
+    private record PendingTask(Object key, MethodInvocation invocation, Channel channel, Message message) {
+    }
+
+}
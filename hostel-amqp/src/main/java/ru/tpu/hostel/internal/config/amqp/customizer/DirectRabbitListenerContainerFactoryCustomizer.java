@@ -0,0 +1,12 @@
+package ru.tpu.hostel.internal.config.amqp.customizer;
+
+import org.springframework.amqp.rabbit.config.DirectRabbitListenerContainerFactory;
+
+/**
+ * Функциональный интерфейс для кастомизации {@link DirectRabbitListenerContainerFactory}. Используется для
+ * слушателей с {@code container-type: DIRECT}.
+ */
+@FunctionalInterface
+public interface DirectRabbitListenerContainerFactoryCustomizer
+        extends Customizer<DirectRabbitListenerContainerFactory> {
+}
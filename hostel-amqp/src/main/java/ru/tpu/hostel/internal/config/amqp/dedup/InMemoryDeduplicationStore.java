@@ -0,0 +1,121 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Хранилище обработанных {@code messageId} в памяти.
+ * <p>
+ * Перед точной картой стоит фильтр Блума из двух поколений: новое поколение заводится раз в окно хранения, поэтому
+ * каждый {@code messageId} младше окна есть в одном из двух поколений. Большинство сообщений не повторы, и для них
+ * ответ «не обрабатывалось» даёт фильтр без обращения к карте. Карта хранит {@code messageId} в порядке добавления и
+ * при переполнении или истечении окна забывает самые старые.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class InMemoryDeduplicationStore implements MessageDeduplicationStore {
+
+    private static final int HASH_FUNCTIONS = 7;
+
+    private static final int BITS_PER_ENTRY = 10;
+
+    private final long windowMillis;
+
+    private final int maxEntries;
+
+    private final int bloomBits;
+
+    private final Map<String, Long> entries = new LinkedHashMap<>();
+
+    private long[] currentGeneration;
+
+    private long[] previousGeneration;
+
+    private long generationStart = System.currentTimeMillis();
+
+    /**
+     * @param window     время хранения {@code messageId}.
+     * @param maxEntries максимальное количество хранимых {@code messageId}.
+     */
+    public InMemoryDeduplicationStore(@NotNull Duration window, int maxEntries) {
+        this.windowMillis = window.toMillis();
+        this.maxEntries = maxEntries;
+        this.bloomBits = (int) Math.min((long) maxEntries * BITS_PER_ENTRY, Integer.MAX_VALUE - 63);
+        this.currentGeneration = new long[(bloomBits + 63) / 64];
+        this.previousGeneration = new long[currentGeneration.length];
+    }
+
+    @Override
+    public synchronized boolean contains(@NotNull String messageId) {
+        long now = System.currentTimeMillis();
+        rotate(now);
+        long hash = MessageIdHash.hash(messageId);
+        if (!mightContain(currentGeneration, hash) && !mightContain(previousGeneration, hash)) {
+            return false;
+        }
+        Long addedAt = entries.get(messageId);
+        return addedAt != null && now - addedAt < windowMillis;
+    }
+
+    @Override
+    public synchronized void add(@NotNull String messageId) {
+        long now = System.currentTimeMillis();
+        rotate(now);
+        put(currentGeneration, MessageIdHash.hash(messageId));
+        entries.remove(messageId);
+        entries.put(messageId, now);
+
+        Iterator<Long> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            long addedAt = eldest.next();
+            if (entries.size() <= maxEntries && now - addedAt < windowMillis) {
+                break;
+            }
+            eldest.remove();
+        }
+    }
+
+    private void rotate(long now) {
+        long elapsed = now - generationStart;
+        if (elapsed < windowMillis) {
+            return;
+        }
+        long[] cleared = previousGeneration;
+        Arrays.fill(cleared, 0);
+        if (elapsed >= 2 * windowMillis) {
+            Arrays.fill(currentGeneration, 0);
+        }
+        previousGeneration = currentGeneration;
+        currentGeneration = cleared;
+        generationStart = now;
+    }
+
+    private boolean mightContain(long[] generation, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            if ((generation[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(long[] generation, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            generation[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+}
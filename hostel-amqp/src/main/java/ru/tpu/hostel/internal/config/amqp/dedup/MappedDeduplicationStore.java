@@ -0,0 +1,147 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Хранилище обработанных {@code messageId} в файле, отображённом в память. Записи пишутся в страничный кэш ОС,
+ * поэтому переживают перезапуск сервиса (но не падение самой машины).
+ * <p>
+ * Файл - хэш-таблица с открытой адресацией из {@code 2 * maxEntries} (с округлением до степени двойки) ячеек по 16
+ * байт: 64-битный хэш {@code messageId} и время добавления. Поиск идёт не дальше {@value #MAX_PROBES} ячеек от
+ * начальной. Ячейка с истёкшим временем переиспользуется, а если все просмотренные ячейки живые, перезаписывается
+ * самая старая из них. Совпадение хэшей разных {@code messageId} возможно, но при 64 битах пренебрежимо редко.
+ * <p>
+ * Если размер таблицы в файле не совпадает с настройками, файл создаётся заново.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class MappedDeduplicationStore implements MessageDeduplicationStore {
+
+    private static final int MAGIC = 0x48444450;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int SLOT_SIZE = 16;
+
+    private static final int MAX_PROBES = 32;
+
+    private final long windowMillis;
+
+    private final int capacity;
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * @param file       файл хранилища.
+     * @param window     время хранения {@code messageId}.
+     * @param maxEntries максимальное количество хранимых {@code messageId}.
+     */
+    public MappedDeduplicationStore(@NotNull Path file, @NotNull Duration window, int maxEntries) {
+        this.windowMillis = window.toMillis();
+        this.capacity = Integer.highestOneBit(Math.max(maxEntries, 1) * 2 - 1) << 1;
+        long size = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            )) {
+                boolean compatible = channel.size() == size;
+                if (!compatible) {
+                    channel.truncate(0);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                if (!compatible || buffer.getInt(0) != MAGIC || buffer.getInt(4) != capacity) {
+                    for (long offset = 0; offset < size; offset += Long.BYTES) {
+                        buffer.putLong((int) offset, 0);
+                    }
+                    buffer.putInt(0, MAGIC);
+                    buffer.putInt(4, capacity);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть хранилище дедупликации " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(@NotNull String messageId) {
+        long hash = slotHash(messageId);
+        int index = (int) hash & (capacity - 1);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = offset(index + probe);
+            long storedHash = buffer.getLong(offset);
+            if (storedHash == 0) {
+                return false;
+            }
+            if (storedHash == hash) {
+                return System.currentTimeMillis() - buffer.getLong(offset + Long.BYTES) < windowMillis;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void add(@NotNull String messageId) {
+        long now = System.currentTimeMillis();
+        long hash = slotHash(messageId);
+        int index = (int) hash & (capacity - 1);
+
+        int target = -1;
+        int oldest = -1;
+        long oldestAddedAt = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = offset(index + probe);
+            long storedHash = buffer.getLong(offset);
+            long addedAt = buffer.getLong(offset + Long.BYTES);
+            if (storedHash == hash) {
+                target = offset;
+                break;
+            }
+            if (storedHash == 0 || now - addedAt >= windowMillis) {
+                if (target < 0) {
+                    target = offset;
+                }
+                if (storedHash == 0) {
+                    break;
+                }
+            } else if (addedAt < oldestAddedAt) {
+                oldestAddedAt = addedAt;
+                oldest = offset;
+            }
+        }
+
+        int offset = target >= 0 ? target : oldest;
+        buffer.putLong(offset, hash);
+        buffer.putLong(offset + Long.BYTES, now);
+    }
+
+    private int offset(int index) {
+        return HEADER_SIZE + (index & (capacity - 1)) * SLOT_SIZE;
+    }
+
+    /**
+     * Ноль означает пустую ячейку, поэтому нулевой хэш заменяется единицей.
+     */
+    private static long slotHash(String messageId) {
+        long hash = MessageIdHash.hash(messageId);
+        return hash == 0 ? 1 : hash;
+    }
+
+}
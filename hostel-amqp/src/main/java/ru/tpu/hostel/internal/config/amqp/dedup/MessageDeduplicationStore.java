@@ -0,0 +1,30 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Хранилище обработанных {@code messageId} с ограниченным размером и временем жизни записи.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitDeduplicationInterceptor
+ * @since 2.0.0
+ */
+public interface MessageDeduplicationStore {
+
+    /**
+     * Проверяет, обрабатывалось ли сообщение с таким {@code messageId} в пределах окна хранения.
+     *
+     * @param messageId идентификатор сообщения.
+     * @return {@code true}, если сообщение уже обработано.
+     */
+    boolean contains(@NotNull String messageId);
+
+    /**
+     * Запоминает успешно обработанное сообщение.
+     *
+     * @param messageId идентификатор сообщения.
+     */
+    void add(@NotNull String messageId);
+
+}
@@ -0,0 +1,30 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 64-битный хэш {@code messageId} для хранилищ дедупликации: FNV-1a по символам строки с финальным перемешиванием
+ * битов, чтобы и младшая, и старшая половины годились как независимые хэши.
+ */
+@UtilityClass
+class MessageIdHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    long hash(String messageId) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < messageId.length(); i++) {
+            hash ^= messageId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
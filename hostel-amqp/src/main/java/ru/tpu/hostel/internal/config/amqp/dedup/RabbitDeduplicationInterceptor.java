@@ -0,0 +1,118 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Интерцептор, который пропускает уже обработанные сообщения по {@code messageId}. Стоит в цепочке советов до
+ * конвертации тела, поэтому повтор подтверждается без десериализации и вызова слушателя.
+ * <p>
+ * {@code messageId} запоминается только после успешной обработки: сообщение, обработка которого упала (в том числе
+ * вместе с сервисом), при повторной доставке обрабатывается заново. Цена этого - два одновременно доставленных
+ * дубликата могут оба дойти до слушателя. Сообщения без {@code messageId} обрабатываются всегда. У пакетного
+ * слушателя повторы убираются из пачки.
+ * <p>
+ * Доля повторов считается метриками {@code hostel.amqp.listener.dedup.lookups} и
+ * {@code hostel.amqp.listener.dedup.hits}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitDeduplicationInterceptor implements MethodInterceptor {
+
+    private static final String DUPLICATE_SKIPPED = "[RABBIT] Повтор сообщения пропущен: queue={}, messageId={}";
+
+    private final MessageDeduplicationStore store;
+
+    private final String queue;
+
+    private final Attributes attributes;
+
+    private final LongCounter lookups;
+
+    private final LongCounter hits;
+
+    /**
+     * @param store         хранилище обработанных {@code messageId}.
+     * @param queue         очередь слушателя, для логов и метрик.
+     * @param openTelemetry OpenTelemetry для метрик.
+     */
+    public RabbitDeduplicationInterceptor(MessageDeduplicationStore store, String queue, OpenTelemetry openTelemetry) {
+        this.store = store;
+        this.queue = queue;
+        this.attributes = Attributes.of(AttributeKey.stringKey("messaging.destination.name"), queue);
+
+        Meter meter = openTelemetry.getMeter("ru.tpu.hostel.internal.amqp");
+        lookups = meter.counterBuilder("hostel.amqp.listener.dedup.lookups")
+                .setDescription("Количество проверок сообщений на повтор")
+                .build();
+        hits = meter.counterBuilder("hostel.amqp.listener.dedup.hits")
+                .setDescription("Количество пропущенных повторов")
+                .build();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2) {
+            return invocation.proceed();
+        }
+        if (arguments[1] instanceof Message message) {
+            String messageId = message.getMessageProperties().getMessageId();
+            if (isDuplicate(messageId)) {
+                return null;
+            }
+            Object result = invocation.proceed();
+            if (messageId != null) {
+                store.add(messageId);
+            }
+            return result;
+        }
+        if (arguments[1] instanceof List<?> batch) {
+            List<Object> fresh = new ArrayList<>(batch.size());
+            for (Object item : batch) {
+                if (!(item instanceof Message message) || !isDuplicate(message.getMessageProperties().getMessageId())) {
+                    fresh.add(item);
+                }
+            }
+            if (fresh.isEmpty()) {
+                return null;
+            }
+            arguments[1] = fresh;
+            Object result = invocation.proceed();
+            for (Object item : fresh) {
+                if (item instanceof Message message && message.getMessageProperties().getMessageId() != null) {
+                    store.add(message.getMessageProperties().getMessageId());
+                }
+            }
+            return result;
+        }
+        return invocation.proceed();
+    }
+
+    private boolean isDuplicate(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        lookups.add(1, attributes);
+        if (!store.contains(messageId)) {
+            return false;
+        }
+        hits.add(1, attributes);
+        log.info(DUPLICATE_SKIPPED, queue, messageId);
+        return true;
+    }
+
+}
@@ -0,0 +1,63 @@
+package ru.tpu.hostel.internal.config.amqp.filter;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import ru.tpu.hostel.internal.external.amqp.LazyPayload;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Обёртка конвертера фабрики слушателя, которая откладывает разбор тела для параметров типа {@link LazyPayload}.
+ * Тип параметра слушателя Spring передаёт конвертеру в {@link MessageProperties#getInferredArgumentType()}: если это
+ * {@code LazyPayload<T>}, вместо разбора возвращается обёртка, которая при первом обращении вызовет исходный
+ * конвертер с типом {@code T}. Остальные сообщения и ответы конвертируются исходным конвертером как раньше.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class LazyPayloadMessageConverter implements MessageConverter {
+
+    private final MessageConverter delegate;
+
+    public LazyPayloadMessageConverter(MessageConverter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @NotNull
+    public Message toMessage(@NotNull Object object, @NotNull MessageProperties messageProperties) {
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    @NotNull
+    public Message toMessage(Object object, MessageProperties messageProperties, Type genericType) {
+        return delegate.toMessage(object, messageProperties, genericType);
+    }
+
+    @Override
+    @NotNull
+    public Object fromMessage(@NotNull Message message) throws MessageConversionException {
+        Type inferredType = message.getMessageProperties().getInferredArgumentType();
+        Type payloadType;
+        if (inferredType instanceof ParameterizedType parameterizedType
+                && parameterizedType.getRawType() == LazyPayload.class) {
+            payloadType = parameterizedType.getActualTypeArguments()[0];
+        } else if (inferredType == LazyPayload.class) {
+            payloadType = Object.class;
+        } else {
+            return delegate.fromMessage(message);
+        }
+
+        return new LazyPayload<>(message, lazyMessage -> {
+            lazyMessage.getMessageProperties().setInferredArgumentType(payloadType);
+            return delegate.fromMessage(lazyMessage);
+        });
+    }
+
+}
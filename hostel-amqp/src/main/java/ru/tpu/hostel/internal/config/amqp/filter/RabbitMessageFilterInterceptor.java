@@ -0,0 +1,131 @@
+package ru.tpu.hostel.internal.config.amqp.filter;
+
+import com.rabbitmq.client.Channel;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitMessageFilterProperties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Интерцептор, который отбрасывает сообщения по заголовкам до любой другой обработки: до трассировки, логирования
+ * и конвертации тела. Стоит первым в цепочке советов, поэтому на отброшенное сообщение тратится только проверка
+ * заголовков. У пакетного слушателя отброшенные сообщения убираются из пачки.
+ * <p>
+ * При автоматическом подтверждении отброшенное сообщение подтверждает контейнер, при ручном - сам интерцептор, в
+ * том числе каждое отброшенное сообщение пачки.
+ * Количество отброшенных сообщений считается метрикой {@code hostel.amqp.listener.filter.dropped}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitMessageFilterInterceptor implements MethodInterceptor {
+
+    private static final String ACK_EXCEPTION = "[RABBIT] Не удалось подтвердить отброшенное сообщение очереди {}: "
+            + "deliveryTag={}";
+
+    private final Map<String, Set<String>> allowedHeaders = new HashMap<>();
+
+    private final String queue;
+
+    private final boolean manualAck;
+
+    private final Attributes attributes;
+
+    private final LongCounter dropped;
+
+    /**
+     * @param properties    свойства фильтра.
+     * @param queue         очередь слушателя, для логов и метрик.
+     * @param manualAck     подтверждает ли слушатель сообщения вручную.
+     * @param openTelemetry OpenTelemetry для метрик.
+     */
+    public RabbitMessageFilterInterceptor(
+            RabbitMessageFilterProperties properties,
+            String queue,
+            boolean manualAck,
+            OpenTelemetry openTelemetry
+    ) {
+        properties.headers().forEach((header, values) -> allowedHeaders.put(header, Set.copyOf(values)));
+        this.queue = queue;
+        this.manualAck = manualAck;
+        this.attributes = Attributes.of(AttributeKey.stringKey("messaging.destination.name"), queue);
+        this.dropped = openTelemetry.getMeter("ru.tpu.hostel.internal.amqp")
+                .counterBuilder("hostel.amqp.listener.filter.dropped")
+                .setDescription("Количество сообщений, отброшенных фильтром по заголовкам")
+                .build();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2) {
+            return invocation.proceed();
+        }
+        if (arguments[1] instanceof Message message) {
+            if (accepts(message.getMessageProperties())) {
+                return invocation.proceed();
+            }
+            drop((Channel) arguments[0], message);
+            return null;
+        }
+        if (arguments[1] instanceof List<?> batch) {
+            List<Object> accepted = new ArrayList<>(batch.size());
+            for (Object item : batch) {
+                if (!(item instanceof Message message) || accepts(message.getMessageProperties())) {
+                    accepted.add(item);
+                } else {
+                    // Отброшенное сообщение не дойдёт до слушателя, поэтому при ручном подтверждении его никто
+                    // больше не подтвердит
+                    drop((Channel) arguments[0], message);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return null;
+            }
+            arguments[1] = accepted;
+        }
+        return invocation.proceed();
+    }
+
+    private boolean accepts(MessageProperties messageProperties) {
+        for (Map.Entry<String, Set<String>> allowed : allowedHeaders.entrySet()) {
+            Object value = messageProperties.getHeader(allowed.getKey());
+            if (value == null || !allowed.getValue().contains(value.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * В loopback-режиме канала нет и подтверждать нечего.
+     */
+    private void drop(Channel channel, Message message) {
+        dropped.add(1, attributes);
+        if (!manualAck || channel == null) {
+            return;
+        }
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicAck(deliveryTag, false);
+        } catch (IOException | RuntimeException e) {
+            log.warn(ACK_EXCEPTION, queue, deliveryTag, e);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package ru.tpu.hostel.internal.config.amqp.keyed;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.amqp.core.Message;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+
+import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ID_HEADER;
+
+/**
+ * Чтение ключа сообщения из заголовка или поля верхнего уровня JSON тела. Если не задано ни то, ни другое, ключ
+ * берётся из заголовка {@code X-User-Id}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public final class MessageKeyReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String header;
+
+    private final String payloadField;
+
+    /**
+     * @param header       заголовок с ключом.
+     * @param payloadField поле JSON тела с ключом, используется, если заголовок не задан.
+     */
+    public MessageKeyReader(@Nullable String header, @Nullable String payloadField) {
+        this.payloadField = payloadField;
+        this.header = StringUtils.hasText(header) || StringUtils.hasText(payloadField) ? header : USER_ID_HEADER;
+    }
+
+    /**
+     * @param message сообщение.
+     * @return ключ или {@code null}, если его нет в сообщении.
+     */
+    @Nullable
+    public String read(Message message) {
+        if (StringUtils.hasText(header)) {
+            Object value = message.getMessageProperties().getHeader(header);
+            return value == null ? null : value.toString();
+        }
+        return readPayloadField(message.getBody());
+    }
+
+    /**
+     * Поле ищется потоковым разбором без построения дерева: разбор останавливается на найденном поле, вложенные
+     * объекты и массивы пропускаются целиком.
+     */
+    private String readPayloadField(byte[] body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (payloadField.equals(fieldName)) {
+                    return value.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package ru.tpu.hostel.internal.config.amqp.keyed;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitKeyedDispatchProperties;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Интерцептор параллельной обработки с сохранением порядка по ключу. Ставится первым в цепочку советов фабрики
+ * слушателя с одним потребителем и ручным подтверждением.
+ * <p>
+ * Потребитель только определяет ключ сообщения (из заголовка или поля JSON тела) и кладёт остаток цепочки советов
+ * в полосу {@code hash(key) % lanes}. Каждая полоса - виртуальный поток со своей ограниченной очередью, поэтому
+ * сообщения одного ключа обрабатываются по порядку, а разных ключей - параллельно. Полоса подтверждает сообщение
+ * после обработки и отклоняет без возврата в очередь при ошибке, так что неподтверждённые сообщения ограничены
+ * prefetch, а заполненная полоса останавливает потребителя. Сообщения без ключа раздаются по полосам по кругу.
+ * <p>
+ * Если канал задачи закрыт (контейнер остановлен или перезапущен), полоса пропускает её без обработки: брокер уже
+ * вернул сообщение в очередь. При закрытии контекста {@link #destroy()} возвращает в очередь ещё не начатые задачи,
+ * ждёт завершения текущих и останавливает потоки полос.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitKeyedDispatchInterceptor implements MethodInterceptor, DisposableBean {
+
+    private static final int DEFAULT_LANE_CAPACITY = 16;
+
+    private static final String LANE_EXCEPTION = "[RABBIT] Сообщение отклонено полосой {} очереди {}: messageId={}";
+
+    private static final String ACK_EXCEPTION = "[RABBIT] Не удалось подтвердить сообщение в полосе {}: deliveryTag={}";
+
+    private static final String CHANNEL_CLOSED
+            = "[RABBIT] Канал закрыт, сообщение пропущено полосой {} очереди {}: messageId={}";
+
+    private static final String LANES_STOPPED = "[RABBIT] Полосы очереди {} остановлены, возвращено в очередь: {}";
+
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private final String queue;
+
+    private final MessageKeyReader keyReader;
+
+    private final int laneCapacity;
+
+    private final BlockingQueue<LaneTask>[] lanes;
+
+    private final Thread[] laneThreads;
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private volatile boolean started;
+
+    private volatile boolean stopped;
+
+    /**
+     * @param properties свойства полос.
+     * @param queue      очередь слушателя, для логов и имён потоков.
+     */
+    @SuppressWarnings("unchecked")
+    public RabbitKeyedDispatchInterceptor(RabbitKeyedDispatchProperties properties, String queue) {
+        this.queue = queue;
+        this.keyReader = new MessageKeyReader(properties.header(), properties.payloadField());
+        this.laneCapacity = properties.laneCapacity() == null ? DEFAULT_LANE_CAPACITY : properties.laneCapacity();
+        this.lanes = new BlockingQueue[properties.lanes()];
+        this.laneThreads = new Thread[properties.lanes()];
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2 || !(arguments[1] instanceof Message message)) {
+            return invocation.proceed();
+        }
+        if (stopped) {
+            requeue(-1, (Channel) arguments[0], message);
+            return null;
+        }
+        startLanes();
+
+        String key = keyReader.read(message);
+        int lane = key == null
+                ? Math.floorMod(roundRobin.getAndIncrement(), lanes.length)
+                : Math.floorMod(key.hashCode(), lanes.length);
+        // Остаток цепочки выполняется в другом потоке, поэтому нужна копия вызова
+        MethodInvocation laneInvocation = invocation instanceof ProxyMethodInvocation proxyMethodInvocation
+                ? proxyMethodInvocation.invocableClone()
+                : invocation;
+        lanes[lane].put(new LaneTask(laneInvocation, (Channel) arguments[0], message));
+        return null;
+    }
+
+    private void startLanes() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            ThreadFactory threadFactory = Thread.ofVirtual().name("rabbit-lane-" + queue + "-", 0).factory();
+            for (int i = 0; i < lanes.length; i++) {
+                BlockingQueue<LaneTask> tasks = new ArrayBlockingQueue<>(laneCapacity);
+                lanes[i] = tasks;
+                int lane = i;
+                laneThreads[i] = threadFactory.newThread(() -> runLane(lane, tasks));
+                laneThreads[i].start();
+            }
+            started = true;
+        }
+    }
+
+    /**
+     * Возвращает в очередь ещё не начатые задачи и останавливает полосы. Текущим задачам даётся время завершиться.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        if (!started) {
+            return;
+        }
+        int requeued = 0;
+        for (int lane = 0; lane < lanes.length; lane++) {
+            LaneTask task;
+            while ((task = lanes[lane].poll()) != null) {
+                requeue(lane, task.channel(), task.message());
+                requeued++;
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT_MILLIS);
+        for (Thread laneThread : laneThreads) {
+            laneThread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            laneThread.interrupt();
+        }
+        log.info(LANES_STOPPED, queue, requeued);
+    }
+
+    private void runLane(int lane, BlockingQueue<LaneTask> tasks) {
+        while (!stopped) {
+            LaneTask task;
+            try {
+                task = tasks.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                continue;
+            }
+            if (task.channel() != null && !task.channel().isOpen()) {
+                log.debug(CHANNEL_CLOSED, lane, queue, task.message().getMessageProperties().getMessageId());
+                continue;
+            }
+
+            boolean processed;
+            try {
+                task.invocation().proceed();
+                processed = true;
+            } catch (Throwable e) {
+                log.warn(LANE_EXCEPTION, lane, queue, task.message().getMessageProperties().getMessageId());
+                processed = false;
+            }
+            acknowledge(lane, task, processed);
+        }
+    }
+
+    /**
+     * В loopback-режиме канала нет и подтверждать нечего.
+     */
+    private void acknowledge(int lane, LaneTask task, boolean processed) {
+        if (task.channel() == null) {
+            return;
+        }
+        long deliveryTag = task.message().getMessageProperties().getDeliveryTag();
+        try {
+            if (processed) {
+                task.channel().basicAck(deliveryTag, false);
+            } else {
+                task.channel().basicNack(deliveryTag, false, false);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Канал закрыт - брокер сам вернёт неподтверждённое сообщение в очередь
+            log.warn(ACK_EXCEPTION, lane, deliveryTag, e);
+        }
+    }
+
+    /**
+     * Возвращает сообщение в очередь, если канал ещё открыт. Если закрыт - брокер уже вернул сообщение сам.
+     */
+    private void requeue(int lane, Channel channel, Message message) {
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        try {
+            channel.basicNack(deliveryTag, false, true);
+        } catch (IOException | RuntimeException e) {
+            log.warn(ACK_EXCEPTION, lane, deliveryTag, e);
+        }
+    }
+
+    private record LaneTask(MethodInvocation invocation, Channel channel, Message message) {
+    }
+
+}
@@ -0,0 +1,501 @@
+package ru.tpu.hostel.internal.config.amqp.loopback;
+
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.aop.Advice;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationContext;
+import ru.tpu.hostel.internal.config.amqp.RabbitConfiguration;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerContainerFactoryRegistrar;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerDescriptor;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitExchangeType;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitLoopbackProperties;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitRetryInterceptor;
+import ru.tpu.hostel.internal.config.amqp.retry.RabbitRetryTopology;
+import ru.tpu.hostel.internal.config.amqp.retry.RetryHeaders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Брокер внутри процесса для loopback-режима ({@code rabbitmq.loopback.enabled: true}).
+ * <p>
+ * Маршруты строятся из свойств слушателей: пара обменник и ключ маршрутизации, а также обменник по умолчанию с именем
+ * очереди в качестве ключа. Ключи привязки слушателей с topic обменником сопоставляются как шаблоны с {@code *} и
+ * {@code #}. У каждой очереди есть ограниченная очередь в памяти и потребители на виртуальных
+ * потоках. Потребитель вызывает слушатель контейнера {@code @RabbitListener} через цепочку советов фабрики этого
+ * слушателя, то есть через те же интерцепторы, что и при работе с RabbitMQ. Канала у сообщения нет, поэтому
+ * слушатели с ручным подтверждением в этом режиме не поддерживаются.
+ * <p>
+ * Интерцептор повторов без канала ничего не публикует, поэтому повторы слушателя со свойством {@code retry} брокер
+ * делает сам: упавшее сообщение с теми же заголовками повтора возвращается в очередь в памяти после задержки
+ * попытки. Parking-lot в этом режиме нет: сообщение с исчерпанными попытками отбрасывается с записью в лог.
+ * <p>
+ * Сообщения в очереди, которую никто не слушает в этом процессе, отбрасываются.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitLoopbackBroker implements DisposableBean {
+
+    private static final String REPLY_TO_PREFIX = "loopback.reply.";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final String LISTENER_EXCEPTION = "[RABBIT] Ошибка обработки сообщения в loopback-режиме: "
+            + "queue={}, messageId={}";
+
+    private static final String RETRY_SCHEDULED = "[RABBIT] Сообщение отправлено на повтор {} из {} через {} мс "
+            + "в loopback-режиме: queue={}, messageId={}";
+
+    private static final String RETRY_EXHAUSTED = "[RABBIT] Попытки обработки исчерпаны, сообщение отброшено "
+            + "в loopback-режиме: queue={}, messageId={}";
+
+    private static final String RETRY_EXCEPTION = "[RABBIT] Не удалось вернуть сообщение на повтор в loopback-режиме: "
+            + "queue={}, messageId={}";
+
+    private final RabbitLoopbackProperties loopbackProperties;
+
+    private final RabbitListenerLocator listenerLocator;
+
+    private final ApplicationContext applicationContext;
+
+    private final Map<String, CompletableFuture<Message>> pendingReplies = new ConcurrentHashMap<>();
+
+    private final Map<String, Consumer<Message>> replyQueues = new ConcurrentHashMap<>();
+
+    private final AtomicLong deliveryTags = new AtomicLong();
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("rabbit-loopback-", 0).factory()
+    );
+
+    private volatile Map<String, List<Destination>> routes;
+
+    private volatile List<TopicBinding> topicBindings = List.of();
+
+    private volatile boolean stopped;
+
+    public RabbitLoopbackBroker(
+            RabbitLoopbackProperties loopbackProperties,
+            RabbitListenerLocator listenerLocator,
+            ApplicationContext applicationContext
+    ) {
+        this.loopbackProperties = loopbackProperties;
+        this.listenerLocator = listenerLocator;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Отправляет сообщение в очереди, привязанные к обменнику с ключом маршрутизации.
+     *
+     * @param exchange   обменник.
+     * @param routingKey ключ маршрутизации.
+     * @param message    сообщение.
+     * @throws AmqpException при имитации ошибки или если очередь не освободилась за время ожидания.
+     */
+    public void publish(@NotNull String exchange, @NotNull String routingKey, @NotNull Message message) {
+        simulateNetwork();
+
+        CompletableFuture<Message> reply = pendingReplies.remove(routingKey);
+        if (reply != null) {
+            reply.complete(message);
+            return;
+        }
+        Consumer<Message> replyQueue = replyQueues.get(routingKey);
+        if (replyQueue != null) {
+            replyQueue.accept(message);
+            return;
+        }
+
+        Collection<Destination> destinations = getRoutes().getOrDefault(route(exchange, routingKey), List.of());
+        for (TopicBinding binding : topicBindings) {
+            if (binding.matches(exchange, routingKey)) {
+                // В каждую очередь сообщение попадает один раз, даже если совпало несколько шаблонов
+                if (!(destinations instanceof Set<Destination>)) {
+                    destinations = new LinkedHashSet<>(destinations);
+                }
+                destinations.add(binding.destination());
+            }
+        }
+        if (destinations.isEmpty()) {
+            log.debug("[RABBIT] Нет слушателей для {}:{} в loopback-режиме, сообщение отброшено", exchange, routingKey);
+            return;
+        }
+        for (Destination destination : destinations) {
+            destination.offer(exchange, routingKey, message);
+        }
+    }
+
+    /**
+     * RPC отправка: публикует сообщение с адресом ответа и ждёт ответ.
+     *
+     * @param exchange   обменник.
+     * @param routingKey ключ маршрутизации.
+     * @param message    сообщение.
+     * @return ответ или {@code null}, если ответ не пришёл за время ожидания.
+     */
+    @Nullable
+    public Message publishAndReceive(@NotNull String exchange, @NotNull String routingKey, @NotNull Message message) {
+        String replyTo = REPLY_TO_PREFIX + UUID.randomUUID();
+        CompletableFuture<Message> reply = new CompletableFuture<>();
+        pendingReplies.put(replyTo, reply);
+        message.getMessageProperties().setReplyTo(replyTo);
+
+        Duration replyTimeout = loopbackProperties.replyTimeout() == null
+                ? DEFAULT_TIMEOUT
+                : loopbackProperties.replyTimeout();
+        try {
+            publish(exchange, routingKey, message);
+            return reply.get(replyTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            throw new AmqpException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException(e);
+        } finally {
+            pendingReplies.remove(replyTo);
+        }
+    }
+
+    /**
+     * Открывает адрес для ответа из нескольких сообщений (потокового ответа). Сообщения на этот адрес передаются
+     * получателю в потоке отправителя, пока адрес не закрыт.
+     *
+     * @param receiver получатель сообщений.
+     * @return адрес для {@code replyTo}.
+     */
+    @NotNull
+    public String openReplyQueue(@NotNull Consumer<Message> receiver) {
+        String replyTo = REPLY_TO_PREFIX + UUID.randomUUID();
+        replyQueues.put(replyTo, receiver);
+        return replyTo;
+    }
+
+    /**
+     * Закрывает адрес ответа, дальнейшие сообщения на него отбрасываются.
+     *
+     * @param replyTo адрес из {@link #openReplyQueue(Consumer)}.
+     */
+    public void closeReplyQueue(@NotNull String replyTo) {
+        replyQueues.remove(replyTo);
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        executor.shutdownNow();
+    }
+
+    private void simulateNetwork() {
+        Duration latency = loopbackProperties.latency();
+        if (latency != null && !latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException(e);
+            }
+        }
+
+        Double failureRate = loopbackProperties.failureRate();
+        if (failureRate != null && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new AmqpException("Имитация ошибки отправки в loopback-режиме");
+        }
+    }
+
+    private Map<String, List<Destination>> getRoutes() {
+        Map<String, List<Destination>> result = routes;
+        if (result == null) {
+            synchronized (this) {
+                result = routes;
+                if (result == null) {
+                    result = createRoutes();
+                    routes = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Маршруты строятся при первой отправке: контейнеры {@code @RabbitListener} регистрируются только после
+     * создания всех бинов.
+     */
+    private Map<String, List<Destination>> createRoutes() {
+        RabbitListenerEndpointRegistry registry = applicationContext.getBean(RabbitListenerEndpointRegistry.class);
+        Map<String, List<Destination>> result = new HashMap<>();
+        List<TopicBinding> topicResult = new ArrayList<>();
+        for (RabbitListenerDescriptor listener : listenerLocator.getAll()) {
+            RabbitListenerProperties listenerProperties = listener.listenerProperties();
+            AbstractRabbitListenerContainerFactory<?> factory = applicationContext.getBean(
+                    RabbitListenerContainerFactoryRegistrar.listenerBeanName(
+                            listener.microservice(),
+                            listener.propertiesName(),
+                            listener.listenerKey()
+                    ),
+                    AbstractRabbitListenerContainerFactory.class
+            );
+
+            registry.getListenerContainers().forEach(container -> {
+                if (container instanceof AbstractMessageListenerContainer listenerContainer
+                        && List.of(listenerContainer.getQueueNames()).contains(listenerProperties.queueName())) {
+                    Destination destination = new Destination(
+                            listenerProperties,
+                            createInvoker(listenerContainer.getMessageListener(), factory.getAdviceChain())
+                    );
+                    for (String bindingKey : RabbitConfiguration.bindingKeys(listenerProperties)) {
+                        if (listenerProperties.exchangeType() == RabbitExchangeType.TOPIC) {
+                            topicResult.add(new TopicBinding(
+                                    listenerProperties.exchangeName(),
+                                    bindingKey.split("\\."),
+                                    destination
+                            ));
+                        } else {
+                            result.computeIfAbsent(
+                                    route(listenerProperties.exchangeName(), bindingKey),
+                                    _ -> new ArrayList<>()
+                            ).add(destination);
+                        }
+                    }
+                    result.computeIfAbsent(
+                            route("", listenerProperties.queueName()),
+                            _ -> new ArrayList<>()
+                    ).add(destination);
+                }
+            });
+        }
+        topicBindings = List.copyOf(topicResult);
+        return result;
+    }
+
+    private ListenerInvoker createInvoker(MessageListener messageListener, Advice[] adviceChain) {
+        ListenerInvoker target = (channel, data) -> {
+            if (data instanceof Message message) {
+                if (messageListener instanceof ChannelAwareMessageListener channelAwareMessageListener) {
+                    channelAwareMessageListener.onMessage(message, channel);
+                } else {
+                    messageListener.onMessage(message);
+                }
+            } else {
+                @SuppressWarnings("unchecked")
+                List<Message> messages = (List<Message>) data;
+                if (messageListener instanceof ChannelAwareMessageListener channelAwareMessageListener) {
+                    channelAwareMessageListener.onMessageBatch(messages, channel);
+                } else {
+                    messageListener.onMessageBatch(messages);
+                }
+            }
+        };
+        if (adviceChain == null || adviceChain.length == 0) {
+            return target;
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(ListenerInvoker.class);
+        for (Advice advice : adviceChain) {
+            proxyFactory.addAdvice(advice);
+        }
+        return (ListenerInvoker) proxyFactory.getProxy(getClass().getClassLoader());
+    }
+
+    private static String route(String exchange, String routingKey) {
+        return exchange + '\u0000' + routingKey;
+    }
+
+    /**
+     * Привязка очереди к topic обменнику по шаблону, разбитому на слова.
+     */
+    private record TopicBinding(String exchange, String[] pattern, Destination destination) {
+
+        private boolean matches(String exchange, String routingKey) {
+            return this.exchange.equals(exchange) && matches(pattern, 0, routingKey.split("\\."), 0);
+        }
+
+        private static boolean matches(String[] pattern, int patternIndex, String[] words, int wordIndex) {
+            if (patternIndex == pattern.length) {
+                return wordIndex == words.length;
+            }
+            if ("#".equals(pattern[patternIndex])) {
+                // # забирает от нуля слов до всех оставшихся
+                for (int i = wordIndex; i <= words.length; i++) {
+                    if (matches(pattern, patternIndex + 1, words, i)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return wordIndex < words.length
+                    && ("*".equals(pattern[patternIndex]) || pattern[patternIndex].equals(words[wordIndex]))
+                    && matches(pattern, patternIndex + 1, words, wordIndex + 1);
+        }
+
+    }
+
+    /**
+     * Вызов слушателя с той же сигнатурой, что у метода контейнера, к которому прикрепляются советы: канал первым
+     * аргументом, сообщение или пачка сообщений пакетного слушателя вторым.
+     */
+    public interface ListenerInvoker {
+
+        void invokeListener(Channel channel, Object data) throws Exception;
+
+    }
+
+    private final class Destination {
+
+        private final RabbitListenerProperties listenerProperties;
+
+        private final String queue;
+
+        private final int batchSize;
+
+        private final ListenerInvoker invoker;
+
+        private final BlockingQueue<Message> messages;
+
+        private Destination(RabbitListenerProperties listenerProperties, ListenerInvoker invoker) {
+            this.listenerProperties = listenerProperties;
+            this.queue = listenerProperties.queueName();
+            this.batchSize = listenerProperties.batch() == null ? 1 : listenerProperties.batch().size();
+            this.invoker = invoker;
+            this.messages = new ArrayBlockingQueue<>(loopbackProperties.queueCapacity() == null
+                    ? DEFAULT_QUEUE_CAPACITY
+                    : loopbackProperties.queueCapacity());
+            int consumers = loopbackProperties.consumers() == null ? 1 : loopbackProperties.consumers();
+            for (int i = 0; i < consumers; i++) {
+                executor.execute(this::consume);
+            }
+        }
+
+        private void offer(String exchange, String routingKey, Message message) {
+            MessageProperties properties = MessagePropertiesBuilder
+                    .fromClonedProperties(message.getMessageProperties())
+                    .build();
+            properties.setReceivedExchange(exchange);
+            properties.setReceivedRoutingKey(routingKey);
+            properties.setConsumerQueue(queue);
+            properties.setDeliveryTag(deliveryTags.incrementAndGet());
+            enqueue(new Message(message.getBody(), properties));
+        }
+
+        private void enqueue(Message message) {
+            Duration publishTimeout = loopbackProperties.publishTimeout() == null
+                    ? DEFAULT_TIMEOUT
+                    : loopbackProperties.publishTimeout();
+            try {
+                if (!messages.offer(message, publishTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new AmqpException("Очередь " + queue + " переполнена в loopback-режиме");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException(e);
+            }
+        }
+
+        private void consume() {
+            while (!stopped) {
+                Message message;
+                try {
+                    message = messages.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                List<Message> delivered;
+                if (batchSize > 1) {
+                    // Пачка собирается из того, что уже лежит в очереди, без ожидания batch.receive-timeout
+                    delivered = new ArrayList<>(batchSize);
+                    delivered.add(message);
+                    messages.drainTo(delivered, batchSize - 1);
+                } else {
+                    delivered = List.of(message);
+                }
+                try {
+                    invoker.invokeListener(null, batchSize > 1 ? delivered : message);
+                } catch (Exception e) {
+                    log.error(LISTENER_EXCEPTION, queue, message.getMessageProperties().getMessageId(), e);
+                    if (listenerProperties.retry() != null) {
+                        // Как и с RabbitMQ, у пакетного слушателя на повтор уходит вся пачка
+                        delivered.forEach(failed -> retry(failed, e));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Возвращает сообщение в очередь после задержки попытки. Ожидание идёт в отдельном виртуальном потоке, чтобы
+         * не занимать потребителя, как ожидание в очереди повтора с TTL у RabbitMQ.
+         */
+        private void retry(Message message, Exception error) {
+            MessageProperties properties = message.getMessageProperties();
+            String routingKey = RabbitRetryInterceptor.prepare(listenerProperties, message, error);
+            if (routingKey == null || routingKey.equals(RabbitRetryTopology.parkingLotQueue(listenerProperties))) {
+                log.error(RETRY_EXHAUSTED, queue, properties.getMessageId());
+                return;
+            }
+            int attempt = ((Number) properties.getHeader(RetryHeaders.RETRY_COUNT)).intValue();
+            List<Duration> delays = listenerProperties.retry().delays();
+            Duration delay = delays.get(attempt - 1);
+            log.warn(RETRY_SCHEDULED, attempt, delays.size(), delay.toMillis(), queue, properties.getMessageId());
+            if (stopped) {
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(delay.toMillis());
+                    if (!stopped) {
+                        properties.setDeliveryTag(deliveryTags.incrementAndGet());
+                        enqueue(message);
+                    }
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                } catch (AmqpException e) {
+                    log.error(RETRY_EXCEPTION, queue, properties.getMessageId(), e);
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package ru.tpu.hostel.internal.config.amqp.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.stereotype.Component;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitTrafficClasses;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Метрики отправки сообщений через RabbitMQ. Записываются через тот же {@link OpenTelemetry}, что и трассировка.
+ * <p>
+ * Инструменты:
+ * <ul>
+ * <li>{@code hostel.amqp.producer.publish.duration} - время публикации сообщения в канал, мс;</li>
+ * <li>{@code hostel.amqp.producer.confirm.duration} - время от публикации до подтверждения брокером, мс
+ * (только при включённых publisher confirms);</li>
+ * <li>{@code hostel.amqp.producer.rpc.duration} - время RPC запроса до получения ответа, мс;</li>
+ * <li>{@code hostel.amqp.producer.payload.size} - размер тела сообщения, байт;</li>
+ * <li>{@code hostel.amqp.producer.sent} - количество отправленных сообщений;</li>
+ * <li>{@code hostel.amqp.producer.failures} - количество ошибок отправки;</li>
+ * <li>{@code hostel.amqp.producer.returns} - количество сообщений, возвращённых брокером как немаршрутизируемые;</li>
+ * <li>{@code hostel.amqp.producer.nacks} - количество отрицательных подтверждений брокера;</li>
+ * <li>{@code hostel.amqp.producer.throttle.duration} - ожидание лимита отправки класса трафика, мс
+ * (только для классов с {@code rate-limit}).</li>
+ * </ul>
+ * Все метрики размечены микросервисом-получателем, типом сообщения, обменником и классом трафика
+ * ({@code default} для основного подключения).
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Component
+public class AmqpProducerMetrics {
+
+    private static final String INSTRUMENTATION_NAME = "ru.tpu.hostel.internal.amqp";
+
+    private static final AttributeKey<String> MICROSERVICE = AttributeKey.stringKey("messaging.microservice");
+
+    private static final AttributeKey<String> MESSAGE_TYPE = AttributeKey.stringKey("messaging.message.type");
+
+    private static final AttributeKey<String> EXCHANGE = AttributeKey.stringKey("messaging.destination.name");
+
+    private static final AttributeKey<String> TRAFFIC_CLASS =
+            AttributeKey.stringKey("messaging.rabbitmq.traffic_class");
+
+    private static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+    private static final String NO_MESSAGE_TYPE = "none";
+
+    private static final List<Double> LATENCY_BUCKETS = List.of(
+            1d, 2d, 5d, 10d, 25d, 50d, 100d, 250d, 500d, 1000d, 2500d, 5000d, 10000d
+    );
+
+    private static final List<Long> SIZE_BUCKETS = List.of(
+            128L, 512L, 1024L, 4096L, 16384L, 65536L, 262144L, 1048576L
+    );
+
+    private final DoubleHistogram publishDuration;
+
+    private final DoubleHistogram confirmDuration;
+
+    private final DoubleHistogram rpcDuration;
+
+    private final LongHistogram payloadSize;
+
+    private final LongCounter sent;
+
+    private final LongCounter failures;
+
+    private final LongCounter returns;
+
+    private final LongCounter nacks;
+
+    private final DoubleHistogram throttleDuration;
+
+    public AmqpProducerMetrics(OpenTelemetry openTelemetry) {
+        Meter meter = openTelemetry.getMeter(INSTRUMENTATION_NAME);
+        publishDuration = meter.histogramBuilder("hostel.amqp.producer.publish.duration")
+                .setDescription("Время публикации сообщения RabbitMQ")
+                .setUnit("ms")
+                .setExplicitBucketBoundariesAdvice(LATENCY_BUCKETS)
+                .build();
+        confirmDuration = meter.histogramBuilder("hostel.amqp.producer.confirm.duration")
+                .setDescription("Время от публикации до подтверждения брокером")
+                .setUnit("ms")
+                .setExplicitBucketBoundariesAdvice(LATENCY_BUCKETS)
+                .build();
+        rpcDuration = meter.histogramBuilder("hostel.amqp.producer.rpc.duration")
+                .setDescription("Время RPC запроса RabbitMQ до получения ответа")
+                .setUnit("ms")
+                .setExplicitBucketBoundariesAdvice(LATENCY_BUCKETS)
+                .build();
+        payloadSize = meter.histogramBuilder("hostel.amqp.producer.payload.size")
+                .setDescription("Размер тела отправленного сообщения")
+                .setUnit("By")
+                .ofLongs()
+                .setExplicitBucketBoundariesAdvice(SIZE_BUCKETS)
+                .build();
+        sent = meter.counterBuilder("hostel.amqp.producer.sent")
+                .setDescription("Количество отправленных сообщений")
+                .build();
+        failures = meter.counterBuilder("hostel.amqp.producer.failures")
+                .setDescription("Количество ошибок отправки")
+                .build();
+        returns = meter.counterBuilder("hostel.amqp.producer.returns")
+                .setDescription("Количество сообщений, возвращённых брокером")
+                .build();
+        nacks = meter.counterBuilder("hostel.amqp.producer.nacks")
+                .setDescription("Количество отрицательных подтверждений брокера")
+                .build();
+        throttleDuration = meter.histogramBuilder("hostel.amqp.producer.throttle.duration")
+                .setDescription("Ожидание лимита отправки класса трафика")
+                .setUnit("ms")
+                .setExplicitBucketBoundariesAdvice(LATENCY_BUCKETS)
+                .build();
+    }
+
+    /**
+     * Собирает атрибуты метрик для одной отправки.
+     *
+     * @param microservices микросервисы-получатели.
+     * @param messageType   тип сообщения, если есть.
+     * @param exchange      обменник.
+     * @return атрибуты метрик.
+     */
+    public Attributes attributes(
+            @NotNull Set<Microservice> microservices,
+            @Nullable Enum<?> messageType,
+            @Nullable String exchange
+    ) {
+        return attributes(microservices, messageType, exchange, null);
+    }
+
+    /**
+     * Собирает атрибуты метрик для одной отправки через подключение класса трафика.
+     *
+     * @param microservices микросервисы-получатели.
+     * @param messageType   тип сообщения, если есть.
+     * @param exchange      обменник.
+     * @param trafficClass  класс трафика или {@code null} для основного подключения.
+     * @return атрибуты метрик.
+     */
+    public Attributes attributes(
+            @NotNull Set<Microservice> microservices,
+            @Nullable Enum<?> messageType,
+            @Nullable String exchange,
+            @Nullable String trafficClass
+    ) {
+        return Attributes.of(
+                MICROSERVICE, microservices.stream().map(Enum::name).sorted().collect(Collectors.joining(",")),
+                MESSAGE_TYPE, messageType == null ? NO_MESSAGE_TYPE : messageType.name(),
+                EXCHANGE, exchange == null ? "" : exchange,
+                TRAFFIC_CLASS, trafficClass == null ? RabbitTrafficClasses.DEFAULT_TRAFFIC_CLASS : trafficClass
+        );
+    }
+
+    /**
+     * Записывает успешную публикацию.
+     *
+     * @param attributes  атрибуты отправки.
+     * @param startNanos  время начала публикации из {@link System#nanoTime()}.
+     * @param payloadSize размер тела сообщения.
+     */
+    public void recordPublish(@NotNull Attributes attributes, long startNanos, int payloadSize) {
+        publishDuration.record(millisSince(startNanos), attributes);
+        this.payloadSize.record(payloadSize, attributes);
+        sent.add(1, attributes);
+    }
+
+    /**
+     * Записывает завершённый RPC запрос.
+     *
+     * @param attributes  атрибуты отправки.
+     * @param startNanos  время начала запроса из {@link System#nanoTime()}.
+     * @param payloadSize размер тела запроса.
+     */
+    public void recordRpc(@NotNull Attributes attributes, long startNanos, int payloadSize) {
+        rpcDuration.record(millisSince(startNanos), attributes);
+        this.payloadSize.record(payloadSize, attributes);
+        sent.add(1, attributes);
+    }
+
+    /**
+     * Записывает ожидание лимита отправки.
+     *
+     * @param attributes атрибуты отправки.
+     * @param waitNanos  сколько наносекунд отправка ждала разрешения.
+     */
+    public void recordThrottle(@NotNull Attributes attributes, long waitNanos) {
+        throttleDuration.record(waitNanos / 1_000_000d, attributes);
+    }
+
+    /**
+     * Записывает ошибку отправки.
+     *
+     * @param attributes атрибуты отправки.
+     * @param errorType  тип ошибки, например простое имя класса исключения.
+     */
+    public void recordFailure(@NotNull Attributes attributes, @NotNull String errorType) {
+        failures.add(1, attributes.toBuilder().put(ERROR_TYPE, errorType).build());
+    }
+
+    /**
+     * Подписывается на подтверждение публикации: записывает время подтверждения, nack и возврат сообщения.
+     *
+     * @param attributes      атрибуты отправки.
+     * @param correlationData данные корреляции, переданные в {@code RabbitTemplate}.
+     * @param startNanos      время начала публикации из {@link System#nanoTime()}.
+     */
+    public void trackConfirm(
+            @NotNull Attributes attributes,
+            @NotNull CorrelationData correlationData,
+            long startNanos
+    ) {
+        correlationData.getFuture().whenComplete((confirm, error) -> {
+            if (error != null) {
+                return;
+            }
+            confirmDuration.record(millisSince(startNanos), attributes);
+            if (!confirm.isAck()) {
+                nacks.add(1, attributes);
+            }
+            if (correlationData.getReturned() != null) {
+                returns.add(1, attributes);
+            }
+        });
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000d;
+    }
+
+}
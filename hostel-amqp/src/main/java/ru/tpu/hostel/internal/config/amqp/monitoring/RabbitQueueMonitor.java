@@ -0,0 +1,299 @@
+package ru.tpu.hostel.internal.config.amqp.monitoring;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitMonitoringProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Фоновый мониторинг глубины всех очередей из свойств {@code rabbitmq} (и отправителей, и слушателей).
+ * <p>
+ * Очереди опрашиваются пассивным объявлением на отдельном канале каждого подключения. По двум соседним замерам
+ * считается скорость изменения глубины (сглаженная), а для убывающей очереди - оценка времени до её опустошения.
+ * Пока все очереди стабильны, период опроса удваивается до {@code max-interval}, чтобы не нагружать брокер, и
+ * сбрасывается до {@code min-interval}, как только какая-то очередь начинает меняться.
+ * <p>
+ * Метрики размечены микросервисом и очередью:
+ * <ul>
+ * <li>{@code hostel.amqp.queue.depth} - количество сообщений в очереди;</li>
+ * <li>{@code hostel.amqp.queue.consumers} - количество потребителей;</li>
+ * <li>{@code hostel.amqp.queue.growth.rate} - скорость изменения глубины, сообщений в секунду;</li>
+ * <li>{@code hostel.amqp.queue.drain.time} - оценка времени до опустошения очереди, с (только для убывающих).</li>
+ * </ul>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class RabbitQueueMonitor implements SmartLifecycle {
+
+    private static final Duration DEFAULT_MIN_INTERVAL = Duration.ofSeconds(5);
+
+    private static final Duration DEFAULT_MAX_INTERVAL = Duration.ofSeconds(60);
+
+    private static final double DEFAULT_STABLE_GROWTH = 1;
+
+    /**
+     * Вес нового замера в сглаженной скорости изменения глубины.
+     */
+    private static final double GROWTH_SMOOTHING = 0.5;
+
+    private static final AttributeKey<String> MICROSERVICE = AttributeKey.stringKey("messaging.microservice");
+
+    private static final AttributeKey<String> QUEUE = AttributeKey.stringKey("messaging.destination.name");
+
+    private static final String POLL_EXCEPTION = "[RABBIT] Не удалось получить глубину очереди {}: {}";
+
+    private static final String CHANNEL_CLOSE_EXCEPTION = "[RABBIT] Не удалось закрыть канал мониторинга очередей";
+
+    private final List<ConnectionQueues> connections = new ArrayList<>();
+
+    private final long minIntervalMillis;
+
+    private final long maxIntervalMillis;
+
+    private final double stableGrowth;
+
+    private ScheduledExecutorService scheduler;
+
+    private long intervalMillis;
+
+    private volatile boolean running;
+
+    public RabbitQueueMonitor(
+            RabbitMonitoringProperties monitoringProperties,
+            RabbitProperties rabbitProperties,
+            Map<Microservice, Map<String, TracedConnectionFactory>> connectionFactories,
+            OpenTelemetry openTelemetry
+    ) {
+        this.minIntervalMillis = monitoringProperties.minInterval() == null
+                ? DEFAULT_MIN_INTERVAL.toMillis()
+                : monitoringProperties.minInterval().toMillis();
+        this.maxIntervalMillis = Math.max(
+                minIntervalMillis,
+                monitoringProperties.maxInterval() == null
+                        ? DEFAULT_MAX_INTERVAL.toMillis()
+                        : monitoringProperties.maxInterval().toMillis()
+        );
+        this.stableGrowth = monitoringProperties.stableGrowth() == null
+                ? DEFAULT_STABLE_GROWTH
+                : monitoringProperties.stableGrowth();
+
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) ->
+                servicePropertiesMap.forEach((propertiesName, serviceProperties) -> {
+                    Set<String> queueNames = new LinkedHashSet<>();
+                    if (serviceProperties.queueingProperties().listeners() != null) {
+                        serviceProperties.queueingProperties().listeners()
+                                .values()
+                                .forEach(listener -> queueNames.add(listener.queueName()));
+                    }
+                    if (serviceProperties.queueingProperties().senders() != null) {
+                        serviceProperties.queueingProperties().senders()
+                                .values()
+                                .forEach(sender -> queueNames.add(sender.queueName()));
+                    }
+                    List<QueueState> queues = queueNames.stream()
+                            .map(queueName -> new QueueState(queueName, Attributes.of(
+                                    MICROSERVICE, microservice.name(),
+                                    QUEUE, queueName
+                            )))
+                            .toList();
+                    connections.add(new ConnectionQueues(
+                            connectionFactories.get(microservice).get(propertiesName),
+                            queues
+                    ));
+                })
+        );
+
+        Meter meter = openTelemetry.getMeter("ru.tpu.hostel.internal.amqp");
+        meter.gaugeBuilder("hostel.amqp.queue.depth")
+                .setDescription("Количество сообщений в очереди")
+                .ofLongs()
+                .buildWithCallback(measurement -> forEachSampled(queue ->
+                        measurement.record(queue.depth, queue.attributes)
+                ));
+        meter.gaugeBuilder("hostel.amqp.queue.consumers")
+                .setDescription("Количество потребителей очереди")
+                .ofLongs()
+                .buildWithCallback(measurement -> forEachSampled(queue ->
+                        measurement.record(queue.consumers, queue.attributes)
+                ));
+        meter.gaugeBuilder("hostel.amqp.queue.growth.rate")
+                .setDescription("Скорость изменения глубины очереди")
+                .setUnit("{message}/s")
+                .buildWithCallback(measurement -> forEachSampled(queue ->
+                        measurement.record(queue.growthRate, queue.attributes)
+                ));
+        meter.gaugeBuilder("hostel.amqp.queue.drain.time")
+                .setDescription("Оценка времени до опустошения очереди")
+                .setUnit("s")
+                .buildWithCallback(measurement -> forEachSampled(queue -> {
+                    if (queue.depth > 0 && queue.growthRate < 0) {
+                        measurement.record(queue.depth / -queue.growthRate, queue.attributes);
+                    }
+                }));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || connections.isEmpty()) {
+            return;
+        }
+        running = true;
+        intervalMillis = minIntervalMillis;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rabbit-queue-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.schedule(this::poll, minIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        connections.forEach(ConnectionQueues::closeChannel);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll() {
+        boolean stable = true;
+        for (ConnectionQueues connection : connections) {
+            stable &= connection.poll(stableGrowth);
+        }
+        intervalMillis = stable
+                ? Math.min(intervalMillis * 2, maxIntervalMillis)
+                : minIntervalMillis;
+
+        ScheduledExecutorService current = scheduler;
+        if (running && current != null) {
+            current.schedule(this::poll, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void forEachSampled(Consumer<QueueState> action) {
+        for (ConnectionQueues connection : connections) {
+            for (QueueState queue : connection.queues) {
+                if (queue.sampledAt > 0) {
+                    action.accept(queue);
+                }
+            }
+        }
+    }
+
+    private static final class ConnectionQueues {
+
+        private final TracedConnectionFactory connectionFactory;
+
+        private final List<QueueState> queues;
+
+        private Channel channel;
+
+        private ConnectionQueues(TracedConnectionFactory connectionFactory, List<QueueState> queues) {
+            this.connectionFactory = connectionFactory;
+            this.queues = queues;
+        }
+
+        /**
+         * @return {@code true}, если все очереди подключения стабильны.
+         */
+        private boolean poll(double stableGrowth) {
+            boolean stable = true;
+            for (QueueState queue : queues) {
+                try {
+                    AMQP.Queue.DeclareOk declareOk = getChannel().queueDeclarePassive(queue.name);
+                    stable &= queue.update(declareOk.getMessageCount(), declareOk.getConsumerCount(), stableGrowth);
+                } catch (Exception e) {
+                    // Ошибка пассивного объявления закрывает канал, следующий опрос откроет новый
+                    log.warn(POLL_EXCEPTION, queue.name, e.getMessage());
+                    closeChannel();
+                }
+            }
+            return stable;
+        }
+
+        private Channel getChannel() throws Exception {
+            if (channel == null || !channel.isOpen()) {
+                channel = connectionFactory.createConnection().getDelegate().createChannel();
+            }
+            return channel;
+        }
+
+        private void closeChannel() {
+            if (channel != null && channel.isOpen()) {
+                try {
+                    channel.close();
+                } catch (Exception e) {
+                    log.debug(CHANNEL_CLOSE_EXCEPTION, e);
+                }
+            }
+            channel = null;
+        }
+
+    }
+
+    private static final class QueueState {
+
+        private final String name;
+
+        private final Attributes attributes;
+
+        private volatile long depth;
+
+        private volatile long consumers;
+
+        private volatile double growthRate;
+
+        private volatile long sampledAt;
+
+        private QueueState(String name, Attributes attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+
+        /**
+         * @return {@code true}, если глубина очереди почти не меняется.
+         */
+        private boolean update(long newDepth, long newConsumers, double stableGrowth) {
+            long now = System.currentTimeMillis();
+            if (sampledAt > 0 && now > sampledAt) {
+                double rate = (newDepth - depth) * 1000d / (now - sampledAt);
+                growthRate = GROWTH_SMOOTHING * rate + (1 - GROWTH_SMOOTHING) * growthRate;
+            }
+            depth = newDepth;
+            consumers = newConsumers;
+            sampledAt = now;
+            return Math.abs(growthRate) < stableGrowth;
+        }
+
+    }
+
+}
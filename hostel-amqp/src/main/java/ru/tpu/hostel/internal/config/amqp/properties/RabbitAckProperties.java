@@ -0,0 +1,34 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства накопительного подтверждения сообщений. Слушатель работает с ручным подтверждением, а
+ * {@link ru.tpu.hostel.internal.config.amqp.ack.RabbitCumulativeAckInterceptor} подтверждает успешные сообщения одним
+ * {@code basicAck} с {@code multiple=true} после каждых {@code messages} сообщений или по истечении {@code timeout}.
+ * При ошибке обработки сначала подтверждаются успешные сообщения перед упавшим, затем только упавшее отклоняется без
+ * возврата в очередь. Обработанные, но ещё не подтверждённые сообщения при перезапуске потребителя брокер вернёт в
+ * очередь, поэтому они могут прийти повторно.
+ *
+ * @param messages количество сообщений в одном подтверждении.
+ * @param timeout  опциональное свойство. Через сколько после первого неподтверждённого сообщения подтвердить неполную
+ *                 пачку. По умолчанию 1 секунда.
+ */
+@Validated
+public record RabbitAckProperties(
+
+        @NotNull
+        @Positive
+        Integer messages,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration timeout
+
+) {
+}
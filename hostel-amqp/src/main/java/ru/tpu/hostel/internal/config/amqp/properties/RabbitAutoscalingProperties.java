@@ -0,0 +1,61 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства автомасштабирования потребителей слушателя. Количество потребителей меняется в пределах
+ * {@code [minConsumers, maxConsumers]} по глубине очереди, prefetch - в пределах {@code [minPrefetch, maxPrefetch]}
+ * по среднему времени обработки. Prefetch работающих потребителей не меняется, новый получают только потребители,
+ * добавленные после его подбора.
+ *
+ * @param minConsumers        минимальное (и начальное) количество потребителей.
+ * @param maxConsumers        максимальное количество потребителей.
+ * @param messagesPerConsumer опциональное свойство. Сколько сообщений в очереди допустимо на одного потребителя,
+ *                            прежде чем добавлять потребителей. По умолчанию {@code 100}.
+ * @param targetLatency       опциональное свойство. Целевое время обработки сообщения. Если среднее время выше,
+ *                            потребители не добавляются (узкое место не в количестве потребителей). Также нужно для
+ *                            подбора prefetch.
+ * @param minPrefetch         опциональное свойство. Минимальный prefetch. Подбор prefetch включается, если заданы
+ *                            {@code minPrefetch}, {@code maxPrefetch} и {@code targetLatency}.
+ * @param maxPrefetch         опциональное свойство. Максимальный prefetch.
+ * @param interval            опциональное свойство. Период замера. По умолчанию 10 секунд.
+ * @param scaleDownIntervals  опциональное свойство. Сколько замеров подряд очередь должна быть почти пустой, чтобы
+ *                            убрать потребителя. По умолчанию {@code 3}.
+ */
+@Validated
+public record RabbitAutoscalingProperties(
+
+        @NotNull
+        @Positive
+        Integer minConsumers,
+
+        @NotNull
+        @Positive
+        Integer maxConsumers,
+
+        @Positive
+        Integer messagesPerConsumer,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration targetLatency,
+
+        @Positive
+        Integer minPrefetch,
+
+        @Positive
+        Integer maxPrefetch,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration interval,
+
+        @Positive
+        Integer scaleDownIntervals
+
+) {
+}
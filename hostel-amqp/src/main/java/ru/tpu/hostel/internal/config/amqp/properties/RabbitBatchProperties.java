@@ -0,0 +1,30 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства пакетного слушателя. Контейнер собирает сообщения в пачку и передаёт её методу {@code @RabbitListener}
+ * одним вызовом, поэтому метод принимает {@code List<Message>} или {@code List<T>}.
+ *
+ * @param size           максимальный размер пачки.
+ * @param receiveTimeout опциональное свойство. Сколько ждать заполнения пачки, после чего отдаётся неполная пачка.
+ *                       По умолчанию как у контейнера.
+ */
+@Validated
+public record RabbitBatchProperties(
+
+        @NotNull
+        @Positive
+        Integer size,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration receiveTimeout
+
+) {
+}
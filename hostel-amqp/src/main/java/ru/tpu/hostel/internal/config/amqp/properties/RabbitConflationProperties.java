@@ -0,0 +1,33 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.Positive;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Свойства схлопывания сообщений по ключу: из ещё не обработанных сообщений одного ключа обрабатывается только
+ * последнее, остальные подтверждаются без обработки. Подходит для потоков состояний, где важно только новое
+ * значение (свободные слоты, баланс).
+ *
+ * @param header       опциональное свойство. Заголовок с ключом. По умолчанию {@code X-User-Id}, если не задан
+ *                     {@code payloadField}.
+ * @param payloadField опциональное свойство. Поле верхнего уровня JSON тела сообщения с ключом.
+ * @param maxKeys      опциональное свойство. Сколько ключей может ждать обработки. Если ожидающих ключей больше,
+ *                     потребитель ждёт, пока обработчик не освободит место. По умолчанию {@code 1024}.
+ * @param workers      опциональное свойство. Количество виртуальных потоков обработки. Один ключ никогда не
+ *                     обрабатывается в двух потоках одновременно. По умолчанию {@code 1}.
+ */
+@Validated
+public record RabbitConflationProperties(
+
+        String header,
+
+        String payloadField,
+
+        @Positive
+        Integer maxKeys,
+
+        @Positive
+        Integer workers
+
+) {
+}
@@ -1,5 +1,6 @@
 package ru.tpu.hostel.internal.config.amqp.properties;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.boot.convert.DurationUnit;
@@ -8,6 +9,7 @@ import ru.tpu.hostel.internal.config.amqp.customizer.TracedConnectionFactoryCust
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
 
 /**
  * Свойства для подключения.
@@ -18,6 +20,14 @@ import java.time.temporal.ChronoUnit;
  * @param addresses         адрес.
  * @param connectionTimeout таймаут для коннекта.
  * @param customizerName    опциональное свойство для имени кастомного бина {@link TracedConnectionFactoryCustomizer}.
+ * @param lazyStartup       опциональное свойство. Если {@code true}, подключение и объявление очередей происходят в
+ *                          фоне после старта приложения, а не при создании контекста. По умолчанию {@code false}.
+ * @param consumerSpan      опциональное свойство. Если {@code false}, потребитель канала не создаёт свой спан
+ *                          {@code rabbitmq.consume}, и на сообщение остаётся один спан {@code rabbit.receive}
+ *                          интерцептора слушателя с типом CONSUMER. По умолчанию {@code true} - два спана.
+ * @param trafficClasses    опциональное свойство. Классы трафика по имени. Для каждого класса открывается отдельное
+ *                          подключение с теми же параметрами, его выбирают отправители и слушатели через своё
+ *                          свойство {@code traffic-class}.
  */
 @Validated
 public record RabbitConnectionProperties(
@@ -38,7 +48,13 @@ public record RabbitConnectionProperties(
         @DurationUnit(ChronoUnit.MILLIS)
         Duration connectionTimeout,
 
-        String customizerName
+        String customizerName,
+
+        Boolean lazyStartup,
+
+        Boolean consumerSpan,
+
+        Map<String, @Valid RabbitTrafficClassProperties> trafficClasses
 
 ) {
 }
@@ -0,0 +1,33 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства пропуска повторно доставленных сообщений по {@code messageId}.
+ *
+ * @param window     сколько помнить обработанный {@code messageId}.
+ * @param maxEntries сколько {@code messageId} помнить одновременно. При переполнении забываются самые старые.
+ * @param file       опциональное свойство. Путь к файлу, в который отображается хранилище, чтобы оно переживало
+ *                   перезапуск сервиса. Если не задан, хранилище живёт в памяти.
+ */
+@Validated
+public record RabbitDeduplicationProperties(
+
+        @NotNull
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration window,
+
+        @NotNull
+        @Positive
+        Integer maxEntries,
+
+        String file
+
+) {
+}
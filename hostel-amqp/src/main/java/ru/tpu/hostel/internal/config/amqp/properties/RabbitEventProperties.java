@@ -0,0 +1,19 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Свойства публикуемых событий.
+ *
+ * @param exchangeName имя topic обменника, в который публикуются события. Объявляется при старте, очереди к нему
+ *                     привязывают подписчики.
+ */
+@Validated
+public record RabbitEventProperties(
+
+        @NotBlank
+        String exchangeName
+
+) {
+}
@@ -0,0 +1,21 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+/**
+ * Тип обменника слушателя.
+ */
+public enum RabbitExchangeType {
+
+    /**
+     * Direct обменник: сообщение попадает в очереди, привязанные ровно с его ключом маршрутизации. Подходит для
+     * команд и RPC в конкретный микросервис.
+     */
+    DIRECT,
+
+    /**
+     * Topic обменник для событий: ключ привязки - шаблон из слов через точку, {@code *} заменяет одно слово,
+     * {@code #} - любое количество слов. Событие публикуется один раз, а копии по очередям подписчиков раскладывает
+     * брокер.
+     */
+    TOPIC
+
+}
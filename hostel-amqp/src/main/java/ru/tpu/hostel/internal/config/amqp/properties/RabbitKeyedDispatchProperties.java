@@ -0,0 +1,34 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Свойства параллельной обработки с сохранением порядка по ключу. Сообщения одного ключа обрабатываются строго по
+ * очереди в одной полосе, сообщения разных ключей - параллельно в разных полосах.
+ *
+ * @param lanes        количество полос (виртуальных потоков обработки).
+ * @param laneCapacity опциональное свойство. Сколько сообщений может ждать в одной полосе. Если полоса заполнена,
+ *                     потребитель ждёт, а брокер перестаёт присылать сообщения по достижении prefetch.
+ *                     По умолчанию {@code 16}.
+ * @param header       опциональное свойство. Заголовок с ключом. По умолчанию {@code X-User-Id}, если не задан
+ *                     {@code payloadField}.
+ * @param payloadField опциональное свойство. Поле верхнего уровня JSON тела сообщения с ключом.
+ */
+@Validated
+public record RabbitKeyedDispatchProperties(
+
+        @NotNull
+        @Positive
+        Integer lanes,
+
+        @Positive
+        Integer laneCapacity,
+
+        String header,
+
+        String payloadField
+
+) {
+}
@@ -0,0 +1,20 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+/**
+ * Тип контейнера слушателя.
+ */
+public enum RabbitListenerContainerType {
+
+    /**
+     * {@code SimpleMessageListenerContainer}: клиент RabbitMQ передаёт сообщения потокам потребителей контейнера.
+     * Поддерживает пакетный режим и динамическое количество потребителей.
+     */
+    SIMPLE,
+
+    /**
+     * {@code DirectMessageListenerContainer}: слушатель вызывается в потоке клиента RabbitMQ. Без передачи между
+     * потоками задержка на сообщение меньше, поэтому подходит RPC-серверам.
+     */
+    DIRECT
+
+}
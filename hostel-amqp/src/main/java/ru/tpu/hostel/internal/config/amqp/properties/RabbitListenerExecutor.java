@@ -0,0 +1,19 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+/**
+ * Тип потоков, на которых работают потребители контейнера слушателя.
+ */
+public enum RabbitListenerExecutor {
+
+    /**
+     * Платформенные потоки исполнителя контейнера по умолчанию.
+     */
+    PLATFORM,
+
+    /**
+     * Виртуальные потоки. Подходит слушателям, которые большую часть времени ждут ввода-вывода (БД, HTTP), и
+     * позволяет держать много потребителей без отдельного пула потоков.
+     */
+    VIRTUAL
+
+}
@@ -1,17 +1,63 @@
 package ru.tpu.hostel.internal.config.amqp.properties;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import org.springframework.validation.annotation.Validated;
+import ru.tpu.hostel.internal.config.amqp.customizer.DirectRabbitListenerContainerFactoryCustomizer;
 import ru.tpu.hostel.internal.config.amqp.customizer.SimpleRabbitListenerContainerFactoryCustomizer;
 
+import java.util.List;
+
 /**
  * Свойства слушателя.
  *
- * @param exchangeName   имя обменника
- * @param queueName      имя очереди
- * @param routingKey     ключ маршрутизации
- * @param customizerName опциональное свойство для имени кастомного бина
- *                       {@link SimpleRabbitListenerContainerFactoryCustomizer}.
+ * @param exchangeName        имя обменника
+ * @param queueName           имя очереди
+ * @param routingKey          ключ маршрутизации. Для {@link RabbitExchangeType#TOPIC} - шаблон с {@code *} и
+ *                            {@code #}.
+ * @param customizerName      опциональное свойство для имени кастомного бина
+ *                            {@link SimpleRabbitListenerContainerFactoryCustomizer}.
+ * @param retry               опциональные свойства отложенных повторов. Если не заданы, сообщение с ошибкой
+ *                            отбрасывается.
+ * @param batch               опциональные свойства пакетного слушателя. Если не заданы, слушатель получает
+ *                            сообщения по одному.
+ * @param concurrentConsumers опциональное свойство. Начальное количество потребителей. По умолчанию {@code 1}.
+ * @param maxConsumers        опциональное свойство. Максимальное количество потребителей, до которого контейнер
+ *                            добавляет потребителей под нагрузкой. По умолчанию равно {@code concurrentConsumers}.
+ * @param prefetch            опциональное свойство. Количество неподтверждённых сообщений на одного потребителя.
+ *                            По умолчанию как у контейнера.
+ * @param executor            опциональное свойство. Тип потоков потребителей. По умолчанию
+ *                            {@link RabbitListenerExecutor#PLATFORM}.
+ * @param containerType       опциональное свойство. Тип контейнера слушателя, для
+ *                            {@link RabbitListenerContainerType#DIRECT} кастомайзер -
+ *                            {@link DirectRabbitListenerContainerFactoryCustomizer}. По умолчанию
+ *                            {@link RabbitListenerContainerType#SIMPLE}.
+ * @param autoscaling         опциональные свойства автомасштабирования потребителей. Если заданы, начальное
+ *                            количество потребителей берётся из них, а {@code concurrentConsumers} и
+ *                            {@code maxConsumers} не используются.
+ * @param ack                 опциональные свойства накопительного подтверждения. Если не заданы, каждое сообщение
+ *                            подтверждается отдельно. Пакетный слушатель и так подтверждает пачку целиком, поэтому
+ *                            вместе с {@code batch} не задаются.
+ * @param payloadLog          опциональные свойства логирования тела полученных сообщений. По умолчанию тело
+ *                            логируется у каждого сообщения с обрезкой до 4096 байт.
+ * @param deduplication       опциональные свойства пропуска повторно доставленных сообщений по {@code messageId}.
+ *                            Если не заданы, повторы обрабатываются как обычные сообщения.
+ * @param keyed               опциональные свойства параллельной обработки с сохранением порядка по ключу. Требуют
+ *                            одного потребителя и несовместимы с {@code batch}, {@code ack} и {@code autoscaling}.
+ * @param conflation          опциональные свойства схлопывания ещё не обработанных сообщений одного ключа до
+ *                            последнего. Требуют одного потребителя и несовместимы с {@code batch}, {@code ack},
+ *                            {@code autoscaling} и {@code keyed}.
+ * @param filter              опциональные свойства фильтра по заголовкам. Отброшенные сообщения подтверждаются без
+ *                            разбора тела и не доходят до слушателя.
+ * @param exchangeType        опциональное свойство. Тип обменника. Для подписки на события задаётся
+ *                            {@link RabbitExchangeType#TOPIC}, а {@code queueName} у каждого подписчика свой.
+ *                            По умолчанию {@link RabbitExchangeType#DIRECT}.
+ * @param bindingKeys         опциональное свойство. Дополнительные ключи привязки очереди к обменнику помимо
+ *                            {@code routingKey}, например несколько шаблонов событий для одной очереди.
+ * @param trafficClass        опциональное свойство. Класс трафика из {@code connection-properties.traffic-classes}:
+ *                            потребитель слушателя работает на подключении класса. По умолчанию - основное
+ *                            подключение комплекта свойств.
  */
 @Validated
 public record RabbitListenerProperties(
@@ -25,7 +71,53 @@ public record RabbitListenerProperties(
         @NotBlank
         String routingKey,
 
-        String customizerName
+        String customizerName,
+
+        @Valid
+        RabbitRetryProperties retry,
+
+        @Valid
+        RabbitBatchProperties batch,
+
+        @Positive
+        Integer concurrentConsumers,
+
+        @Positive
+        Integer maxConsumers,
+
+        @Positive
+        Integer prefetch,
+
+        RabbitListenerExecutor executor,
+
+        RabbitListenerContainerType containerType,
+
+        @Valid
+        RabbitAutoscalingProperties autoscaling,
+
+        @Valid
+        RabbitAckProperties ack,
+
+        @Valid
+        RabbitPayloadLogProperties payloadLog,
+
+        @Valid
+        RabbitDeduplicationProperties deduplication,
+
+        @Valid
+        RabbitKeyedDispatchProperties keyed,
+
+        @Valid
+        RabbitConflationProperties conflation,
+
+        @Valid
+        RabbitMessageFilterProperties filter,
+
+        RabbitExchangeType exchangeType,
+
+        List<@NotBlank String> bindingKeys,
+
+        String trafficClass
 
 ) {
 }
@@ -0,0 +1,63 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства loopback-режима, в котором сообщения доставляются слушателям внутри процесса, без RabbitMQ.
+ * <p>Пример:
+ * <pre><code>
+ *     rabbitmq:
+ *       loopback:
+ *         enabled: true
+ *         queue-capacity: 10000
+ *         consumers: 4
+ *         latency: 2
+ *         failure-rate: 0.01
+ * </code></pre>
+ *
+ * @param enabled        включает loopback-режим. По умолчанию {@code false}.
+ * @param queueCapacity  ёмкость очереди каждого слушателя. По умолчанию 10000.
+ * @param consumers      количество потребителей каждой очереди. По умолчанию 1.
+ * @param latency        задержка каждой отправки, имитирующая сеть и брокер. По умолчанию без задержки.
+ * @param failureRate    доля отправок, завершающихся ошибкой, от 0 до 1. По умолчанию 0.
+ * @param publishTimeout сколько отправка ждёт места в заполненной очереди. По умолчанию 5 секунд.
+ * @param replyTimeout   сколько RPC отправка ждёт ответа. По умолчанию 5 секунд.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Validated
+@ConfigurationProperties(prefix = "rabbitmq.loopback")
+public record RabbitLoopbackProperties(
+
+        Boolean enabled,
+
+        @Positive
+        Integer queueCapacity,
+
+        @Positive
+        Integer consumers,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration latency,
+
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        Double failureRate,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration publishTimeout,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration replyTimeout
+
+) {
+}
@@ -0,0 +1,22 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Свойства фильтра сообщений слушателя по заголовкам. Сообщение доходит до слушателя, только если значение каждого
+ * заданного заголовка входит в список допустимых. Остальные сообщения подтверждаются без разбора тела.
+ *
+ * @param headers заголовок - допустимые значения. Сообщение без заголовка отбрасывается.
+ */
+@Validated
+public record RabbitMessageFilterProperties(
+
+        @NotEmpty
+        Map<String, @NotEmpty List<String>> headers
+
+) {
+}
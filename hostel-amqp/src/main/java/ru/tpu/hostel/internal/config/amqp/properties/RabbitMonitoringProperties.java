@@ -0,0 +1,45 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.DecimalMin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Свойства фонового мониторинга глубины очередей.
+ * <p>Пример:
+ * <pre><code>
+ *     rabbitmq:
+ *       monitoring:
+ *         enabled: true
+ *         min-interval: 5000
+ *         max-interval: 60000
+ * </code></pre>
+ *
+ * @param enabled      включает мониторинг. По умолчанию {@code false}.
+ * @param minInterval  период опроса, пока очереди меняются. По умолчанию 5 секунд.
+ * @param maxInterval  максимальный период опроса, до которого он растёт, пока очереди не меняются.
+ *                     По умолчанию 60 секунд.
+ * @param stableGrowth скорость изменения глубины (сообщений в секунду), ниже которой очередь считается стабильной.
+ *                     По умолчанию {@code 1}.
+ */
+@Validated
+@ConfigurationProperties(prefix = "rabbitmq.monitoring")
+public record RabbitMonitoringProperties(
+
+        Boolean enabled,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration minInterval,
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        Duration maxInterval,
+
+        @DecimalMin("0.0")
+        Double stableGrowth
+
+) {
+}
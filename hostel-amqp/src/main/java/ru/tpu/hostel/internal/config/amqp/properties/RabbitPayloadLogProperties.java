@@ -0,0 +1,29 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Свойства логирования тела полученных сообщений. Тело декодируется по content-type сообщения (текст и JSON как
+ * строка, остальное - только тип и размер) и только если лог уровня INFO включён. При ошибке обработки тело
+ * логируется всегда, независимо от выборки.
+ *
+ * @param sampleRate опциональное свойство. Доля сообщений, тело которых логируется при получении, от {@code 0} до
+ *                   {@code 1}. По умолчанию {@code 1}.
+ * @param maxBytes   опциональное свойство. Сколько байт тела логировать, остальное обрезается. По умолчанию
+ *                   {@code 4096}.
+ */
+@Validated
+public record RabbitPayloadLogProperties(
+
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        Double sampleRate,
+
+        @PositiveOrZero
+        Integer maxBytes
+
+) {
+}
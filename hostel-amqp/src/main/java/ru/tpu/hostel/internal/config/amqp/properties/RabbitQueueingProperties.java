@@ -10,6 +10,8 @@ import java.util.Map;
  *
  * @param listeners набор параметров для слушателя.
  * @param senders   набор параметров для отправителей.
+ * @param events    опциональный набор параметров публикуемых событий, ключ - имя события для
+ *                  {@link ru.tpu.hostel.internal.external.amqp.AmqpEventPublisher}.
  */
 @Validated
 public record RabbitQueueingProperties(
@@ -18,7 +20,10 @@ public record RabbitQueueingProperties(
         Map<String, RabbitListenerProperties> listeners,
 
         @Valid
-        Map<String, RabbitSenderProperties> senders
+        Map<String, RabbitSenderProperties> senders,
+
+        @Valid
+        Map<String, RabbitEventProperties> events
 
 ) {
 }
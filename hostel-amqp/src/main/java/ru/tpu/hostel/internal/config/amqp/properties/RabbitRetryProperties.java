@@ -0,0 +1,32 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.NotEmpty;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Свойства отложенных повторов обработки сообщения слушателем.
+ * <p>
+ * Для каждой задержки объявляется своя очередь повтора с TTL, по истечении которого сообщение возвращается в
+ * основную очередь. Количество попыток равно количеству задержек. После последней попытки сообщение уходит в
+ * parking-lot очередь.
+ *
+ * @param delays            задержки перед повторами по возрастанию, например {@code 1s, 10s, 1m}.
+ * @param parkingLotEnabled опциональное свойство. Отправлять ли сообщение в parking-lot очередь после исчерпания
+ *                          попыток. По умолчанию {@code true}, при {@code false} сообщение отбрасывается.
+ */
+@Validated
+public record RabbitRetryProperties(
+
+        @NotEmpty
+        @DurationUnit(ChronoUnit.MILLIS)
+        List<Duration> delays,
+
+        Boolean parkingLotEnabled
+
+) {
+}
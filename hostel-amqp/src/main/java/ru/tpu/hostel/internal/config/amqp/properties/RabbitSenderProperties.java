@@ -16,6 +16,9 @@ import ru.tpu.hostel.internal.config.amqp.customizer.RabbitTemplateCustomizer;
  * @param channelTransacted            задает транзакционность канала отправки сообщения.
  * @param rabbitTemplateCustomizerName опциональное свойство имени кастомного бина {@link RabbitTemplateCustomizer}
  * @param messagePropertiesBeanName    опциональное свойство имени кастомного бина {@link MessageProperties}
+ * @param trafficClass                 опциональное свойство. Класс трафика из
+ *                                     {@code connection-properties.traffic-classes}, через подключение которого
+ *                                     отправляются сообщения. По умолчанию - основное подключение комплекта свойств
  */
 @Validated
 public record RabbitSenderProperties(
@@ -34,7 +37,9 @@ public record RabbitSenderProperties(
 
         String rabbitTemplateCustomizerName,
 
-        String messagePropertiesBeanName
+        String messagePropertiesBeanName,
+
+        String trafficClass
 
 ) {
 }
@@ -0,0 +1,26 @@
+package ru.tpu.hostel.internal.config.amqp.properties;
+
+import jakarta.validation.constraints.Positive;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Свойства класса трафика. У каждого класса своё подключение к брокеру и свой пул каналов, поэтому медленная или
+ * массовая отправка одного класса не задерживает отправителей и слушателей другого.
+ *
+ * @param channelCacheSize опциональное свойство. Размер кэша каналов подключения класса. По умолчанию как у
+ *                         {@code CachingConnectionFactory} - {@code 25}.
+ * @param rateLimit        опциональное свойство. Сколько сообщений в секунду могут отправить отправители класса.
+ *                         Отправка сверх лимита ждёт своей очереди. Слушателей класса лимит не ограничивает.
+ *                         По умолчанию не ограничено.
+ */
+@Validated
+public record RabbitTrafficClassProperties(
+
+        @Positive
+        Integer channelCacheSize,
+
+        @Positive
+        Integer rateLimit
+
+) {
+}
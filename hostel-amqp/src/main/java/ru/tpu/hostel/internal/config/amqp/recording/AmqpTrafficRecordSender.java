@@ -0,0 +1,70 @@
+package ru.tpu.hostel.internal.config.amqp.recording;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import ru.tpu.hostel.internal.recording.TrafficRecord;
+import ru.tpu.hostel.internal.recording.TrafficRecordSender;
+import ru.tpu.hostel.internal.recording.TrafficReplayer;
+
+/**
+ * Отправка записанных AMQP сообщений при воспроизведении трафика {@link TrafficReplayer}. Сообщение публикуется в тот
+ * же обменник с тем же ключом маршрутизации, с которыми оно было получено, HTTP записи пропускаются.
+ * <p>
+ * Пример воспроизведения на стенде с тройной скоростью:
+ * <pre>{@code
+ * TrafficReplayReport report = new TrafficReplayer().replay(
+ *         Path.of("traffic.bin.gz"),
+ *         3,
+ *         256,
+ *         new AmqpTrafficRecordSender(stagingRabbitTemplate)
+ * );
+ * log.info(report.summary());
+ * }</pre>
+ * Время ответа для AMQP - время публикации, а не обработки: получатель не отвечает на обычные сообщения.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@RequiredArgsConstructor
+public class AmqpTrafficRecordSender implements TrafficRecordSender {
+
+    /**
+     * Заголовок записи с ID сообщения.
+     */
+    public static final String MESSAGE_ID_HEADER = "amqp.message-id";
+
+    /**
+     * Заголовок записи с типом сообщения.
+     */
+    public static final String TYPE_HEADER = "amqp.type";
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Override
+    public boolean send(TrafficRecord trafficRecord) {
+        if (trafficRecord.kind() != TrafficRecord.Kind.AMQP) {
+            return true;
+        }
+
+        int separator = trafficRecord.target().indexOf('/');
+        String exchange = trafficRecord.target().substring(0, separator);
+        String routingKey = trafficRecord.target().substring(separator + 1);
+
+        MessageProperties messageProperties = new MessageProperties();
+        trafficRecord.headers().forEach((name, value) -> {
+            switch (name) {
+                case MESSAGE_ID_HEADER -> messageProperties.setMessageId(value);
+                case TYPE_HEADER -> messageProperties.setType(value);
+                default -> messageProperties.setHeader(name, value);
+            }
+        });
+        messageProperties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+
+        rabbitTemplate.send(exchange, routingKey, new Message(trafficRecord.payload(), messageProperties));
+        return true;
+    }
+
+}
@@ -0,0 +1,53 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Заголовки сообщения из parking-lot очереди без тела.
+ *
+ * @param messageId        ID сообщения.
+ * @param messageType      тип сообщения.
+ * @param originalQueue    очередь, из которой сообщение было получено в первый раз.
+ * @param retryCount       количество сделанных повторов.
+ * @param exceptionType    класс последней ошибки.
+ * @param exceptionMessage сообщение последней ошибки.
+ * @param failedAt         время последней ошибки, миллисекунды.
+ * @param bodySize         размер тела, байт.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record ParkedMessage(
+        String messageId,
+        String messageType,
+        String originalQueue,
+        Long retryCount,
+        String exceptionType,
+        String exceptionMessage,
+        Long failedAt,
+        int bodySize
+) {
+
+    static ParkedMessage from(MessageProperties properties, int bodySize) {
+        return new ParkedMessage(
+                properties.getMessageId(),
+                properties.getType(),
+                header(properties, RetryHeaders.ORIGINAL_QUEUE),
+                number(properties, RetryHeaders.RETRY_COUNT),
+                header(properties, RetryHeaders.EXCEPTION_TYPE),
+                header(properties, RetryHeaders.EXCEPTION_MESSAGE),
+                number(properties, RetryHeaders.FAILED_AT),
+                bodySize
+        );
+    }
+
+    private static String header(MessageProperties properties, String name) {
+        Object value = properties.getHeaders().get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static Long number(MessageProperties properties, String name) {
+        return properties.getHeaders().get(name) instanceof Number number ? number.longValue() : null;
+    }
+
+}
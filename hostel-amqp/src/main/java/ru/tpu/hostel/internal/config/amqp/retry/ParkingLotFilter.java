@@ -0,0 +1,62 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Set;
+
+/**
+ * Фильтр сообщений parking-lot очереди. Незаданные ({@code null}) условия не проверяются.
+ *
+ * @param messageType   тип сообщения ({@link MessageProperties#getType()}).
+ * @param exceptionType класс ошибки или его простое имя из заголовка {@link RetryHeaders#EXCEPTION_TYPE}.
+ * @param failedAfter   нижняя граница времени ошибки, миллисекунды.
+ * @param failedBefore  верхняя граница времени ошибки, миллисекунды.
+ * @param messageIds    ID выбранных сообщений.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record ParkingLotFilter(
+        String messageType,
+        String exceptionType,
+        Long failedAfter,
+        Long failedBefore,
+        Set<String> messageIds
+) {
+
+    /**
+     * Фильтр, которому подходят все сообщения.
+     */
+    public static final ParkingLotFilter ALL = new ParkingLotFilter(null, null, null, null, null);
+
+    /**
+     * Проверяет сообщение по заголовкам.
+     *
+     * @param properties свойства сообщения.
+     * @return подходит ли сообщение.
+     */
+    public boolean matches(MessageProperties properties) {
+        if (messageType != null && !messageType.equalsIgnoreCase(properties.getType())) {
+            return false;
+        }
+        if (exceptionType != null) {
+            String type = String.valueOf(properties.getHeaders().get(RetryHeaders.EXCEPTION_TYPE));
+            if (!type.equals(exceptionType) && !type.endsWith("." + exceptionType)) {
+                return false;
+            }
+        }
+        if (failedAfter != null || failedBefore != null) {
+            if (!(properties.getHeaders().get(RetryHeaders.FAILED_AT) instanceof Number failedAt)) {
+                return false;
+            }
+            if (failedAfter != null && failedAt.longValue() < failedAfter) {
+                return false;
+            }
+            if (failedBefore != null && failedAt.longValue() > failedBefore) {
+                return false;
+            }
+        }
+        return messageIds == null || messageIds.isEmpty() || messageIds.contains(properties.getMessageId());
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Actuator эндпоинт parking-lot очередей:
+ * <ul>
+ * <li>{@code GET /actuator/rabbitparkinglot} - глубина parking-lot очереди каждого слушателя с повторами;</li>
+ * <li>{@code GET /actuator/rabbitparkinglot/{listener}?type=&exceptionType=&failedAfter=&failedBefore=&offset=&limit=}
+ * - страница заголовков сообщений;</li>
+ * <li>{@code POST /actuator/rabbitparkinglot/{listener}} с теми же фильтрами, {@code messageIds} (через запятую),
+ * {@code batchSize} и {@code ratePerSecond} - повторная отправка в исходную очередь.</li>
+ * </ul>
+ * Время в фильтрах - миллисекунды.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitParkingLotManager
+ * @since 2.0.0
+ */
+@Endpoint(id = "rabbitparkinglot")
+@RequiredArgsConstructor
+public class RabbitParkingLotEndpoint {
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final int DEFAULT_RATE_PER_SECOND = 500;
+
+    private final RabbitParkingLotManager parkingLotManager;
+
+    private final RabbitListenerLocator listenerLocator;
+
+    @ReadOperation
+    public Map<String, Long> depths() {
+        Map<String, Long> depths = new LinkedHashMap<>();
+        listenerLocator.getAll().stream()
+                .filter(listener -> listener.listenerProperties().retry() != null)
+                .map(RabbitListenerLocator::fullName)
+                .forEach(name -> depths.put(name, parkingLotManager.depth(name)));
+        return depths;
+    }
+
+    @ReadOperation
+    public List<ParkedMessage> browse(
+            @Selector String listener,
+            @Nullable String type,
+            @Nullable String exceptionType,
+            @Nullable Long failedAfter,
+            @Nullable Long failedBefore,
+            @Nullable Integer offset,
+            @Nullable Integer limit
+    ) {
+        return parkingLotManager.browse(
+                listener,
+                new ParkingLotFilter(type, exceptionType, failedAfter, failedBefore, null),
+                offset == null ? 0 : offset,
+                limit == null ? DEFAULT_PAGE_SIZE : limit
+        );
+    }
+
+    @WriteOperation
+    public ReplayResult replay(
+            @Selector String listener,
+            @Nullable String type,
+            @Nullable String exceptionType,
+            @Nullable Long failedAfter,
+            @Nullable Long failedBefore,
+            @Nullable String messageIds,
+            @Nullable Integer batchSize,
+            @Nullable Integer ratePerSecond
+    ) {
+        Set<String> ids = messageIds == null
+                ? null
+                : Arrays.stream(messageIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toSet());
+        return parkingLotManager.replay(
+                listener,
+                new ParkingLotFilter(type, exceptionType, failedAfter, failedBefore, ids),
+                batchSize == null ? DEFAULT_BATCH_SIZE : batchSize,
+                ratePerSecond == null ? DEFAULT_RATE_PER_SECOND : ratePerSecond
+        );
+    }
+
+}
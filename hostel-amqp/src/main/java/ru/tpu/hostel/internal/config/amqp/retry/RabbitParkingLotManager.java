@@ -0,0 +1,243 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerDescriptor;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Просмотр и повторная отправка сообщений из parking-lot очередей слушателей.
+ * <p>
+ * Обе операции работают на отдельном канале и обрабатывают сообщения по одному, поэтому память не зависит от
+ * глубины очереди:
+ * <ul>
+ * <li>{@link #browse(String, ParkingLotFilter, int, int)} забирает сообщения без подтверждения и возвращает только
+ * заголовки. При закрытии канала брокер возвращает все просмотренные сообщения в очередь. Parking-lot очередь
+ * классическая, поэтому возврат не приближает сообщение к удалению по лимиту доставок;</li>
+ * <li>{@link #replay(String, ParkingLotFilter, int, int)} проходит очередь один раз. Подходящие под фильтр
+ * сообщения отправляются в исходную очередь со сброшенным счётчиком повторов, остальные переставляются в конец
+ * parking-lot очереди. Сообщения подтверждаются пачками после publisher confirms, между пачками выдерживается
+ * заданная скорость.</li>
+ * </ul>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitRetryTopology
+ * @since 2.0.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RabbitParkingLotManager {
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final long CONFIRM_TIMEOUT_MILLIS = 30_000;
+
+    private static final String REPLAY_FINISHED
+            = "[RABBIT] Повторная отправка из {} завершена: просмотрено {}, отправлено {}, пропущено {}";
+
+    private static final String REPLAY_INTERRUPTED
+            = "[RABBIT] Повторная отправка из {} прервана: просмотрено {}, отправлено {}, пропущено {}";
+
+    private final RabbitListenerLocator listenerLocator;
+
+    /**
+     * Возвращает количество сообщений в parking-lot очереди слушателя.
+     *
+     * @param listenerName имя слушателя.
+     * @return количество сообщений.
+     */
+    public long depth(@NotNull String listenerName) {
+        RabbitListenerDescriptor listener = getListener(listenerName);
+        try (Channel channel = openChannel(listener)) {
+            return channel.messageCount(RabbitRetryTopology.parkingLotQueue(listener.listenerProperties()));
+        } catch (IOException | TimeoutException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+    }
+
+    /**
+     * Возвращает страницу заголовков сообщений parking-lot очереди, подходящих под фильтр.
+     *
+     * @param listenerName имя слушателя.
+     * @param filter       фильтр сообщений.
+     * @param offset       сколько подходящих сообщений пропустить.
+     * @param limit        максимальный размер страницы.
+     * @return заголовки сообщений в порядке очереди.
+     */
+    @NotNull
+    public List<ParkedMessage> browse(
+            @NotNull String listenerName,
+            @NotNull ParkingLotFilter filter,
+            int offset,
+            int limit
+    ) {
+        RabbitListenerDescriptor listener = getListener(listenerName);
+        String parkingLot = RabbitRetryTopology.parkingLotQueue(listener.listenerProperties());
+        List<ParkedMessage> page = new ArrayList<>();
+
+        // Сообщения не подтверждаются: закрытие канала возвращает их в очередь
+        try (Channel channel = openChannel(listener)) {
+            long depth = channel.messageCount(parkingLot);
+            int matched = 0;
+            for (long i = 0; i < depth && page.size() < limit; i++) {
+                GetResponse response = channel.basicGet(parkingLot, false);
+                if (response == null) {
+                    break;
+                }
+                MessageProperties properties = toMessageProperties(response);
+                if (filter.matches(properties) && matched++ >= offset) {
+                    page.add(ParkedMessage.from(properties, response.getBody().length));
+                }
+            }
+        } catch (IOException | TimeoutException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+        return page;
+    }
+
+    /**
+     * Отправляет подходящие под фильтр сообщения parking-lot очереди обратно в исходную очередь.
+     *
+     * @param listenerName  имя слушателя.
+     * @param filter        фильтр сообщений.
+     * @param batchSize     размер пачки, после которой ждём подтверждений брокера и подтверждаем сообщения.
+     * @param ratePerSecond максимальное количество обрабатываемых сообщений в секунду, {@code 0} - без ограничения.
+     * @return результат отправки. Если поток прерван, отправка останавливается, флаг прерывания восстанавливается, а
+     * результат помечается незавершённым.
+     */
+    @NotNull
+    public ReplayResult replay(
+            @NotNull String listenerName,
+            @NotNull ParkingLotFilter filter,
+            int batchSize,
+            int ratePerSecond
+    ) {
+        RabbitListenerDescriptor listener = getListener(listenerName);
+        String parkingLot = RabbitRetryTopology.parkingLotQueue(listener.listenerProperties());
+        int batch = Math.max(batchSize, 1);
+        long batchNanos = ratePerSecond > 0 ? batch * 1_000_000_000L / ratePerSecond : 0;
+
+        long scanned = 0;
+        long replayed = 0;
+        long skipped = 0;
+        boolean complete = true;
+        try (Channel channel = openChannel(listener)) {
+            channel.confirmSelect();
+            long depth = channel.messageCount(parkingLot);
+            long lastDeliveryTag = -1;
+            int inBatch = 0;
+            long batchStart = System.nanoTime();
+
+            while (scanned < depth) {
+                GetResponse response = channel.basicGet(parkingLot, false);
+                if (response == null) {
+                    break;
+                }
+                scanned++;
+                MessageProperties properties = toMessageProperties(response);
+                if (filter.matches(properties)) {
+                    String originalQueue = getOriginalQueue(properties, listener);
+                    resetRetryHeaders(properties);
+                    channel.basicPublish(
+                            "",
+                            originalQueue,
+                            PROPERTIES_CONVERTER.fromMessageProperties(properties, StandardCharsets.UTF_8.name()),
+                            response.getBody()
+                    );
+                    replayed++;
+                } else {
+                    channel.basicPublish("", parkingLot, response.getProps(), response.getBody());
+                    skipped++;
+                }
+                lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+
+                if (++inBatch >= batch) {
+                    flush(channel, lastDeliveryTag);
+                    inBatch = 0;
+                    batchStart = throttle(batchStart, batchNanos);
+                }
+            }
+            if (inBatch > 0) {
+                flush(channel, lastDeliveryTag);
+            }
+        } catch (IOException | TimeoutException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete = false;
+        }
+
+        if (complete) {
+            log.info(REPLAY_FINISHED, parkingLot, scanned, replayed, skipped);
+        } else {
+            log.warn(REPLAY_INTERRUPTED, parkingLot, scanned, replayed, skipped);
+        }
+        return new ReplayResult(scanned, replayed, skipped, complete);
+    }
+
+    private RabbitListenerDescriptor getListener(String listenerName) {
+        RabbitListenerDescriptor listener = listenerLocator.get(listenerName);
+        if (listener.listenerProperties().retry() == null) {
+            throw new IllegalArgumentException("Для слушателя " + listenerName + " не настроены повторы");
+        }
+        return listener;
+    }
+
+    private Channel openChannel(RabbitListenerDescriptor listener) throws IOException {
+        return listener.connectionFactory()
+                .createConnection()
+                .getDelegate()
+                .createChannel();
+    }
+
+    private void flush(Channel channel, long lastDeliveryTag)
+            throws IOException, InterruptedException, TimeoutException {
+        channel.waitForConfirmsOrDie(CONFIRM_TIMEOUT_MILLIS);
+        channel.basicAck(lastDeliveryTag, true);
+    }
+
+    private long throttle(long batchStart, long batchNanos) throws InterruptedException {
+        long elapsed = System.nanoTime() - batchStart;
+        if (batchNanos > elapsed) {
+            Thread.sleep((batchNanos - elapsed) / 1_000_000);
+        }
+        return System.nanoTime();
+    }
+
+    private MessageProperties toMessageProperties(GetResponse response) {
+        return PROPERTIES_CONVERTER.toMessageProperties(
+                response.getProps(),
+                response.getEnvelope(),
+                StandardCharsets.UTF_8.name()
+        );
+    }
+
+    private String getOriginalQueue(MessageProperties properties, RabbitListenerDescriptor listener) {
+        Object originalQueue = properties.getHeaders().get(RetryHeaders.ORIGINAL_QUEUE);
+        return originalQueue == null
+                ? listener.listenerProperties().queueName()
+                : originalQueue.toString();
+    }
+
+    private void resetRetryHeaders(MessageProperties properties) {
+        properties.getHeaders().remove(RetryHeaders.RETRY_COUNT);
+        properties.getHeaders().remove(RetryHeaders.EXCEPTION_TYPE);
+        properties.getHeaders().remove(RetryHeaders.EXCEPTION_MESSAGE);
+        properties.getHeaders().remove(RetryHeaders.FAILED_AT);
+    }
+
+}
@@ -0,0 +1,222 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ReturnListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Интерцептор отложенных повторов. Ставится в цепочку советов фабрики слушателя перед
+ * {@link ru.tpu.hostel.internal.config.amqp.tracing.interceptor.AmqpMessageReceiveInterceptor}.
+ * <p>
+ * Если слушатель выбросил исключение, сообщение публикуется в очередь повтора следующей попытки (или в
+ * parking-lot, если попытки исчерпаны) через отдельный канал подключения потребителя с publisher confirms и флагом
+ * {@code mandatory}. Только после подтверждения брокера исключение поглощается - исходное сообщение
+ * подтверждается, и потребитель сразу берёт следующее. Если брокер отклонил публикацию, не смог её маршрутизировать
+ * или не подтвердил вовремя, исключение пробрасывается, и контейнер отклоняет исходное сообщение. Ожидание задержки
+ * происходит в брокере за счёт TTL очереди повтора, а не в потоке потребителя. У пакетного слушателя при ошибке на
+ * повтор уходит вся пачка.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see RabbitRetryTopology
+ * @see RetryHeaders
+ * @since 2.0.0
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RabbitRetryInterceptor implements MethodInterceptor {
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final String RETRY_SCHEDULED
+            = "[RABBIT] Сообщение отправлено на повтор {} из {} через {} мс: messageId={}";
+
+    private static final String MESSAGE_PARKED
+            = "[RABBIT] Попытки обработки исчерпаны, сообщение отправлено в {}: messageId={}";
+
+    private static final String RETRY_PUBLISH_EXCEPTION
+            = "[RABBIT] Не удалось отправить сообщения на повтор из очереди {}: {}";
+
+    private static final String RETRY_UNROUTABLE
+            = "[RABBIT] Сообщение на повтор не маршрутизировано в {}: messageId={}";
+
+    private static final long CONFIRM_TIMEOUT_MILLIS = 30_000;
+
+    private final RabbitListenerProperties listenerProperties;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object[] arguments = invocation.getArguments();
+        if (arguments.length < 2 || !(arguments[0] instanceof Channel channel)) {
+            return invocation.proceed();
+        }
+        if (arguments[1] instanceof Message message) {
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                if (!republish(channel, List.of(message), e)) {
+                    throw e;
+                }
+                return null;
+            }
+        }
+        if (arguments[1] instanceof List<?> batch) {
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                // Пачка обрабатывается целиком, поэтому на повтор уходит каждое её сообщение
+                List<Message> messages = new ArrayList<>(batch.size());
+                for (Object message : batch) {
+                    if (!(message instanceof Message batchMessage)) {
+                        throw e;
+                    }
+                    messages.add(batchMessage);
+                }
+                if (!republish(channel, messages, e)) {
+                    throw e;
+                }
+                return null;
+            }
+        }
+        return invocation.proceed();
+    }
+
+    /**
+     * Публикует сообщения на повтор одним подтверждением брокера. Канал потребителя для этого не подходит: перевод
+     * его в режим подтверждений смешал бы их с подтверждениями фабрики подключений.
+     *
+     * @return {@code true}, если брокер подтвердил и маршрутизировал все сообщения.
+     */
+    private boolean republish(Channel consumerChannel, List<Message> messages, Throwable error) {
+        List<String> routingKeys = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            String routingKey = prepare(listenerProperties, message, error);
+            if (routingKey == null) {
+                return false;
+            }
+            routingKeys.add(routingKey);
+        }
+
+        AtomicBoolean returned = new AtomicBoolean();
+        ReturnListener returnListener = (replyCode, replyText, exchange, routingKey, properties, body) -> {
+            returned.set(true);
+            log.error(RETRY_UNROUTABLE, routingKey, properties.getMessageId());
+        };
+        try (Channel channel = consumerChannel.getConnection().createChannel()) {
+            channel.addReturnListener(returnListener);
+            channel.confirmSelect();
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                AMQP.BasicProperties basicProperties = PROPERTIES_CONVERTER.fromMessageProperties(
+                        message.getMessageProperties(),
+                        StandardCharsets.UTF_8.name()
+                );
+                channel.basicPublish(
+                        RabbitRetryTopology.retryExchange(listenerProperties),
+                        routingKeys.get(i),
+                        true,
+                        basicProperties,
+                        message.getBody()
+                );
+            }
+            // Возврат немаршрутизированного сообщения приходит раньше подтверждения
+            if (!channel.waitForConfirms(CONFIRM_TIMEOUT_MILLIS) || returned.get()) {
+                return false;
+            }
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            log.error(RETRY_PUBLISH_EXCEPTION, listenerProperties.queueName(), e.getMessage(), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        for (int i = 0; i < messages.size(); i++) {
+            logRepublished(messages.get(i).getMessageProperties(), routingKeys.get(i));
+        }
+        return true;
+    }
+
+    /**
+     * Проставляет заголовки повтора. Используется и брокером loopback-режима, у которого нет канала для повторной
+     * публикации.
+     *
+     * @param listenerProperties свойства слушателя с повторами.
+     * @param message            упавшее сообщение.
+     * @param error              ошибка обработки.
+     * @return очередь повтора или parking-lot, {@code null} - попытки исчерпаны, а parking-lot выключен.
+     */
+    public static String prepare(RabbitListenerProperties listenerProperties, Message message, Throwable error) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        Object retryCount = messageProperties.getHeader(RetryHeaders.RETRY_COUNT);
+        int attempt = retryCount instanceof Number number ? number.intValue() + 1 : 1;
+        int maxAttempts = listenerProperties.retry().delays().size();
+        boolean parkingLotEnabled = !Boolean.FALSE.equals(listenerProperties.retry().parkingLotEnabled());
+
+        String routingKey;
+        if (attempt <= maxAttempts) {
+            routingKey = RabbitRetryTopology.retryQueue(listenerProperties, attempt);
+        } else if (parkingLotEnabled) {
+            routingKey = RabbitRetryTopology.parkingLotQueue(listenerProperties);
+        } else {
+            return null;
+        }
+
+        if (messageProperties.getHeader(RetryHeaders.ORIGINAL_QUEUE) == null) {
+            messageProperties.setHeader(RetryHeaders.ORIGINAL_QUEUE, messageProperties.getConsumerQueue());
+        }
+        messageProperties.setHeader(RetryHeaders.RETRY_COUNT, (long) Math.min(attempt, maxAttempts));
+        Throwable cause = listenerCause(error);
+        messageProperties.setHeader(RetryHeaders.EXCEPTION_TYPE, cause.getClass().getName());
+        messageProperties.setHeader(RetryHeaders.EXCEPTION_MESSAGE, String.valueOf(cause.getMessage()));
+        messageProperties.setHeader(RetryHeaders.FAILED_AT, System.currentTimeMillis());
+        return routingKey;
+    }
+
+    private void logRepublished(MessageProperties messageProperties, String routingKey) {
+        Object retryCount = messageProperties.getHeader(RetryHeaders.RETRY_COUNT);
+        int attempt = retryCount instanceof Number number ? number.intValue() : 0;
+        int maxAttempts = listenerProperties.retry().delays().size();
+        if (!routingKey.equals(RabbitRetryTopology.parkingLotQueue(listenerProperties))) {
+            log.warn(
+                    RETRY_SCHEDULED,
+                    attempt,
+                    maxAttempts,
+                    listenerProperties.retry().delays().get(attempt - 1).toMillis(),
+                    messageProperties.getMessageId()
+            );
+        } else {
+            log.error(MESSAGE_PARKED, routingKey, messageProperties.getMessageId());
+        }
+    }
+
+    /**
+     * Контейнер оборачивает исключение слушателя в {@link ListenerExecutionFailedException}. В заголовки пишется
+     * исключение самого слушателя, чтобы по типу можно было фильтровать parking-lot.
+     */
+    private static Throwable listenerCause(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof ListenerExecutionFailedException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+}
@@ -0,0 +1,110 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitListenerProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitRetryProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Имена и объявление топологии отложенных повторов слушателя.
+ * <p>
+ * Для очереди {@code queue} и обменника {@code exchange} объявляются:
+ * <ul>
+ * <li>обменник повторов {@code exchange.retry} (direct);</li>
+ * <li>очереди повторов {@code queue.retry.1 ... queue.retry.N} с TTL, равным задержке попытки. По истечении TTL
+ * сообщение через обменник по умолчанию возвращается только в исходную очередь {@code queue};</li>
+ * <li>parking-lot очередь {@code queue.parking-lot}. Очередь классическая, а не quorum: просмотр
+ * {@link RabbitParkingLotManager} возвращает сообщения в очередь, и у quorum очереди каждый возврат увеличивал бы
+ * счётчик доставок. После {@code delivery-limit} (в RabbitMQ 4 по умолчанию 20) сообщение удалялось бы, а
+ * dead-letter обменника у parking-lot нет.</li>
+ * </ul>
+ * Все очереди привязаны к обменнику повторов ключом, совпадающим с именем очереди.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@UtilityClass
+public class RabbitRetryTopology {
+
+    private static final String RETRY_POSTFIX = ".retry";
+
+    private static final String PARKING_LOT_POSTFIX = ".parking-lot";
+
+    /**
+     * Возвращает имя обменника повторов.
+     *
+     * @param listenerProperties свойства слушателя.
+     * @return имя обменника повторов.
+     */
+    public static String retryExchange(RabbitListenerProperties listenerProperties) {
+        return listenerProperties.exchangeName() + RETRY_POSTFIX;
+    }
+
+    /**
+     * Возвращает имя очереди повтора. Оно же ключ маршрутизации в обменнике повторов.
+     *
+     * @param listenerProperties свойства слушателя.
+     * @param attempt            номер попытки, начиная с 1.
+     * @return имя очереди повтора.
+     */
+    public static String retryQueue(RabbitListenerProperties listenerProperties, int attempt) {
+        return listenerProperties.queueName() + RETRY_POSTFIX + "." + attempt;
+    }
+
+    /**
+     * Возвращает имя parking-lot очереди. Оно же ключ маршрутизации в обменнике повторов.
+     *
+     * @param listenerProperties свойства слушателя.
+     * @return имя parking-lot очереди.
+     */
+    public static String parkingLotQueue(RabbitListenerProperties listenerProperties) {
+        return listenerProperties.queueName() + PARKING_LOT_POSTFIX;
+    }
+
+    /**
+     * Объявляет обменник, очереди повторов и parking-lot очередь слушателя. Ничего не делает, если повторы
+     * не настроены.
+     *
+     * @param rabbitAdmin        админ подключения слушателя.
+     * @param listenerProperties свойства слушателя.
+     */
+    public static void declare(RabbitAdmin rabbitAdmin, RabbitListenerProperties listenerProperties) {
+        RabbitRetryProperties retryProperties = listenerProperties.retry();
+        if (retryProperties == null) {
+            return;
+        }
+
+        DirectExchange retryExchange = new DirectExchange(retryExchange(listenerProperties));
+        rabbitAdmin.declareExchange(retryExchange);
+
+        List<Duration> delays = retryProperties.delays();
+        for (int attempt = 1; attempt <= delays.size(); attempt++) {
+            String queueName = retryQueue(listenerProperties, attempt);
+            Queue queue = QueueBuilder.durable(queueName)
+                    .quorum()
+                    .ttl((int) delays.get(attempt - 1).toMillis())
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(listenerProperties.queueName())
+                    .build();
+            rabbitAdmin.declareQueue(queue);
+            rabbitAdmin.declareBinding(BindingBuilder.bind(queue).to(retryExchange).with(queueName));
+        }
+
+        if (!Boolean.FALSE.equals(retryProperties.parkingLotEnabled())) {
+            String parkingLotName = parkingLotQueue(listenerProperties);
+            // Классическая очередь: у quorum возвраты при просмотре исчерпали бы лимит доставок
+            Queue parkingLot = QueueBuilder.durable(parkingLotName).build();
+            rabbitAdmin.declareQueue(parkingLot);
+            rabbitAdmin.declareBinding(BindingBuilder.bind(parkingLot).to(retryExchange).with(parkingLotName));
+        }
+    }
+
+}
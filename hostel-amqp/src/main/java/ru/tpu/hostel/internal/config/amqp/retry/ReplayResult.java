@@ -0,0 +1,21 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+/**
+ * Результат повторной отправки сообщений из parking-lot очереди.
+ *
+ * @param scanned  сколько сообщений просмотрено.
+ * @param replayed сколько сообщений отправлено в исходную очередь.
+ * @param skipped  сколько сообщений не подошло под фильтр и осталось в parking-lot очереди.
+ * @param complete пройдена ли очередь до конца. {@code false}, если отправка прервана: сообщения последней
+ *                 неподтверждённой пачки вернулись в parking-lot очередь, даже если уже отправлены в исходную.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record ReplayResult(
+        long scanned,
+        long replayed,
+        long skipped,
+        boolean complete
+) {
+}
@@ -0,0 +1,40 @@
+package ru.tpu.hostel.internal.config.amqp.retry;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Заголовки, которые {@link RabbitRetryInterceptor} добавляет к сообщению при отправке на повтор или в parking-lot.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@UtilityClass
+public class RetryHeaders {
+
+    /**
+     * Количество уже сделанных повторов.
+     */
+    public static final String RETRY_COUNT = "X-Retry-Count";
+
+    /**
+     * Очередь, из которой сообщение было получено в первый раз.
+     */
+    public static final String ORIGINAL_QUEUE = "X-Original-Queue";
+
+    /**
+     * Сообщение последней ошибки обработки.
+     */
+    public static final String EXCEPTION_MESSAGE = "X-Exception-Message";
+
+    /**
+     * Класс последней ошибки обработки.
+     */
+    public static final String EXCEPTION_TYPE = "X-Exception-Type";
+
+    /**
+     * Время последней ошибки обработки в миллисекундах.
+     */
+    public static final String FAILED_AT = "X-Failed-At";
+
+}
@@ -0,0 +1,123 @@
+package ru.tpu.hostel.internal.config.amqp.rpc;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerContainerFactoryRegistrar;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerDescriptor;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+import ru.tpu.hostel.internal.external.amqp.AmqpMessageSender;
+import ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Находит методы с {@link AmqpRpcEndpoint} во всех бинах и регистрирует для каждого слушателя из свойств контейнер
+ * его фабрики с {@link AmqpRpcListener}. Контейнеры регистрируются вместе с контейнерами {@code @RabbitListener} и
+ * работают в loopback-режиме. Цепочка советов фабрики (трассировка, повторы, дедупликация) охватывает только приём
+ * запроса: запрос подтверждается при передаче обработчику, а ошибка обработчика отправляется клиенту ответом.
+ * <p>
+ * Бины, от которых зависит обработка, берутся из контекста только при регистрации контейнеров, чтобы не создавать
+ * их раньше постпроцессоров.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class AmqpRpcEndpointProcessor
+        implements BeanPostProcessor, RabbitListenerConfigurer, BeanFactoryAware, DisposableBean {
+
+    private final Map<String, List<AmqpRpcHandler>> handlers = new LinkedHashMap<>();
+
+    private final List<AmqpRpcListener> listeners = new ArrayList<>();
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(@NotNull BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NotNull Object bean, @NotNull String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (!AnnotationUtils.isCandidateClass(targetClass, AmqpRpcEndpoint.class)) {
+            return bean;
+        }
+
+        Map<Method, AmqpRpcEndpoint> endpoints = MethodIntrospector.selectMethods(
+                targetClass,
+                (MethodIntrospector.MetadataLookup<AmqpRpcEndpoint>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, AmqpRpcEndpoint.class)
+        );
+        endpoints.forEach((method, endpoint) ->
+                handlers.computeIfAbsent(endpoint.listener(), _ -> new ArrayList<>())
+                        .add(new AmqpRpcHandler(
+                                bean,
+                                AopUtils.selectInvocableMethod(method, bean.getClass()),
+                                endpoint
+                        ))
+        );
+        return bean;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        RabbitListenerLocator listenerLocator = beanFactory.getBean(RabbitListenerLocator.class);
+        AmqpMessageSender amqpMessageSender = beanFactory.getBean(AmqpMessageSender.class);
+        OpenTelemetry openTelemetry = beanFactory.getBean(OpenTelemetry.class);
+
+        handlers.forEach((listenerName, listenerHandlers) -> {
+            RabbitListenerDescriptor listener = listenerLocator.get(listenerName);
+            String fullName = RabbitListenerLocator.fullName(listener);
+            if (listener.listenerProperties().batch() != null) {
+                throw new IllegalArgumentException("@AmqpRpcEndpoint не поддерживает пакетного слушателя: " + fullName);
+            }
+
+            AmqpRpcListener rpcListener = new AmqpRpcListener(
+                    fullName,
+                    listenerHandlers,
+                    amqpMessageSender,
+                    openTelemetry
+            );
+            listeners.add(rpcListener);
+
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("amqpRpc." + fullName);
+            endpoint.setQueueNames(listener.listenerProperties().queueName());
+            endpoint.setMessageListener(rpcListener);
+            registrar.registerEndpoint(endpoint, beanFactory.getBean(
+                    RabbitListenerContainerFactoryRegistrar.listenerBeanName(
+                            listener.microservice(),
+                            listener.propertiesName(),
+                            listener.listenerKey()
+                    ),
+                    RabbitListenerContainerFactory.class
+            ));
+        });
+    }
+
+    @Override
+    public void destroy() {
+        listeners.forEach(AmqpRpcListener::close);
+    }
+
+}
@@ -0,0 +1,199 @@
+package ru.tpu.hostel.internal.config.amqp.rpc;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Getter;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint;
+import ru.tpu.hostel.internal.utils.TimeUtil;
+
+import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ID_HEADER;
+import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ROLES_HEADER;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Метод с {@link AmqpRpcEndpoint}: вызов с десериализацией запроса, ограничение одновременных вызовов и кэш
+ * ответов.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+final class AmqpRpcHandler {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+            .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+            .setTimeZone(TimeUtil.getTimeZone())
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final Object bean;
+
+    private final Method method;
+
+    @Getter
+    private final String type;
+
+    @Getter
+    private final Enum<?> replyType;
+
+    @Getter
+    private final Semaphore permits;
+
+    private final JavaType payloadType;
+
+    private final boolean withProperties;
+
+    private final long cacheTtlMillis;
+
+    private final int cacheSize;
+
+    /**
+     * Ключ - тело запроса и заголовки пользователя, иначе один пользователь получил бы закэшированный ответ другому.
+     */
+    private final Map<CacheKey, CachedReply> cache;
+
+    /**
+     * @param bean     бин с методом.
+     * @param method   вызываемый метод бина.
+     * @param endpoint аннотация метода.
+     * @throws IllegalArgumentException если сигнатура метода или параметры аннотации некорректны.
+     */
+    AmqpRpcHandler(Object bean, Method method, AmqpRpcEndpoint endpoint) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length > 2
+                || parameterTypes.length == 1 && parameterTypes[0] == MessageProperties.class
+                || parameterTypes.length == 2 && parameterTypes[1] != MessageProperties.class
+                || endpoint.concurrency() < 1) {
+            throw new IllegalArgumentException("Метод " + method + " с @AmqpRpcEndpoint должен принимать тело "
+                    + "запроса и, опционально, MessageProperties, а concurrency должно быть больше 0");
+        }
+        if (parameterTypes.length == 2 && StringUtils.hasText(endpoint.cacheTtl())) {
+            throw new IllegalArgumentException("Метод " + method + " с @AmqpRpcEndpoint принимает MessageProperties, "
+                    + "его ответ может зависеть не только от тела запроса, поэтому cacheTtl для него не задаётся");
+        }
+        ReflectionUtils.makeAccessible(method);
+        this.bean = bean;
+        this.method = method;
+        this.type = endpoint.type();
+        this.replyType = getReplyType(endpoint);
+        this.permits = new Semaphore(endpoint.concurrency());
+        this.payloadType = parameterTypes.length == 0
+                ? null
+                : MAPPER.getTypeFactory().constructType(method.getGenericParameterTypes()[0]);
+        this.withProperties = parameterTypes.length == 2;
+        this.cacheTtlMillis = StringUtils.hasText(endpoint.cacheTtl())
+                ? DurationStyle.detectAndParse(endpoint.cacheTtl()).toMillis()
+                : 0;
+        this.cacheSize = endpoint.cacheSize();
+        this.cache = cacheTtlMillis > 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Вызывает метод. Исключение метода пробрасывается как есть, без обёртки рефлексии.
+     *
+     * @return результат метода, {@code null} - отвечать нечего.
+     */
+    Object invoke(Message message) throws Exception {
+        Object[] arguments;
+        if (payloadType == null) {
+            arguments = new Object[0];
+        } else if (withProperties) {
+            arguments = new Object[]{readPayload(message), message.getMessageProperties()};
+        } else {
+            arguments = new Object[]{readPayload(message)};
+        }
+
+        try {
+            return method.invoke(bean, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return закэшированный ответ на такой же запрос того же пользователя или {@code null}.
+     */
+    Object getCachedReply(Message message) {
+        if (cache == null) {
+            return null;
+        }
+        CachedReply cachedReply = cache.get(CacheKey.of(message));
+        return cachedReply == null || cachedReply.expiresAt() < System.currentTimeMillis()
+                ? null
+                : cachedReply.reply();
+    }
+
+    /**
+     * Кэширует ответ. Если кэш заполнен, сначала удаляются просроченные ответы, а если места так и нет, ответ не
+     * кэшируется.
+     */
+    void cacheReply(Message message, Object reply) {
+        if (cache == null || reply == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cache.size() >= cacheSize) {
+            cache.values().removeIf(cachedReply -> cachedReply.expiresAt() < now);
+            if (cache.size() >= cacheSize) {
+                return;
+            }
+        }
+        cache.put(CacheKey.of(message), new CachedReply(reply, now + cacheTtlMillis));
+    }
+
+    @Override
+    public String toString() {
+        return method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+    }
+
+    private Object readPayload(Message message) throws IOException {
+        return MAPPER.readValue(message.getBody(), payloadType);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Enum<?> getReplyType(AmqpRpcEndpoint endpoint) {
+        return Enum.valueOf((Class) endpoint.replyTypeClass(), endpoint.replyType());
+    }
+
+    private record CachedReply(Object reply, long expiresAt) {
+    }
+
+    /**
+     * {@link ByteBuffer} тела сравнивается и хэшируется по содержимому.
+     */
+    private record CacheKey(ByteBuffer body, String userId, String userRoles) {
+
+        private static CacheKey of(Message message) {
+            MessageProperties messageProperties = message.getMessageProperties();
+            return new CacheKey(
+                    ByteBuffer.wrap(message.getBody()),
+                    Objects.toString(messageProperties.getHeader(USER_ID_HEADER), null),
+                    Objects.toString(messageProperties.getHeader(USER_ROLES_HEADER), null)
+            );
+        }
+
+    }
+
+}
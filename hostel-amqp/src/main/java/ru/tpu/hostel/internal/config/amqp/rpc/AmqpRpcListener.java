@@ -0,0 +1,221 @@
+package ru.tpu.hostel.internal.config.amqp.rpc;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.core.MessageProperties;
+import ru.tpu.hostel.internal.external.amqp.AmqpMessageSender;
+import ru.tpu.hostel.internal.utils.ExecutionContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Слушатель очереди с методами {@link ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint}.
+ * <p>
+ * Поток потребителя только выбирает обработчик по типу запроса, отвечает из кэша и ждёт свободное место обработчика,
+ * после чего передаёт запрос виртуальному потоку и берёт следующее сообщение. Пока все места заняты, потребитель
+ * стоит, поэтому неподтверждённых запросов не больше prefetch. Запрос подтверждается при передаче потоку: если
+ * сервис упадёт во время обработки, клиент получит таймаут ответа, как и при потере запроса.
+ * <p>
+ * Цепочка советов фабрики слушателя охватывает только работу потребителя, а не обработчик: исключение обработчика
+ * не уходит на повтор, а отправляется клиенту ответом об ошибке
+ * ({@link AmqpMessageSender#sendErrorReply(Enum, MessageProperties, String)}).
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+final class AmqpRpcListener implements MessageListener {
+
+    private static final String NO_HANDLER = "[RABBIT] Нет обработчика RPC запроса: listener={}, type={}, messageId={}";
+
+    private static final String REQUEST_EXPIRED
+            = "[RABBIT] RPC запрос отброшен, срок ожидания ответа истёк: handler={}, messageId={}";
+
+    private static final String HANDLER_EXCEPTION = "[RABBIT] Ошибка RPC обработчика {}: messageId={}";
+
+    private static final String ERROR_REPLY_EXCEPTION
+            = "[RABBIT] Не удалось отправить ответ об ошибке RPC обработчика {}: messageId={}";
+
+    private final String listenerName;
+
+    private final Map<String, AmqpRpcHandler> handlers = new HashMap<>();
+
+    private final AmqpMessageSender amqpMessageSender;
+
+    private final Tracer tracer;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param listenerName      полное имя слушателя, для логов и имён потоков.
+     * @param handlers          обработчики слушателя.
+     * @param amqpMessageSender отправитель ответов.
+     * @param openTelemetry     OpenTelemetry для спанов обработки.
+     * @throws IllegalArgumentException если у двух обработчиков один тип запроса.
+     */
+    AmqpRpcListener(
+            String listenerName,
+            List<AmqpRpcHandler> handlers,
+            AmqpMessageSender amqpMessageSender,
+            OpenTelemetry openTelemetry
+    ) {
+        this.listenerName = listenerName;
+        for (AmqpRpcHandler handler : handlers) {
+            AmqpRpcHandler previous = this.handlers.putIfAbsent(handler.getType(), handler);
+            if (previous != null) {
+                throw new IllegalArgumentException("Обработчики " + previous + " и " + handler + " слушателя "
+                        + listenerName + " принимают один тип запроса: '" + handler.getType() + "'");
+            }
+        }
+        this.amqpMessageSender = amqpMessageSender;
+        this.tracer = openTelemetry.getTracer("ru.tpu.hostel.internal.amqp");
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("rabbit-rpc-" + listenerName + "-", 0).factory()
+        );
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        AmqpRpcHandler handler = getHandler(messageProperties.getType());
+        if (handler == null) {
+            log.warn(NO_HANDLER, listenerName, messageProperties.getType(), messageProperties.getMessageId());
+            return;
+        }
+        if (isExpired(messageProperties)) {
+            log.warn(REQUEST_EXPIRED, handler, messageProperties.getMessageId());
+            return;
+        }
+
+        Object cachedReply = handler.getCachedReply(message);
+        if (cachedReply != null) {
+            amqpMessageSender.sendReply(handler.getReplyType(), messageProperties, cachedReply);
+            return;
+        }
+
+        try {
+            handler.getPermits().acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Контекст трассировки, MDC и ExecutionContext живут в потоке потребителя, поэтому переносятся в обработчик
+        Context context = Context.current();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        ExecutionContext executionContext = ExecutionContext.get();
+        try {
+            executor.execute(() -> handle(handler, message, context, mdc, executionContext));
+        } catch (RuntimeException e) {
+            handler.getPermits().release();
+            throw e;
+        }
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private void handle(
+            AmqpRpcHandler handler,
+            Message message,
+            Context context,
+            Map<String, String> mdc,
+            ExecutionContext executionContext
+    ) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        Span span = tracer.spanBuilder("rabbit.rpc.handle")
+                .setParent(context)
+                .setAttribute("messaging.system", "rabbitmq")
+                .setAttribute("messaging.destination", messageProperties.getConsumerQueue())
+                .setAttribute("code.function", handler.toString())
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            MDC.put("spanId", span.getSpanContext().getSpanId());
+            ExecutionContext.create(
+                    executionContext == null ? null : executionContext.getUserID(),
+                    executionContext == null ? null : executionContext.getUserRoles(),
+                    span.getSpanContext().getTraceId(),
+                    span.getSpanContext().getSpanId()
+            );
+
+            // Пока запрос ждал места, клиент мог перестать ждать ответ
+            if (isExpired(messageProperties)) {
+                log.warn(REQUEST_EXPIRED, handler, messageProperties.getMessageId());
+                return;
+            }
+            Object reply = handler.invoke(message);
+            if (reply != null) {
+                amqpMessageSender.sendReply(handler.getReplyType(), messageProperties, reply);
+                handler.cacheReply(message, reply);
+            }
+            span.setStatus(StatusCode.OK);
+        } catch (Exception e) {
+            log.error(HANDLER_EXCEPTION, handler, messageProperties.getMessageId(), e);
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            sendErrorReply(handler, messageProperties, e);
+        } finally {
+            ExecutionContext.clear();
+            MDC.clear();
+            span.end();
+            handler.getPermits().release();
+        }
+    }
+
+    /**
+     * Без адреса ответа клиент ответа не ждёт, а если не отправился и ответ об ошибке, клиент получит таймаут.
+     */
+    private void sendErrorReply(AmqpRpcHandler handler, MessageProperties messageProperties, Exception error) {
+        if (messageProperties.getReplyTo() == null) {
+            return;
+        }
+        try {
+            amqpMessageSender.sendErrorReply(
+                    handler.getReplyType(),
+                    messageProperties,
+                    error.getClass().getName() + ": " + error.getMessage()
+            );
+        } catch (RuntimeException e) {
+            log.error(ERROR_REPLY_EXCEPTION, handler, messageProperties.getMessageId(), e);
+        }
+    }
+
+    private AmqpRpcHandler getHandler(String type) {
+        AmqpRpcHandler handler = type == null ? null : handlers.get(type);
+        return handler == null ? handlers.get("") : handler;
+    }
+
+    /**
+     * Срок ожидания - {@code expiration} запроса от момента отправки ({@code timestamp}). Без любого из них запрос
+     * не истекает.
+     */
+    private static boolean isExpired(MessageProperties messageProperties) {
+        if (messageProperties.getExpiration() == null || messageProperties.getTimestamp() == null) {
+            return false;
+        }
+        try {
+            long deadline = messageProperties.getTimestamp().getTime()
+                    + Long.parseLong(messageProperties.getExpiration());
+            return System.currentTimeMillis() > deadline;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+}
@@ -42,6 +42,12 @@ public class TracedChannel implements Channel {
 
     private final OpenTelemetry openTelemetry;
 
+    private final boolean consumerSpan;
+
+    public TracedChannel(Channel delegate, Tracer tracer, OpenTelemetry openTelemetry) {
+        this(delegate, tracer, openTelemetry, true);
+    }
+
     @Override
     public void basicQos(int i, int i1, boolean b) throws IOException {
         delegate.basicQos(i, i1, b);
@@ -218,7 +224,7 @@ public class TracedChannel implements Channel {
 
     @Override
     public String basicConsume(String s, Consumer consumer) throws IOException {
-        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry);
+        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry, consumerSpan);
 
         return delegate.basicConsume(s, tracedConsumer);
     }
@@ -240,7 +246,7 @@ public class TracedChannel implements Channel {
 
     @Override
     public String basicConsume(String s, boolean b, Consumer consumer) throws IOException {
-        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry);
+        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry, consumerSpan);
 
         return delegate.basicConsume(s, b, tracedConsumer);
     }
@@ -262,7 +268,7 @@ public class TracedChannel implements Channel {
 
     @Override
     public String basicConsume(String s, boolean b, Map<String, Object> map, Consumer consumer) throws IOException {
-        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry);
+        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry, consumerSpan);
 
         return delegate.basicConsume(s, b, map, tracedConsumer);
     }
@@ -284,7 +290,7 @@ public class TracedChannel implements Channel {
 
     @Override
     public String basicConsume(String s, boolean b, String s1, Consumer consumer) throws IOException {
-        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry);
+        TracedConsumer tracedConsumer = new TracedConsumer(consumer, tracer, s, openTelemetry, consumerSpan);
 
         return delegate.basicConsume(s, b, s1, tracedConsumer);
     }
@@ -311,7 +317,7 @@ public class TracedChannel implements Channel {
                                Consumer callback) throws IOException {
 
         // Обертываем callback для трассировки получения
-        TracedConsumer tracedConsumer = new TracedConsumer(callback, tracer, queue, openTelemetry);
+        TracedConsumer tracedConsumer = new TracedConsumer(callback, tracer, queue, openTelemetry, consumerSpan);
 
         return delegate.basicConsume(queue, autoAck, consumerTag, noLocal,
                 exclusive, arguments, tracedConsumer);
@@ -21,10 +21,17 @@ public class TracedConnection implements Connection {
 
     private final OpenTelemetry openTelemetry;
 
+    private final boolean consumerSpan;
+
     public TracedConnection(Connection delegate, Tracer tracer, OpenTelemetry openTelemetry) {
+        this(delegate, tracer, openTelemetry, true);
+    }
+
+    public TracedConnection(Connection delegate, Tracer tracer, OpenTelemetry openTelemetry, boolean consumerSpan) {
         this.delegate = delegate;
         this.tracer = tracer;
         this.openTelemetry = openTelemetry;
+        this.consumerSpan = consumerSpan;
     }
 
     @Override
@@ -39,7 +46,7 @@ public class TracedConnection implements Connection {
         try (Scope ignored = span.makeCurrent()) {
             Channel channel = delegate.createChannel(transactional);
             span.setStatus(StatusCode.OK);
-            return new TracedChannel(channel, tracer, openTelemetry);
+            return new TracedChannel(channel, tracer, openTelemetry, consumerSpan);
         } catch (Exception e) {
             span.recordException(e);
             span.setStatus(StatusCode.ERROR, e.getMessage());
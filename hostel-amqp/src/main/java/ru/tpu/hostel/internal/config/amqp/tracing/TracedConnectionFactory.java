@@ -9,6 +9,7 @@ import io.opentelemetry.api.trace.StatusCode;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.amqp.AmqpException;
@@ -18,6 +19,9 @@ import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionListener;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.SmartLifecycle;
+import ru.tpu.hostel.internal.config.amqp.traffic.RabbitPublishRateLimiter;
+
+import java.util.Properties;
 
 @RequiredArgsConstructor
 public class TracedConnectionFactory implements ConnectionFactory, InitializingBean, ShutdownListener, SmartLifecycle {
@@ -26,6 +30,36 @@ public class TracedConnectionFactory implements ConnectionFactory, InitializingB
 
     private final OpenTelemetry openTelemetry;
 
+    /**
+     * Создавать ли спан {@code rabbitmq.consume} на каждую доставку в {@link TracedConsumer}.
+     */
+    @Getter
+    private final boolean consumerSpan;
+
+    /**
+     * Класс трафика, которому принадлежит подключение, или {@code null} для основного подключения комплекта свойств.
+     */
+    @Getter
+    private final String trafficClass;
+
+    /**
+     * Ограничение частоты отправки класса трафика, если задано.
+     */
+    @Getter
+    private final RabbitPublishRateLimiter rateLimiter;
+
+    public TracedConnectionFactory(CachingConnectionFactory delegate, OpenTelemetry openTelemetry) {
+        this(delegate, openTelemetry, true);
+    }
+
+    public TracedConnectionFactory(
+            CachingConnectionFactory delegate,
+            OpenTelemetry openTelemetry,
+            boolean consumerSpan
+    ) {
+        this(delegate, openTelemetry, consumerSpan, null, null);
+    }
+
     @Override
     public @NotNull Connection createConnection() throws AmqpException {
         Tracer tracer = openTelemetry.getTracer("ru.tpu.hostel.internal.amqp");
@@ -41,7 +75,7 @@ public class TracedConnectionFactory implements ConnectionFactory, InitializingB
         try (Scope ignored = span.makeCurrent()) {
             Connection connection = delegate.createConnection();
             span.setStatus(StatusCode.OK);
-            return new TracedConnection(connection, tracer, openTelemetry);
+            return new TracedConnection(connection, tracer, openTelemetry, consumerSpan);
         } catch (Exception e) {
             span.recordException(e);
             span.setStatus(StatusCode.ERROR, e.getMessage());
@@ -126,6 +160,13 @@ public class TracedConnectionFactory implements ConnectionFactory, InitializingB
         }
     }
 
+    /**
+     * @return состояние кэша каналов и подключений, см. {@link CachingConnectionFactory#getCacheProperties()}.
+     */
+    public Properties getCacheProperties() {
+        return delegate.getCacheProperties();
+    }
+
     @Override
     public void shutdownCompleted(ShutdownSignalException e) {
         delegate.shutdownCompleted(e);
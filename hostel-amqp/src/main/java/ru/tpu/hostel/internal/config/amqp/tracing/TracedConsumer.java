@@ -20,6 +20,22 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class TracedConsumer implements Consumer {
 
+    private static final TextMapGetter<Map<String, Object>> HEADERS_GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Map<String, Object> carrier) {
+            return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, Object> carrier, String key) {
+            Object value = null;
+            if (carrier != null) {
+                value = carrier.get(key);
+            }
+            return value != null ? value.toString() : null;
+        }
+    };
+
     private final Consumer delegate;
 
     private final Tracer tracer;
@@ -28,8 +44,18 @@ public class TracedConsumer implements Consumer {
 
     private final OpenTelemetry openTelemetry;
 
+    private final boolean consumerSpan;
+
+    public TracedConsumer(Consumer delegate, Tracer tracer, String queue, OpenTelemetry openTelemetry) {
+        this(delegate, tracer, queue, openTelemetry, true);
+    }
+
     @Override
     public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+        if (!consumerSpan) {
+            delegate.handleDelivery(consumerTag, envelope, properties, body);
+            return;
+        }
 
         Context context = extractTraceContext(properties);
 
@@ -60,24 +86,8 @@ public class TracedConsumer implements Consumer {
             return Context.current();
         }
 
-        TextMapGetter<Map<String, Object>> getter = new TextMapGetter<>() {
-            @Override
-            public Iterable<String> keys(Map<String, Object> carrier) {
-                return carrier.keySet();
-            }
-
-            @Override
-            public String get(Map<String, Object> carrier, String key) {
-                Object value = null;
-                if (carrier != null) {
-                    value = carrier.get(key);
-                }
-                return value != null ? value.toString() : null;
-            }
-        };
-
         return openTelemetry.getPropagators().getTextMapPropagator()
-                .extract(Context.current(), headers, getter);
+                .extract(Context.current(), headers, HEADERS_GETTER);
     }
 
     @Override
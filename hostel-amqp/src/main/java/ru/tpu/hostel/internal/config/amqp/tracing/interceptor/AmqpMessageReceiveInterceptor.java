@@ -1,37 +1,41 @@
 package ru.tpu.hostel.internal.config.amqp.tracing.interceptor;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.rabbitmq.client.Channel;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 import io.opentelemetry.context.propagation.TextMapGetter;
-import lombok.RequiredArgsConstructor;
+import io.opentelemetry.context.propagation.TextMapPropagator;
 import lombok.extern.slf4j.Slf4j;
 import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.MDC;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitPayloadLogProperties;
+import ru.tpu.hostel.internal.config.amqp.recording.AmqpTrafficRecordSender;
 import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.recording.TrafficRecord;
+import ru.tpu.hostel.internal.recording.TrafficRecorder;
 import ru.tpu.hostel.internal.utils.ExecutionContext;
-import ru.tpu.hostel.internal.utils.Roles;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ID_HEADER;
 import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ROLES_HEADER;
@@ -44,23 +48,47 @@ import static ru.tpu.hostel.internal.utils.TimeUtil.getLocalDateTimeStingFromMil
  * <pre><code>
  *     factory.setAdviceChain(new AmqpMessageReceiveInterceptor(tracer, openTelemetry))
  * </code></pre>
+ * <p>Для пакетного слушателя ({@code batch} в свойствах слушателя) создаётся один спан на пачку со ссылками на спаны
+ * всех отправителей.
+ * <p>При включённой записи трафика ({@code recording.enabled}) записывает выбранные сообщения в
+ * {@link TrafficRecorder}.
+ * <p>Тело сообщения логируется лениво, с обрезкой и выборкой по свойствам {@link RabbitPayloadLogProperties}
+ * слушателя. При ошибке обработки тело логируется всегда.
+ * <p>Если у подключения выключен спан потребителя канала ({@code consumer-span: false}), спан {@code rabbit.receive}
+ * создаётся с типом CONSUMER и остаётся единственным спаном сообщения.
  *
  * @author Илья Лапшин
- * @version 1.1.2
+ * @version 2.0.0
  * @since 1.0.3
  */
-@RequiredArgsConstructor
 @Slf4j
 public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
 
     private static final String START_RABBIT_LISTENER_METHOD_EXECUTION
             = "[RABBIT] Получено сообщение: messageId={}, payload={}";
 
+    private static final String START_RABBIT_LISTENER_METHOD_EXECUTION_WITHOUT_PAYLOAD
+            = "[RABBIT] Получено сообщение: messageId={}, size={} байт";
+
     private static final String FINISH_RABBIT_LISTENER_METHOD_EXECUTION
             = "[RABBIT] Сообщение обработано: messageId={}. Время выполнения {} мс";
 
     private static final String RABBIT_LISTENER_EXCEPTION = "[RABBIT] Ошибка обработки сообщения: messageId={}. "
-            + "Ошибка: {}, время старта: {}, время выполнения: {} мс";
+            + "Ошибка: {}, время старта: {}, время выполнения: {} мс, payload={}";
+
+    private static final String START_RABBIT_LISTENER_BATCH_EXECUTION
+            = "[RABBIT] Получена пачка: queue={}, size={}, bytes={}, messageIds={}..{}";
+
+    private static final String FINISH_RABBIT_LISTENER_BATCH_EXECUTION
+            = "[RABBIT] Пачка обработана: queue={}, size={}. Время выполнения {} мс";
+
+    private static final String RABBIT_LISTENER_BATCH_EXCEPTION
+            = "[RABBIT] Ошибка обработки пачки: queue={}, size={}. Время выполнения: {} мс";
+
+    private static final String RABBIT_LISTENER_BATCH_MESSAGE
+            = "[RABBIT] Сообщение пачки с ошибкой: messageId={}, payload={}";
+
+    private static final int DEFAULT_PAYLOAD_MAX_BYTES = 4096;
 
     private static final TextMapGetter<Message> GETTER = new TextMapGetter<>() {
         @Override
@@ -78,15 +106,60 @@ public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
         }
     };
 
-    private static final ObjectWriter WRITER = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-            .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
-            .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
-            .enable(SerializationFeature.INDENT_OUTPUT)
-            .writer();
+    private final Tracer tracer;
+
+    private final TextMapPropagator propagator;
+
+    private final SpanKind spanKind;
+
+    private final TrafficRecorder trafficRecorder;
+
+    private final double payloadSampleRate;
+
+    private final int payloadMaxBytes;
 
-    private final OpenTelemetry openTelemetry;
+    public AmqpMessageReceiveInterceptor(OpenTelemetry openTelemetry) {
+        this(openTelemetry, null);
+    }
+
+    public AmqpMessageReceiveInterceptor(OpenTelemetry openTelemetry, @Nullable TrafficRecorder trafficRecorder) {
+        this(openTelemetry, trafficRecorder, null);
+    }
+
+    /**
+     * @param openTelemetry   OpenTelemetry для трассировки.
+     * @param trafficRecorder запись трафика, {@code null} - не записывать.
+     * @param payloadLog      свойства логирования тела, {@code null} - значения по умолчанию.
+     */
+    public AmqpMessageReceiveInterceptor(
+            OpenTelemetry openTelemetry,
+            @Nullable TrafficRecorder trafficRecorder,
+            @Nullable RabbitPayloadLogProperties payloadLog
+    ) {
+        this(openTelemetry, trafficRecorder, payloadLog, true);
+    }
+
+    /**
+     * @param openTelemetry   OpenTelemetry для трассировки.
+     * @param trafficRecorder запись трафика, {@code null} - не записывать.
+     * @param payloadLog      свойства логирования тела, {@code null} - значения по умолчанию.
+     * @param consumerSpan    создаёт ли потребитель канала свой спан; если нет, спан интерцептора - CONSUMER.
+     */
+    public AmqpMessageReceiveInterceptor(
+            OpenTelemetry openTelemetry,
+            @Nullable TrafficRecorder trafficRecorder,
+            @Nullable RabbitPayloadLogProperties payloadLog,
+            boolean consumerSpan
+    ) {
+        this.tracer = openTelemetry.getTracer("ru.tpu.hostel.internal.amqp");
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.spanKind = consumerSpan ? SpanKind.INTERNAL : SpanKind.CONSUMER;
+        this.trafficRecorder = trafficRecorder;
+        this.payloadSampleRate = payloadLog == null || payloadLog.sampleRate() == null ? 1 : payloadLog.sampleRate();
+        this.payloadMaxBytes = payloadLog == null || payloadLog.maxBytes() == null
+                ? DEFAULT_PAYLOAD_MAX_BYTES
+                : payloadLog.maxBytes();
+    }
 
     /**
      * Перехватывает метод получения/обработки сообщения, добавляет трассировку, создает {@link ExecutionContext},
@@ -100,33 +173,33 @@ public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
      */
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
-        Message message = Arrays.stream(invocation.getArguments())
-                .filter(Message.class::isInstance)
-                .map(Message.class::cast)
-                .findFirst()
-                .orElse(null);
+        Object[] arguments = invocation.getArguments();
+        Message message = getMessage(arguments);
 
         if (message == null) {
-            return invocation.proceed();
+            List<Message> batch = getBatch(arguments);
+            return batch == null
+                    ? invocation.proceed()
+                    : invokeBatch(invocation, batch);
         }
 
-        Context context = openTelemetry.getPropagators()
-                .getTextMapPropagator()
-                .extract(Context.current(), message, GETTER);
+        Context context = propagator.extract(Context.current(), message, GETTER);
 
         MessageProperties messageProperties = message.getMessageProperties();
 
-        UUID userId = getUserId(messageProperties);
-        Set<Roles> roles = getRoles(messageProperties);
+        String userIdHeader = messageProperties.getHeader(USER_ID_HEADER);
+        UUID userId = getUserId(userIdHeader);
+        RolesHeader roles = getRoles(messageProperties);
         if (userId != null) {
-            MDC.put("userId", userId.toString());
+            MDC.put("userId", userIdHeader);
         }
-        if (roles != null && !roles.isEmpty()) {
-            MDC.put("roles", roles.stream().map(Roles::name).collect(Collectors.joining(",")));
+        if (roles.mdcValue() != null) {
+            MDC.put("roles", roles.mdcValue());
         }
 
         String queue = messageProperties.getConsumerQueue();
-        Span span = openTelemetry.getTracer("ru.tpu.hostel.internal.amqp").spanBuilder("rabbit.receive")
+        Span span = tracer.spanBuilder("rabbit.receive")
+                .setSpanKind(spanKind)
                 .setParent(context)
                 .setAttribute("messaging.system", "rabbitmq")
                 .setAttribute("messaging.destination", queue)
@@ -135,23 +208,38 @@ public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
                         "messaging.rabbitmq.routing_key",
                         messageProperties.getReceivedRoutingKey()
                 )
+                .setAttribute("messaging.message.payload_size_bytes", message.getBody().length)
                 .startSpan();
 
+        boolean record = trafficRecorder != null && trafficRecorder.sample();
+        long receivedAt = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        boolean failed = false;
         long startTime = System.currentTimeMillis();
         try (Scope ignored = span.makeCurrent()) {
             MDC.put("traceId", span.getSpanContext().getTraceId());
             MDC.put("spanId", span.getSpanContext().getSpanId());
             ExecutionContext.create(
                     userId,
-                    roles,
+                    roles.roles(),
                     span.getSpanContext().getTraceId(),
                     span.getSpanContext().getSpanId()
             );
-            log.info(
-                    START_RABBIT_LISTENER_METHOD_EXECUTION,
-                    messageProperties.getMessageId(),
-                    safeMapToJson(message.getBody())
-            );
+            if (log.isInfoEnabled()) {
+                if (samplePayload()) {
+                    log.info(
+                            START_RABBIT_LISTENER_METHOD_EXECUTION,
+                            messageProperties.getMessageId(),
+                            new MessagePayload(message, payloadMaxBytes)
+                    );
+                } else {
+                    log.info(
+                            START_RABBIT_LISTENER_METHOD_EXECUTION_WITHOUT_PAYLOAD,
+                            messageProperties.getMessageId(),
+                            message.getBody().length
+                    );
+                }
+            }
             startTime = System.currentTimeMillis();
             Object result = invocation.proceed();
             long endTime = System.currentTimeMillis() - startTime;
@@ -163,7 +251,105 @@ public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
             span.setStatus(StatusCode.OK);
             return result;
         } catch (Exception e) {
-            logException(e, messageProperties.getMessageId(), startTime);
+            failed = true;
+            logException(e, message, startTime);
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            ExecutionContext.clear();
+            span.end();
+            MDC.clear();
+            if (record) {
+                record(message, receivedAt, startNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * Обработка пачки пакетного слушателя: один спан на пачку со ссылками на спаны отправителей и итоговая строка
+     * лога вместо содержимого каждого сообщения. Пользователь попадает в {@link ExecutionContext}, только если все
+     * сообщения пачки от одного пользователя.
+     */
+    private Object invokeBatch(MethodInvocation invocation, List<Message> messages) throws Throwable {
+        MessageProperties firstProperties = messages.get(0).getMessageProperties();
+        String queue = firstProperties.getConsumerQueue();
+        String userIdHeader = firstProperties.getHeader(USER_ID_HEADER);
+        UUID userId = getUserId(userIdHeader);
+        RolesHeader roles = getRoles(firstProperties);
+        long size = 0;
+
+        SpanBuilder spanBuilder = tracer.spanBuilder("rabbit.receive")
+                .setSpanKind(spanKind)
+                .setAttribute("messaging.system", "rabbitmq")
+                .setAttribute("messaging.destination", queue)
+                .setAttribute("messaging.operation", "receive")
+                .setAttribute("messaging.batch.message_count", messages.size());
+        for (Message message : messages) {
+            SpanContext producerContext = Span.fromContext(propagator.extract(Context.root(), message, GETTER))
+                    .getSpanContext();
+            if (producerContext.isValid()) {
+                spanBuilder.addLink(producerContext);
+            }
+            if (userId != null && !userIdHeader.equals(message.getMessageProperties().getHeader(USER_ID_HEADER))) {
+                userId = null;
+                roles = RolesHeader.EMPTY;
+            }
+            size += message.getBody().length;
+        }
+        if (userId != null) {
+            MDC.put("userId", userIdHeader);
+        }
+        if (roles.mdcValue() != null) {
+            MDC.put("roles", roles.mdcValue());
+        }
+
+        Span span = spanBuilder.startSpan();
+        long receivedAt = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        boolean failed = false;
+        try (Scope ignored = span.makeCurrent()) {
+            MDC.put("traceId", span.getSpanContext().getTraceId());
+            MDC.put("spanId", span.getSpanContext().getSpanId());
+            ExecutionContext.create(
+                    userId,
+                    roles.roles(),
+                    span.getSpanContext().getTraceId(),
+                    span.getSpanContext().getSpanId()
+            );
+            log.info(
+                    START_RABBIT_LISTENER_BATCH_EXECUTION,
+                    queue,
+                    messages.size(),
+                    size,
+                    firstProperties.getMessageId(),
+                    messages.get(messages.size() - 1).getMessageProperties().getMessageId()
+            );
+            Object result = invocation.proceed();
+            log.info(
+                    FINISH_RABBIT_LISTENER_BATCH_EXECUTION,
+                    queue,
+                    messages.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+            );
+            span.setStatus(StatusCode.OK);
+            return result;
+        } catch (Exception e) {
+            failed = true;
+            log.error(
+                    RABBIT_LISTENER_BATCH_EXCEPTION,
+                    queue,
+                    messages.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                    e
+            );
+            for (Message message : messages) {
+                log.error(
+                        RABBIT_LISTENER_BATCH_MESSAGE,
+                        message.getMessageProperties().getMessageId(),
+                        new MessagePayload(message, payloadMaxBytes)
+                );
+            }
             span.recordException(e);
             span.setStatus(StatusCode.ERROR, e.getMessage());
             throw e;
@@ -171,52 +357,102 @@ public class AmqpMessageReceiveInterceptor implements MethodInterceptor {
             ExecutionContext.clear();
             span.end();
             MDC.clear();
+            if (trafficRecorder != null) {
+                for (Message message : messages) {
+                    if (trafficRecorder.sample()) {
+                        record(message, receivedAt, startNanos, failed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Контейнер вызывает {@code executeListener(Channel, Object)}, поэтому сообщение почти всегда второй аргумент.
+     * Перебор остальных аргументов - только для нестандартных вызовов.
+     */
+    private static Message getMessage(Object[] arguments) {
+        if (arguments.length > 1 && arguments[1] instanceof Message message) {
+            return message;
+        }
+        for (Object argument : arguments) {
+            if (argument instanceof Message message) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Message> getBatch(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof Message) {
+                return (List<Message>) list;
+            }
+        }
+        return null;
+    }
+
+    private void record(Message message, long receivedAt, long startNanos, boolean failed) {
+        MessageProperties messageProperties = message.getMessageProperties();
+        Map<String, String> headers = new LinkedHashMap<>();
+        messageProperties.getHeaders().forEach((name, value) -> headers.put(name, String.valueOf(value)));
+        if (messageProperties.getMessageId() != null) {
+            headers.put(AmqpTrafficRecordSender.MESSAGE_ID_HEADER, messageProperties.getMessageId());
+        }
+        if (messageProperties.getType() != null) {
+            headers.put(AmqpTrafficRecordSender.TYPE_HEADER, messageProperties.getType());
         }
+
+        trafficRecorder.record(
+                TrafficRecord.Kind.AMQP,
+                receivedAt,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos),
+                String.valueOf(messageProperties.getConsumerQueue()),
+                messageProperties.getReceivedExchange() + "/" + messageProperties.getReceivedRoutingKey(),
+                failed ? 1 : 0,
+                headers,
+                message.getBody()
+        );
     }
 
-    private UUID getUserId(MessageProperties properties) {
-        String userIdString = properties.getHeader(USER_ID_HEADER);
+    private UUID getUserId(String userIdString) {
         return userIdString == null || userIdString.isEmpty()
                 ? null
                 : UUID.fromString(userIdString);
     }
 
-    private Set<Roles> getRoles(MessageProperties properties) {
-        String rolesString = properties.getHeader(USER_ROLES_HEADER);
-        return rolesString == null || rolesString.isEmpty()
-                ? Collections.emptySet()
-                : Arrays.stream(rolesString.split(","))
-                .map(Roles::valueOf)
-                .collect(Collectors.toUnmodifiableSet());
+    private RolesHeader getRoles(MessageProperties properties) {
+        return RolesHeader.of(properties.getHeader(USER_ROLES_HEADER));
     }
 
-    private void logException(Exception e, String messageId, long startTime) {
+    private boolean samplePayload() {
+        return payloadSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < payloadSampleRate;
+    }
+
+    private void logException(Exception e, Message message, long startTime) {
         long endTime = System.currentTimeMillis() - startTime;
+        String messageId = message.getMessageProperties().getMessageId();
+        MessagePayload payload = new MessagePayload(message, payloadMaxBytes);
         if (e instanceof ServiceException serviceException) {
             log.error(
                     RABBIT_LISTENER_EXCEPTION,
                     messageId,
                     serviceException.getMessage(),
                     getLocalDateTimeStingFromMillis(startTime),
-                    endTime
+                    endTime,
+                    payload
             );
         } else {
             log.error(
                     RABBIT_LISTENER_EXCEPTION,
                     messageId,
-                    messageId,
+                    e.getMessage(),
                     getLocalDateTimeStingFromMillis(startTime),
                     endTime,
+                    payload,
                     e
             );
         }
     }
-
-    private String safeMapToJson(Object obj) {
-        try {
-            return WRITER.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            return "<ошибка сериализации>";
-        }
-    }
 }
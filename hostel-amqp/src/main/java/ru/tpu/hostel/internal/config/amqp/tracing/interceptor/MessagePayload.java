@@ -0,0 +1,60 @@
+package ru.tpu.hostel.internal.config.amqp.tracing.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Тело сообщения для аргумента лога. Строка собирается в {@link #toString()}, то есть только когда логгер
+ * действительно пишет запись.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@RequiredArgsConstructor
+final class MessagePayload {
+
+    private final Message message;
+
+    private final int maxBytes;
+
+    @Override
+    public String toString() {
+        MessageProperties messageProperties = message.getMessageProperties();
+        byte[] body = message.getBody();
+        String contentType = messageProperties.getContentType();
+        if (!isText(contentType)) {
+            return "<" + contentType + ", " + body.length + " байт>";
+        }
+
+        int length = Math.min(body.length, maxBytes);
+        String text = new String(body, 0, length, getCharset(messageProperties));
+        return length < body.length
+                ? text + "...<" + body.length + " байт>"
+                : text;
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType == null
+                || contentType.startsWith("text/")
+                || contentType.contains("json")
+                || contentType.contains("xml");
+    }
+
+    private static Charset getCharset(MessageProperties messageProperties) {
+        String encoding = messageProperties.getContentEncoding();
+        if (encoding == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package ru.tpu.hostel.internal.config.amqp.tracing.interceptor;
+
+import ru.tpu.hostel.internal.utils.Roles;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Разобранный заголовок ролей пользователя: множество ролей и строка для MDC.
+ * <p>
+ * Различных наборов ролей немного, поэтому разбор кэшируется по исходной строке заголовка, и на каждое сообщение
+ * остаётся один поиск в карте. Кэш ограничен {@link #MAX_CACHED} записями - при переполнении заголовок просто
+ * разбирается заново.
+ *
+ * @param roles    неизменяемое множество ролей.
+ * @param mdcValue роли через запятую, {@code null} - ролей нет.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+record RolesHeader(Set<Roles> roles, String mdcValue) {
+
+    static final RolesHeader EMPTY = new RolesHeader(Collections.emptySet(), null);
+
+    private static final int MAX_CACHED = 256;
+
+    private static final Map<String, RolesHeader> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * @param header значение заголовка {@code USER_ROLES_HEADER}, роли через запятую.
+     * @throws IllegalArgumentException если в заголовке неизвестная роль.
+     */
+    static RolesHeader of(String header) {
+        if (header == null || header.isEmpty()) {
+            return EMPTY;
+        }
+        RolesHeader cached = CACHE.get(header);
+        if (cached != null) {
+            return cached;
+        }
+        RolesHeader parsed = parse(header);
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(header, parsed);
+        }
+        return parsed;
+    }
+
+    private static RolesHeader parse(String header) {
+        EnumSet<Roles> roles = EnumSet.noneOf(Roles.class);
+        int start = 0;
+        while (start <= header.length()) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = header.length();
+            }
+            if (end > start) {
+                roles.add(Roles.valueOf(header.substring(start, end)));
+            }
+            start = end + 1;
+        }
+        if (roles.isEmpty()) {
+            return EMPTY;
+        }
+
+        StringJoiner mdcValue = new StringJoiner(",");
+        roles.forEach(role -> mdcValue.add(role.name()));
+        return new RolesHeader(Collections.unmodifiableSet(roles), mdcValue.toString());
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.tpu.hostel.internal.config.amqp.traffic;
+
+import org.springframework.amqp.AmqpException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Равномерное ограничение частоты отправки: каждому сообщению выдаётся своё время отправки с шагом
+ * {@code 1 / лимит} секунды, и поток ждёт до этого времени. Накопления разрешений за время простоя нет, поэтому
+ * всплеск после паузы тоже идёт с заданной частотой.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class RabbitPublishRateLimiter {
+
+    private final long intervalNanos;
+
+    private final AtomicLong nextPermitNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param permitsPerSecond сколько сообщений в секунду разрешено отправить.
+     */
+    public RabbitPublishRateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Лимит отправки должен быть положительным: " + permitsPerSecond);
+        }
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    }
+
+    /**
+     * Ждёт разрешения на отправку одного сообщения.
+     *
+     * @return сколько наносекунд поток ждал разрешения.
+     * @throws AmqpException если поток прерван во время ожидания.
+     */
+    public long acquire() {
+        long now = System.nanoTime();
+        long permitNanos = nextPermitNanos.getAndUpdate(next -> Math.max(next, now) + intervalNanos);
+        long waitNanos = Math.max(0, permitNanos - now);
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException("Ожидание лимита отправки прервано", e);
+            }
+        }
+        return waitNanos;
+    }
+
+}
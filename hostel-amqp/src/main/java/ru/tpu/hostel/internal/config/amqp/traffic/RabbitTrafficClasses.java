@@ -0,0 +1,149 @@
+package ru.tpu.hostel.internal.config.amqp.traffic;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.StringUtils;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Подключения классов трафика. Отправители и слушатели без класса работают на основном подключении комплекта
+ * свойств, с классом - на подключении класса, так что забитый канал или медленный потребитель одного класса не
+ * блокирует остальные.
+ * <p>
+ * Для каждого подключения публикуется метрика {@code hostel.amqp.connection.channels.idle} - количество свободных
+ * каналов в кэше, с атрибутом {@code messaging.rabbitmq.traffic_class} ({@code default} для основного подключения).
+ * В RabbitMQ подключение класса видно по имени {@code <микросервис>.<комплект свойств>.<класс>}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class RabbitTrafficClasses implements DisposableBean {
+
+    /**
+     * Значение атрибута метрик для основного подключения комплекта свойств.
+     */
+    public static final String DEFAULT_TRAFFIC_CLASS = "default";
+
+    private static final String INSTRUMENTATION_NAME = "ru.tpu.hostel.internal.amqp";
+
+    private static final AttributeKey<String> MICROSERVICE = AttributeKey.stringKey("messaging.microservice");
+
+    private static final AttributeKey<String> PROPERTIES_NAME = AttributeKey.stringKey("messaging.rabbitmq.properties");
+
+    private static final AttributeKey<String> TRAFFIC_CLASS =
+            AttributeKey.stringKey("messaging.rabbitmq.traffic_class");
+
+    private final Map<Microservice, Map<String, TracedConnectionFactory>> defaultConnectionFactories;
+
+    private final Map<Microservice, Map<String, Map<String, TracedConnectionFactory>>> trafficClassConnectionFactories;
+
+    /**
+     * @param defaultConnectionFactories      основные подключения комплектов свойств.
+     * @param trafficClassConnectionFactories подключения классов трафика по микросервису, комплекту свойств и
+     *                                        имени класса.
+     * @param openTelemetry                   источник метрик.
+     */
+    public RabbitTrafficClasses(
+            Map<Microservice, Map<String, TracedConnectionFactory>> defaultConnectionFactories,
+            Map<Microservice, Map<String, Map<String, TracedConnectionFactory>>> trafficClassConnectionFactories,
+            OpenTelemetry openTelemetry
+    ) {
+        this.defaultConnectionFactories = defaultConnectionFactories;
+        this.trafficClassConnectionFactories = trafficClassConnectionFactories;
+
+        Meter meter = openTelemetry.getMeter(INSTRUMENTATION_NAME);
+        meter.gaugeBuilder("hostel.amqp.connection.channels.idle")
+                .ofLongs()
+                .setDescription("Количество свободных каналов в кэше подключения")
+                .buildWithCallback(this::recordIdleChannels);
+    }
+
+    /**
+     * Возвращает подключение для отправителя или слушателя.
+     *
+     * @param microservice   микросервис.
+     * @param propertiesName имя комплекта свойств.
+     * @param trafficClass   класс трафика из свойств отправителя или слушателя.
+     * @return подключение класса или основное подключение комплекта свойств, если класс не задан.
+     * @throws IllegalArgumentException если класс не объявлен в свойствах подключения комплекта.
+     */
+    @NotNull
+    public TracedConnectionFactory resolve(
+            @NotNull Microservice microservice,
+            @NotNull String propertiesName,
+            @Nullable String trafficClass
+    ) {
+        if (!StringUtils.hasText(trafficClass)) {
+            return defaultConnectionFactories.get(microservice).get(propertiesName);
+        }
+
+        TracedConnectionFactory connectionFactory = trafficClassConnectionFactories
+                .getOrDefault(microservice, Map.of())
+                .getOrDefault(propertiesName, Map.of())
+                .get(trafficClass);
+        if (connectionFactory == null) {
+            throw new IllegalArgumentException("Класс трафика " + trafficClass + " не объявлен в свойствах "
+                    + "подключения " + microservice.name().toLowerCase() + "." + propertiesName);
+        }
+        return connectionFactory;
+    }
+
+    @Override
+    public void destroy() {
+        trafficClassConnectionFactories.values().forEach(serviceMap ->
+                serviceMap.values().forEach(classMap ->
+                        classMap.values().forEach(TracedConnectionFactory::resetConnection)
+                )
+        );
+    }
+
+    private void recordIdleChannels(ObservableLongMeasurement measurement) {
+        defaultConnectionFactories.forEach((microservice, factories) ->
+                factories.forEach((propertiesName, connectionFactory) ->
+                        record(measurement, connectionFactory, microservice, propertiesName, DEFAULT_TRAFFIC_CLASS)
+                )
+        );
+        trafficClassConnectionFactories.forEach((microservice, serviceMap) ->
+                serviceMap.forEach((propertiesName, classMap) ->
+                        classMap.forEach((trafficClass, connectionFactory) ->
+                                record(measurement, connectionFactory, microservice, propertiesName, trafficClass)
+                        )
+                )
+        );
+    }
+
+    private static void record(
+            ObservableLongMeasurement measurement,
+            TracedConnectionFactory connectionFactory,
+            Microservice microservice,
+            String propertiesName,
+            String trafficClass
+    ) {
+        Properties cacheProperties = connectionFactory.getCacheProperties();
+        measurement.record(
+                count(cacheProperties, "idleChannelsNotTx") + count(cacheProperties, "idleChannelsTx"),
+                Attributes.of(
+                        MICROSERVICE, microservice.name(),
+                        PROPERTIES_NAME, propertiesName,
+                        TRAFFIC_CLASS, trafficClass
+                )
+        );
+    }
+
+    private static long count(Properties cacheProperties, String key) {
+        String value = cacheProperties.getProperty(key);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+}
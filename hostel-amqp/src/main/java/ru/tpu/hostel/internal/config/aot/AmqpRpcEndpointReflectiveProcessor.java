@@ -0,0 +1,40 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.aot.hint.annotation.SimpleReflectiveProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint;
+
+import java.lang.reflect.Method;
+
+/**
+ * Подсказки для методов с {@link AmqpRpcEndpoint}. Метод вызывается через рефлексию, тело запроса десериализуется в
+ * первый параметр, а результат сериализуется в ответ, поэтому кроме вызова метода регистрируются подсказки для
+ * привязки типов запроса и ответа. Енам типа ответа разбирается по имени.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class AmqpRpcEndpointReflectiveProcessor extends SimpleReflectiveProcessor {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    protected void registerMethodHint(ReflectionHints hints, Method method) {
+        super.registerMethodHint(hints, method);
+        if (method.getParameterCount() > 0) {
+            bindingRegistrar.registerReflectionHints(hints, method.getGenericParameterTypes()[0]);
+        }
+        if (method.getReturnType() != void.class) {
+            bindingRegistrar.registerReflectionHints(hints, method.getGenericReturnType());
+        }
+        AmqpRpcEndpoint endpoint = AnnotatedElementUtils.findMergedAnnotation(method, AmqpRpcEndpoint.class);
+        if (endpoint != null) {
+            hints.registerType(endpoint.replyTypeClass(), MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+import ru.tpu.hostel.internal.common.logging.AmqpMessageSenderLoggingFilter;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerContainerFactoryBean;
+import ru.tpu.hostel.internal.config.amqp.loopback.RabbitLoopbackBroker;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.config.amqp.retry.ParkedMessage;
+import ru.tpu.hostel.internal.config.amqp.retry.ReplayResult;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherResult;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherResults;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherTarget;
+
+/**
+ * Подсказки для Spring AOT и GraalVM native-image по классам модуля hostel-amqp.
+ * <p>
+ * Свойства {@link RabbitProperties} биндятся ещё и в
+ * {@link ru.tpu.hostel.internal.config.amqp.RabbitListenerContainerFactoryRegistrar} через
+ * {@link org.springframework.boot.context.properties.bind.Binder}, поэтому подсказки для них регистрируются явно.
+ * Методы с {@link ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint} регистрирует
+ * {@link AmqpRpcEndpointReflectiveProcessor} при обработке бинов.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HostelAmqpRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(@NotNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        hints.reflection().registerType(
+                AmqpMessageSenderLoggingFilter.class,
+                MemberCategory.INVOKE_DECLARED_METHODS
+        );
+
+        BindableRuntimeHintsRegistrar.forTypes(RabbitProperties.class).registerHints(hints, classLoader);
+        hints.reflection().registerType(Microservice.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.reflection().registerType(
+                RabbitListenerContainerFactoryBean.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS
+        );
+
+        // Ответы actuator эндпоинта parking-lot сериализуются в JSON
+        bindingRegistrar.registerReflectionHints(hints.reflection(), ParkedMessage.class, ReplayResult.class);
+
+        // Результаты scatter-gather сервисы отдают в своих ответах
+        bindingRegistrar.registerReflectionHints(
+                hints.reflection(),
+                ScatterGatherResults.class,
+                ScatterGatherResult.class,
+                ScatterGatherResult.Status.class,
+                ScatterGatherTarget.class
+        );
+
+        // Слушатели в loopback-режиме вызываются через JDK-прокси с цепочкой советов
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(
+                RabbitLoopbackBroker.ListenerInvoker.class
+        ));
+    }
+
+}
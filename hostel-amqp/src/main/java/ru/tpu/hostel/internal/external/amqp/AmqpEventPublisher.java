@@ -0,0 +1,59 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpEventPublisher;
+
+/**
+ * Интерфейс для публикации доменных событий в topic обменник. Событие публикуется один раз, а по очередям
+ * подписчиков его раскладывает брокер, поэтому отправителю не нужно знать, кто и сколько сервисов подписано. Имеет
+ * дефолтную реализацию {@link DefaultAmqpEventPublisher}.
+ * <p>
+ * Обменник события задаётся в свойствах комплекта ({@code queueing-properties.events}), подписчик - слушатель с
+ * {@code exchange-type: TOPIC} и своей очередью:
+ * <pre>{@code
+ * rabbitmq:
+ *   properties:
+ *     BOOKING:
+ *       default:
+ *         queueing-properties:
+ *           events:
+ *             booking-events:
+ *               exchange-name: booking.events
+ *
+ * # в сервисе уведомлений
+ *           listeners:
+ *             booking-events:
+ *               exchange-name: booking.events
+ *               exchange-type: TOPIC
+ *               queue-name: notification.booking.events
+ *               routing-key: booking.*
+ * }</pre>
+ * Пример публикации:
+ * <pre>{@code
+ * amqpEventPublisher.publish("booking-events", "booking.created", booking.getId().toString(), bookingResponse);
+ * }</pre>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public interface AmqpEventPublisher {
+
+    /**
+     * Публикует событие. Заголовки трассировки и данные пользователя из {@code ExecutionContext} передаются так же,
+     * как при обычной отправке через {@link AmqpMessageSender}.
+     *
+     * @param eventName      имя события из свойств: ключ ({@code booking-events}) или полное имя
+     *                       ({@code booking.default.booking-events}).
+     * @param routingKey     ключ маршрутизации события, например {@code booking.created}.
+     * @param messageId      ID сообщения.
+     * @param messagePayload содержимое события.
+     */
+    void publish(
+            @NotNull String eventName,
+            @NotNull String routingKey,
+            @NotNull String messageId,
+            @NotNull Object messagePayload
+    );
+
+}
@@ -0,0 +1,62 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpMessagePuller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Интерфейс для пакетного забора сообщений из очереди слушателя по запросу, без постоянного потребителя. Подходит
+ * для задач по расписанию, которые обрабатывают очередь порциями. Имеет дефолтную реализацию
+ * {@link DefaultAmqpMessagePuller}.
+ * <p>
+ * Пример использования:
+ * <pre>{@code
+ * @Scheduled(cron = "0 0 3 * * *")
+ * public void generateKitchenSchedule() {
+ *     int pulled;
+ *     do {
+ *         pulled = amqpMessagePuller.pull(
+ *                 "kitchen-duty",
+ *                 500,
+ *                 Duration.ofSeconds(2),
+ *                 KitchenDutyRequest.class,
+ *                 kitchenScheduleService::generate
+ *         );
+ *     } while (pulled > 0);
+ * }
+ * }</pre>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public interface AmqpMessagePuller {
+
+    /**
+     * Забирает из очереди слушателя до {@code maxMessages} сообщений и передаёт их обработчику одной пачкой.
+     * <p>
+     * Если обработчик завершился без исключения, все сообщения пачки подтверждаются одним подтверждением. При
+     * исключении сообщения возвращаются в очередь, а исключение пробрасывается дальше. Сообщение, которое не удалось
+     * преобразовать в {@code payloadType}, отклоняется без возврата в очередь (уходит в dead letter обменник очереди,
+     * если он задан) и в пачку не попадает, чтобы одно битое сообщение не блокировало все следующие запуски.
+     *
+     * @param listenerName имя слушателя из свойств: ключ ({@code book}) или полное имя
+     *                     ({@code schedule.default.book}).
+     * @param maxMessages  максимальный размер пачки.
+     * @param maxWait      сколько ждать, пока пачка наберётся.
+     * @param payloadType  класс содержимого сообщений.
+     * @param handler      обработчик пачки. Не вызывается, если сообщений нет или ни одно не удалось преобразовать.
+     * @return количество забранных из очереди сообщений, включая отклонённые.
+     */
+    <T> int pull(
+            @NotNull String listenerName,
+            int maxMessages,
+            @NotNull Duration maxWait,
+            @NotNull Class<T> payloadType,
+            @NotNull Consumer<List<T>> handler
+    );
+
+}
@@ -5,6 +5,10 @@ import org.springframework.amqp.core.MessageProperties;
 import ru.tpu.hostel.internal.exception.ServiceException;
 import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpMessageSender;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+
 /**
  * Интерфейс для отправки сообщений через RabbitMQ. Имеет дефолтную универсальную реализацию
  * {@link DefaultAmqpMessageSender}.
@@ -41,6 +45,21 @@ import ru.tpu.hostel.internal.external.amqp.impl.DefaultAmqpMessageSender;
  * }
  * }</pre>
  * </li>
+ * <li>Параллельные RPC запросы в несколько микросервисов {@link #scatterGather(List, Duration)}:
+ * <pre>{@code
+ * ScatterGatherTarget<BookingsResponse> bookings = ScatterGatherTarget.of(
+ *         Microservice.BOOKING, "bookings.user", messageId, userId, BookingsResponse.class
+ * );
+ * ScatterGatherTarget<BalanceResponse> balance = ScatterGatherTarget.of(
+ *         Microservice.USER, "balance", messageId, userId, BalanceResponse.class
+ * );
+ * ScatterGatherResults results = amqpMessageSender.scatterGather(
+ *         List.of(bookings, balance),
+ *         Duration.ofSeconds(2)
+ * );
+ * BookingsResponse bookingsResponse = results.get(bookings).response();
+ * }</pre>
+ * </li>
  * </ul>
  *
  * @author Илья Лапшин
@@ -101,6 +120,22 @@ public interface AmqpMessageSender {
      */
     void sendReply(@NotNull Enum<?> messageType, @NotNull MessageProperties properties, @NotNull Object messagePayload);
 
+    /**
+     * Отправка ответа об ошибке обработки запроса: пустое тело и заголовок {@link AmqpRpcEndpoint#ERROR_HEADER}.
+     * Клиент получает ошибку пустого ответа сразу, а не по таймауту
+     *
+     * @param messageType тип отправляемого сообщения
+     * @param properties  свойства полученного сообщения
+     * @param error       описание ошибки
+     */
+    default void sendErrorReply(
+            @NotNull Enum<?> messageType,
+            @NotNull MessageProperties properties,
+            @NotNull String error
+    ) {
+        throw new ServiceException.NotImplemented();
+    }
+
     /**
      * Асинхронная отправка в микросервис по ключу маршрутизации.
      *
@@ -181,4 +216,64 @@ public interface AmqpMessageSender {
         throw new ServiceException.NotImplemented();
     }
 
+    /**
+     * Параллельная RPC отправка нескольким получателям. Все запросы отправляются сразу, ответы собираются общим
+     * потребителем ответов, поэтому время вызова - время самого медленного получателя, но не больше дедлайна.
+     * Получатели, не ответившие к дедлайну, получают статус {@link ScatterGatherResult.Status#TIMEOUT}, ошибка
+     * одного получателя не прерывает остальных.
+     *
+     * @param targets  получатели с запросами и классами ответов
+     * @param deadline общее время ожидания ответов
+     * @return результаты по каждому получателю
+     */
+    @NotNull
+    default ScatterGatherResults scatterGather(
+            @NotNull List<ScatterGatherTarget<?>> targets,
+            @NotNull Duration deadline
+    ) {
+        throw new ServiceException.NotImplemented();
+    }
+
+    /**
+     * RPC отправка с потоковым ответом. Возвращается сразу после отправки запроса, элементы ответа читаются из
+     * {@link AmqpReplyStream} по мере прихода частей
+     *
+     * @param messageType    тип отправляемого сообщения
+     * @param messageId      ID сообщения
+     * @param messagePayload содержимое сообщения
+     * @param itemType       класс элемента ответа
+     * @param chunkTimeout   время ожидания каждой части ответа
+     * @return поток элементов ответа, закрывается после чтения последнего элемента
+     */
+    @NotNull
+    default <R> AmqpReplyStream<R> sendAndReceiveStream(
+            @NotNull Enum<?> messageType,
+            @NotNull String messageId,
+            @NotNull Object messagePayload,
+            @NotNull Class<R> itemType,
+            @NotNull Duration chunkTimeout
+    ) {
+        throw new ServiceException.NotImplemented();
+    }
+
+    /**
+     * Отправка потокового ответа частями по {@code chunkSize} элементов. Используется на стороне получателя при
+     * запросе {@link #sendAndReceiveStream(Enum, String, Object, Class, Duration)}. Элементы читаются из итератора
+     * по мере отправки, поэтому весь ответ не собирается в памяти
+     *
+     * @param messageType тип отправляемого сообщения
+     * @param properties  свойства полученного сообщения
+     * @param items       элементы ответа
+     * @param chunkSize   количество элементов в одной части, больше {@code 0}
+     * @throws IllegalArgumentException если {@code chunkSize} не положительный
+     */
+    default void sendReplyStream(
+            @NotNull Enum<?> messageType,
+            @NotNull MessageProperties properties,
+            @NotNull Iterator<?> items,
+            int chunkSize
+    ) {
+        throw new ServiceException.NotImplemented();
+    }
+
 }
@@ -0,0 +1,44 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import java.util.Iterator;
+
+/**
+ * Потоковый RPC ответ, который приходит частями. Элементы десериализуются по одному по мере чтения, а следующая
+ * часть запрашивается у брокера только после того, как прочитана предыдущая, поэтому в памяти держится не больше
+ * нескольких частей, а первый элемент доступен сразу после прихода первой части.
+ * <p>
+ * Часть - сообщение с JSON массивом элементов и заголовками {@link #CHUNK_SEQUENCE_HEADER} и
+ * {@link #LAST_CHUNK_HEADER}. Поток нужно закрыть, если он прочитан не до конца:
+ * <pre>{@code
+ * try (AmqpReplyStream<ScheduleResponse> schedules = amqpMessageSender.sendAndReceiveStream(
+ *         ScheduleMessageType.GET_ALL, messageId, request, ScheduleResponse.class, Duration.ofSeconds(5)
+ * )) {
+ *     schedules.forEachRemaining(scheduleExporter::write);
+ * }
+ * }</pre>
+ *
+ * @param <R> тип элемента ответа.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see AmqpMessageSender#sendReplyStream(Enum, org.springframework.amqp.core.MessageProperties, Iterator, int)
+ * @since 2.0.0
+ */
+public interface AmqpReplyStream<R> extends Iterator<R>, AutoCloseable {
+
+    /**
+     * Порядковый номер части ответа, начиная с {@code 0}.
+     */
+    String CHUNK_SEQUENCE_HEADER = "X-Chunk-Sequence";
+
+    /**
+     * Признак последней части ответа.
+     */
+    String LAST_CHUNK_HEADER = "X-Chunk-Last";
+
+    /**
+     * Освобождает очередь ответа. Непрочитанные части отбрасываются.
+     */
+    @Override
+    void close();
+
+}
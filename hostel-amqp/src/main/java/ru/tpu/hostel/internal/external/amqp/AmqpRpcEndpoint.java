@@ -0,0 +1,91 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.aot.hint.annotation.Reflective;
+import ru.tpu.hostel.internal.config.aot.AmqpRpcEndpointReflectiveProcessor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Обработчик RPC запросов из очереди слушателя, описанного в свойствах {@code rabbitmq}. Заменяет ручной
+ * {@code @RabbitListener} с вызовом {@link AmqpMessageSender#sendReply(Enum, MessageProperties, Object)}.
+ * <p>
+ * Тело запроса десериализуется в первый параметр метода, вторым параметром можно принять {@link MessageProperties}
+ * запроса. Возвращённое значение отправляется ответом с типом {@link #replyType()}, метод без результата ничего не
+ * отвечает. Обработчики выполняются на виртуальных потоках, одновременно не больше {@link #concurrency()} на
+ * обработчик, а запрос с истёкшим {@code expiration} отбрасывается - клиент его уже не ждёт.
+ * <p>
+ * Запрос подтверждается при передаче обработчику, поэтому повторы и дедупликация слушателя на обработчик не
+ * распространяются. Если обработчик выбросил исключение, клиенту отправляется пустой ответ с заголовком
+ * {@link #ERROR_HEADER}: клиент сразу получает ошибку пустого ответа, а не ждёт таймаута.
+ * <pre>{@code
+ * @AmqpRpcEndpoint(
+ *         listener = "book",
+ *         type = "BOOK",
+ *         replyTypeClass = TimeslotMessageType.class,
+ *         replyType = "BOOK_REPLY"
+ * )
+ * public ScheduleResponse book(BookingTimeSlotRequest request) {
+ *     return scheduleService.book(request);
+ * }
+ * }</pre>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Reflective(AmqpRpcEndpointReflectiveProcessor.class)
+public @interface AmqpRpcEndpoint {
+
+    /**
+     * Заголовок пустого ответа об ошибке обработчика: класс и сообщение исключения.
+     */
+    String ERROR_HEADER = "X-Rpc-Error";
+
+    /**
+     * Имя слушателя из свойств: ключ ({@code book}) или полное имя {@code <микросервис>.<комплект свойств>.<ключ>}.
+     */
+    String listener();
+
+    /**
+     * Тип запроса ({@link MessageProperties#getType()}), который обрабатывает метод. По умолчанию - любой запрос
+     * слушателя, для которого нет обработчика с точным типом.
+     */
+    String type() default "";
+
+    /**
+     * Енам типов сообщений, в котором объявлен {@link #replyType()}.
+     */
+    Class<? extends Enum<?>> replyTypeClass();
+
+    /**
+     * Имя типа сообщения ответа. По нему выбирается конфиг отправки.
+     */
+    String replyType();
+
+    /**
+     * Максимальное количество одновременно выполняемых запросов. По умолчанию {@code 64}.
+     */
+    int concurrency() default 64;
+
+    /**
+     * Время жизни закэшированного ответа ({@code 30s}, {@code PT1M}). Ответ кэшируется по телу запроса и заголовкам
+     * пользователя ({@code X-User-Id}, {@code X-User-Roles}), поэтому задаётся только для идемпотентных запросов.
+     * Метод с параметром {@link MessageProperties} может зависеть от любых других свойств запроса, поэтому кэш для
+     * него не задаётся. По умолчанию кэш выключен.
+     */
+    String cacheTtl() default "";
+
+    /**
+     * Максимальное количество закэшированных ответов. По умолчанию {@code 1024}.
+     */
+    int cacheSize() default 1024;
+
+}
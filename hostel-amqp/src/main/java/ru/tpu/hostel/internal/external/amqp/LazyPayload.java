@@ -0,0 +1,90 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.function.Function;
+
+/**
+ * Тело сообщения, которое десериализуется только при первом обращении к {@link #get()}. Свойства и заголовки
+ * доступны сразу, поэтому слушатель может решить, нужно ли ему сообщение, не разбирая тело. Результат разбора
+ * запоминается.
+ * <p>
+ * Используется как тип параметра метода {@code @RabbitListener} вместо типа тела:
+ * <pre>{@code
+ * @RabbitListener(queues = "${queueing.timeslots.queueName}", containerFactory = TIMESLOT_LISTENER)
+ * public void receiveTimeslotUpdate(LazyPayload<TimeslotResponse> update) {
+ *     if (!watchedDormitories.contains(update.<String>header("X-Dormitory-Id"))) {
+ *         return;
+ *     }
+ *     timeslotCache.put(update.get());
+ * }
+ * }</pre>
+ * Экземпляр принадлежит потоку обработки сообщения и не предназначен для передачи в другие потоки.
+ *
+ * @param <T> тип тела.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public final class LazyPayload<T> {
+
+    private final Message message;
+
+    private final Function<Message, T> decoder;
+
+    private T payload;
+
+    private boolean decoded;
+
+    /**
+     * @param message сообщение.
+     * @param decoder разбор тела, вызывается не больше одного раза.
+     */
+    public LazyPayload(@NotNull Message message, @NotNull Function<Message, T> decoder) {
+        this.message = message;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @return тело, разобранное при первом вызове.
+     */
+    public T get() {
+        if (!decoded) {
+            payload = decoder.apply(message);
+            decoded = true;
+        }
+        return payload;
+    }
+
+    /**
+     * @return {@code true}, если тело уже разобрано.
+     */
+    public boolean isDecoded() {
+        return decoded;
+    }
+
+    /**
+     * @param name имя заголовка.
+     * @return значение заголовка или {@code null}.
+     */
+    @Nullable
+    public <H> H header(@NotNull String name) {
+        return message.getMessageProperties().getHeader(name);
+    }
+
+    @NotNull
+    public MessageProperties properties() {
+        return message.getMessageProperties();
+    }
+
+    /**
+     * @return сырое тело без разбора.
+     */
+    public byte[] body() {
+        return message.getBody();
+    }
+
+}
@@ -0,0 +1,60 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Результат запроса одному получателю scatter-gather.
+ *
+ * @param target   получатель.
+ * @param status   статус запроса.
+ * @param response ответ, только при {@link Status#OK}.
+ * @param error    ошибка, только при {@link Status#FAILED}.
+ * @param <R>      тип ответа.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record ScatterGatherResult<R>(
+        @NotNull ScatterGatherTarget<R> target,
+        @NotNull Status status,
+        @Nullable R response,
+        @Nullable Throwable error
+) {
+
+    public static <R> ScatterGatherResult<R> ok(@NotNull ScatterGatherTarget<R> target, @NotNull R response) {
+        return new ScatterGatherResult<>(target, Status.OK, response, null);
+    }
+
+    public static <R> ScatterGatherResult<R> timeout(@NotNull ScatterGatherTarget<R> target) {
+        return new ScatterGatherResult<>(target, Status.TIMEOUT, null, null);
+    }
+
+    public static <R> ScatterGatherResult<R> failed(@NotNull ScatterGatherTarget<R> target, @NotNull Throwable error) {
+        return new ScatterGatherResult<>(target, Status.FAILED, null, error);
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    public enum Status {
+
+        /**
+         * Ответ получен.
+         */
+        OK,
+
+        /**
+         * Ответ не пришёл до общего дедлайна.
+         */
+        TIMEOUT,
+
+        /**
+         * Запрос не отправлен или ответ не удалось прочитать.
+         */
+        FAILED
+
+    }
+
+}
@@ -0,0 +1,59 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результаты scatter-gather по всем получателям, в порядке получателей запроса.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public final class ScatterGatherResults {
+
+    private final List<ScatterGatherResult<?>> results;
+
+    private final Map<ScatterGatherTarget<?>, ScatterGatherResult<?>> byTarget = new IdentityHashMap<>();
+
+    public ScatterGatherResults(@NotNull List<ScatterGatherResult<?>> results) {
+        this.results = List.copyOf(results);
+        results.forEach(result -> byTarget.put(result.target(), result));
+    }
+
+    /**
+     * Возвращает результат получателя.
+     *
+     * @param target получатель из запроса (тот же экземпляр).
+     * @return результат с типизированным ответом.
+     * @throws IllegalArgumentException если получателя не было в запросе.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <R> ScatterGatherResult<R> get(@NotNull ScatterGatherTarget<R> target) {
+        ScatterGatherResult<?> result = byTarget.get(target);
+        if (result == null) {
+            throw new IllegalArgumentException("Получателя не было в запросе: " + target);
+        }
+        return (ScatterGatherResult<R>) result;
+    }
+
+    /**
+     * @return результаты в порядке получателей запроса.
+     */
+    @NotNull
+    public List<ScatterGatherResult<?>> all() {
+        return results;
+    }
+
+    /**
+     * @return {@code true}, если ответили все получатели.
+     */
+    public boolean isComplete() {
+        return results.stream().allMatch(ScatterGatherResult::isOk);
+    }
+
+}
@@ -0,0 +1,43 @@
+package ru.tpu.hostel.internal.external.amqp;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Получатель одного запроса scatter-gather.
+ *
+ * @param microservice   микросервис-получатель, по нему выбирается конфиг отправки.
+ * @param exchange       обменник, {@code null} - обменник конфига.
+ * @param routingKey     ключ маршрутизации.
+ * @param messageId      ID сообщения.
+ * @param messagePayload содержимое сообщения.
+ * @param responseType   класс ответа.
+ * @param <R>            тип ответа.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see AmqpMessageSender#scatterGather(java.util.List, java.time.Duration)
+ * @since 2.0.0
+ */
+public record ScatterGatherTarget<R>(
+        @NotNull Microservice microservice,
+        @Nullable String exchange,
+        @NotNull String routingKey,
+        @NotNull String messageId,
+        @NotNull Object messagePayload,
+        @NotNull Class<R> responseType
+) {
+
+    /**
+     * Получатель на обменнике конфига микросервиса.
+     */
+    public static <R> ScatterGatherTarget<R> of(
+            @NotNull Microservice microservice,
+            @NotNull String routingKey,
+            @NotNull String messageId,
+            @NotNull Object messagePayload,
+            @NotNull Class<R> responseType
+    ) {
+        return new ScatterGatherTarget<>(microservice, null, routingKey, messageId, messagePayload, responseType);
+    }
+
+}
@@ -0,0 +1,159 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.external.amqp.AmqpReplyStream;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение потокового ответа из {@link ReplyChunkQueue}. Массив части разбирается потоково, по элементу за вызов
+ * {@link #next()}, и часть подтверждается только после чтения последнего элемента.
+ *
+ * @param <R> тип элемента ответа.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+final class ChunkedReplyStream<R> implements AmqpReplyStream<R> {
+
+    private static final String CHUNK_TIMEOUT_ERROR = "Часть потокового ответа не пришла за время ожидания";
+
+    private static final String CHUNK_ORDER_ERROR = "Нарушен порядок частей потокового ответа";
+
+    private static final String CHUNK_READ_ERROR = "Ошибка чтения части потокового ответа RabbitMQ";
+
+    private final ReplyChunkQueue chunks;
+
+    private final ObjectMapper mapper;
+
+    private final JavaType itemType;
+
+    private final long chunkTimeoutMillis;
+
+    private Message chunk;
+
+    private JsonParser parser;
+
+    private long expectedSequence;
+
+    private R nextItem;
+
+    private boolean hasNextItem;
+
+    private boolean finished;
+
+    ChunkedReplyStream(ReplyChunkQueue chunks, ObjectMapper mapper, JavaType itemType, long chunkTimeoutMillis) {
+        this.chunks = chunks;
+        this.mapper = mapper;
+        this.itemType = itemType;
+        this.chunkTimeoutMillis = chunkTimeoutMillis;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNextItem) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        try {
+            return advance();
+        } catch (IOException e) {
+            close();
+            throw new ServiceException.InternalServerError(CHUNK_READ_ERROR, e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R item = nextItem;
+        nextItem = null;
+        hasNextItem = false;
+        return item;
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        closeParser();
+        chunks.close();
+    }
+
+    /**
+     * Читает следующий элемент, при необходимости дожидаясь следующей части.
+     *
+     * @return {@code false}, если ответ закончился.
+     */
+    private boolean advance() throws IOException {
+        while (true) {
+            if (parser == null) {
+                openNextChunk();
+            }
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.END_ARRAY) {
+                nextItem = mapper.readValue(parser, itemType);
+                hasNextItem = true;
+                return true;
+            }
+
+            boolean last = Boolean.TRUE.equals(chunk.getMessageProperties().getHeader(LAST_CHUNK_HEADER));
+            closeParser();
+            chunks.ack(chunk);
+            chunk = null;
+            if (last) {
+                close();
+                return false;
+            }
+        }
+    }
+
+    private void openNextChunk() throws IOException {
+        try {
+            chunk = chunks.poll(chunkTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException.ServiceUnavailable(CHUNK_TIMEOUT_ERROR, e);
+        }
+        if (chunk == null) {
+            throw new ServiceException.ServiceUnavailable(CHUNK_TIMEOUT_ERROR);
+        }
+
+        Object sequence = chunk.getMessageProperties().getHeader(CHUNK_SEQUENCE_HEADER);
+        if (!(sequence instanceof Number number) || number.longValue() != expectedSequence) {
+            throw new ServiceException.InternalServerError(CHUNK_ORDER_ERROR + ": ожидалась часть "
+                    + expectedSequence + ", пришла " + sequence);
+        }
+        expectedSequence++;
+
+        parser = mapper.createParser(chunk.getBody());
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new ServiceException.InternalServerError(CHUNK_READ_ERROR + ": часть не является массивом");
+        }
+    }
+
+    private void closeParser() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException _) {
+                // Парсер читает из массива в памяти, закрывать нечего
+            }
+            parser = null;
+        }
+    }
+
+}
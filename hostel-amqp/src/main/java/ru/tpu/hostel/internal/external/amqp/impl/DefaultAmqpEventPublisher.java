@@ -0,0 +1,98 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitProperties;
+import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.external.amqp.AmqpEventPublisher;
+import ru.tpu.hostel.internal.external.amqp.Microservice;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Дефолтная реализация интерфейса {@link AmqpEventPublisher}. События публикуются через {@code RabbitTemplate}
+ * комплекта свойств, в котором они описаны, а сообщение собирается и отправляется
+ * {@link DefaultAmqpMessageSender}: так у событий те же заголовки и метрики, что у остальных сообщений, а в
+ * loopback-режиме они доставляются слушателям этого же процесса.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Service
+public class DefaultAmqpEventPublisher implements AmqpEventPublisher {
+
+    private final DefaultAmqpMessageSender amqpMessageSender;
+
+    private final Map<String, EventRoute> routes = new HashMap<>();
+
+    private final Set<String> ambiguousKeys = new HashSet<>();
+
+    public DefaultAmqpEventPublisher(
+            RabbitProperties rabbitProperties,
+            @Qualifier("customRabbitTemplates") Map<Microservice, Map<String, RabbitTemplate>> rabbitTemplates,
+            DefaultAmqpMessageSender amqpMessageSender
+    ) {
+        this.amqpMessageSender = amqpMessageSender;
+        rabbitProperties.properties().forEach((microservice, servicePropertiesMap) ->
+                servicePropertiesMap.forEach((propertiesName, serviceProperties) -> {
+                    if (serviceProperties.queueingProperties().events() == null) {
+                        return;
+                    }
+                    serviceProperties.queueingProperties().events().forEach((eventKey, event) -> {
+                        String fullName = microservice.name().toLowerCase() + "." + propertiesName + "." + eventKey;
+                        EventRoute route = new EventRoute(
+                                rabbitTemplates.get(microservice).get(propertiesName),
+                                event.exchangeName()
+                        );
+                        routes.put(fullName.toLowerCase(), route);
+                        if (routes.putIfAbsent(eventKey, route) != null) {
+                            ambiguousKeys.add(eventKey);
+                        }
+                    });
+                })
+        );
+        ambiguousKeys.forEach(routes::remove);
+    }
+
+    @Override
+    public void publish(
+            @NotNull String eventName,
+            @NotNull String routingKey,
+            @NotNull String messageId,
+            @NotNull Object messagePayload
+    ) {
+        EventRoute route = getRoute(eventName);
+        amqpMessageSender.publishEvent(
+                route.rabbitTemplate(),
+                route.exchange(),
+                routingKey,
+                messageId,
+                messagePayload
+        );
+    }
+
+    private EventRoute getRoute(String eventName) {
+        EventRoute route = routes.get(eventName);
+        if (route == null) {
+            route = routes.get(eventName.toLowerCase());
+        }
+        if (route != null) {
+            return route;
+        }
+        if (ambiguousKeys.contains(eventName)) {
+            throw new ServiceException.NotImplemented("Событие " + eventName + " есть в нескольких комплектах "
+                    + "свойств, используйте полное имя");
+        }
+        throw new ServiceException.NotImplemented("Не найдено событие RabbitMQ: " + eventName);
+    }
+
+    private record EventRoute(RabbitTemplate rabbitTemplate, String exchange) {
+    }
+
+}
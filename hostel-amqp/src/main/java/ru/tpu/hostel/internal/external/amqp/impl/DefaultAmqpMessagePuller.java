@@ -0,0 +1,297 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.MDC;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.RabbitExceptionTranslator;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerDescriptor;
+import ru.tpu.hostel.internal.config.amqp.RabbitListenerLocator;
+import ru.tpu.hostel.internal.external.amqp.AmqpMessagePuller;
+import ru.tpu.hostel.internal.utils.ExecutionContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Дефолтная реализация интерфейса {@link AmqpMessagePuller}.
+ * <p>
+ * Для каждого вызова открывается отдельный канал с {@code prefetch = maxMessages}, и брокер досылает пачку
+ * потоком, без запроса на каждое сообщение. Когда пачка набралась или вышло время ожидания, потребитель
+ * отменяется. Всё, что брокер успел прислать сверх пачки, остаётся неподтверждённым и возвращается в очередь при
+ * закрытии канала.
+ * <p>
+ * Пачка обрабатывается в одном спане {@code rabbit.pull}, который связан ссылками со спанами отправителей
+ * сообщений. На время обработки создаётся {@link ExecutionContext} с идентификаторами этого спана.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DefaultAmqpMessagePuller implements AmqpMessagePuller {
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final String BATCH_PULLED = "[RABBIT] Получена пачка из {} сообщений из очереди {}";
+
+    private static final String BATCH_PROCESSED = "[RABBIT] Пачка из {} сообщений обработана. Время выполнения {} мс";
+
+    private static final String BATCH_EXCEPTION
+            = "[RABBIT] Ошибка обработки пачки из {} сообщений, сообщения возвращены в очередь {}";
+
+    private static final String MESSAGE_REJECTED
+            = "[RABBIT] Сообщение не преобразовано и отклонено без возврата в очередь {}: messageId={}";
+
+    private static final TextMapGetter<Message> GETTER = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(Message carrier) {
+            return carrier.getMessageProperties().getHeaders().keySet();
+        }
+
+        @Override
+        public String get(Message carrier, String key) {
+            Object value = carrier == null ? null : carrier.getMessageProperties().getHeaders().get(key);
+            return value != null ? value.toString() : null;
+        }
+    };
+
+    private final RabbitListenerLocator listenerLocator;
+
+    private final OpenTelemetry openTelemetry;
+
+    @Override
+    public <T> int pull(
+            @NotNull String listenerName,
+            int maxMessages,
+            @NotNull Duration maxWait,
+            @NotNull Class<T> payloadType,
+            @NotNull Consumer<List<T>> handler
+    ) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным: " + maxMessages);
+        }
+
+        RabbitListenerDescriptor listener = listenerLocator.get(listenerName);
+        String queue = listener.listenerProperties().queueName();
+        try (Channel channel = listener.connectionFactory().createConnection().getDelegate().createChannel()) {
+            List<Message> messages = fetch(channel, queue, maxMessages, maxWait);
+            if (messages.isEmpty()) {
+                return 0;
+            }
+
+            List<Message> rejected = new ArrayList<>();
+            try {
+                handle(channel, listener, messages, rejected, payloadType, handler);
+            } catch (RuntimeException e) {
+                log.error(BATCH_EXCEPTION, messages.size(), queue, e);
+                settle(channel, messages, rejected, false);
+                throw e;
+            }
+            settle(channel, messages, rejected, true);
+            return messages.size();
+        } catch (IOException | TimeoutException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+    }
+
+    private List<Message> fetch(Channel channel, String queue, int maxMessages, Duration maxWait) throws IOException {
+        BlockingQueue<Message> deliveries = new LinkedBlockingQueue<>();
+        channel.basicQos(maxMessages);
+        String consumerTag = channel.basicConsume(queue, false, new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(
+                    String tag,
+                    Envelope envelope,
+                    AMQP.BasicProperties properties,
+                    byte[] body
+            ) {
+                MessageProperties messageProperties = PROPERTIES_CONVERTER.toMessageProperties(
+                        properties,
+                        envelope,
+                        StandardCharsets.UTF_8.name()
+                );
+                messageProperties.setConsumerQueue(queue);
+                deliveries.add(new Message(body, messageProperties));
+            }
+        });
+
+        List<Message> messages = new ArrayList<>(maxMessages);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        try {
+            while (messages.size() < maxMessages) {
+                Message message = deliveries.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                if (message == null) {
+                    break;
+                }
+                messages.add(message);
+                deliveries.drainTo(messages, maxMessages - messages.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.basicCancel(consumerTag);
+        }
+        return messages;
+    }
+
+    /**
+     * Подтверждает или возвращает в очередь все неотклонённые сообщения пачки одной операцией до последнего из них.
+     * Отклонённые сообщения уже закрыты, и повторная операция с их тегом закрыла бы канал.
+     */
+    private static void settle(
+            Channel channel,
+            List<Message> messages,
+            List<Message> rejected,
+            boolean ack
+    ) throws IOException {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            Message message = messages.get(i);
+            if (!rejected.contains(message)) {
+                long deliveryTag = message.getMessageProperties().getDeliveryTag();
+                if (ack) {
+                    channel.basicAck(deliveryTag, true);
+                } else {
+                    channel.basicNack(deliveryTag, true, true);
+                }
+                return;
+            }
+        }
+    }
+
+    private <T> void handle(
+            Channel channel,
+            RabbitListenerDescriptor listener,
+            List<Message> messages,
+            List<Message> rejected,
+            Class<T> payloadType,
+            Consumer<List<T>> handler
+    ) {
+        TextMapPropagator propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        SpanBuilder spanBuilder = openTelemetry.getTracer("ru.tpu.hostel.internal.amqp")
+                .spanBuilder("rabbit.pull")
+                .setSpanKind(SpanKind.CONSUMER)
+                .setAttribute("messaging.system", "rabbitmq")
+                .setAttribute("messaging.destination", listener.listenerProperties().queueName())
+                .setAttribute("messaging.operation", "receive")
+                .setAttribute("messaging.batch.message_count", messages.size());
+        for (Message message : messages) {
+            SpanContext producerContext = Span.fromContext(propagator.extract(Context.root(), message, GETTER))
+                    .getSpanContext();
+            if (producerContext.isValid()) {
+                spanBuilder.addLink(producerContext);
+            }
+        }
+
+        Span span = spanBuilder.startSpan();
+        // Контекст вызывающего (например, HTTP запроса) на время пачки заменяется контекстом её спана
+        ExecutionContext previousContext = ExecutionContext.get();
+        String previousTraceId = MDC.get("traceId");
+        String previousSpanId = MDC.get("spanId");
+        long startTime = System.currentTimeMillis();
+        try (Scope ignored = span.makeCurrent()) {
+            MDC.put("traceId", span.getSpanContext().getTraceId());
+            MDC.put("spanId", span.getSpanContext().getSpanId());
+            ExecutionContext.clear();
+            ExecutionContext.create(
+                    null,
+                    Collections.emptySet(),
+                    span.getSpanContext().getTraceId(),
+                    span.getSpanContext().getSpanId()
+            );
+            log.info(BATCH_PULLED, messages.size(), listener.listenerProperties().queueName());
+
+            List<T> payloads = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                try {
+                    payloads.add(convert(listener.messageConverter(), message, payloadType));
+                } catch (MessageConversionException | ClassCastException e) {
+                    reject(channel, listener, message, e);
+                    rejected.add(message);
+                }
+            }
+            if (!payloads.isEmpty()) {
+                handler.accept(payloads);
+            }
+
+            log.info(BATCH_PROCESSED, messages.size(), System.currentTimeMillis() - startTime);
+            span.setStatus(StatusCode.OK);
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            ExecutionContext.restore(previousContext);
+            span.end();
+            restoreMdc("traceId", previousTraceId);
+            restoreMdc("spanId", previousSpanId);
+        }
+    }
+
+    /**
+     * Отклоняет сообщение без возврата в очередь: повторная доставка не исправит ошибку преобразования.
+     */
+    private static void reject(Channel channel, RabbitListenerDescriptor listener, Message message, Exception error) {
+        log.error(
+                MESSAGE_REJECTED,
+                listener.listenerProperties().queueName(),
+                message.getMessageProperties().getMessageId(),
+                error
+        );
+        try {
+            channel.basicNack(message.getMessageProperties().getDeliveryTag(), false, false);
+        } catch (IOException e) {
+            throw RabbitExceptionTranslator.convertRabbitAccessException(e);
+        }
+    }
+
+    private static void restoreMdc(String key, String previousValue) {
+        if (previousValue == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, previousValue);
+        }
+    }
+
+    private <T> T convert(MessageConverter messageConverter, Message message, Class<T> payloadType) {
+        Object payload = messageConverter instanceof SmartMessageConverter smartMessageConverter
+                ? smartMessageConverter.fromMessage(message, ParameterizedTypeReference.forType(payloadType))
+                : messageConverter.fromMessage(message);
+        return payloadType.cast(payload);
+    }
+
+}
@@ -1,47 +1,78 @@
 package ru.tpu.hostel.internal.external.amqp.impl;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.propagation.TextMapSetter;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.MessagePropertiesBuilder;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import ru.tpu.hostel.internal.config.amqp.AmqpMessagingConfig;
+import ru.tpu.hostel.internal.config.amqp.metrics.AmqpProducerMetrics;
+import ru.tpu.hostel.internal.config.amqp.tracing.TracedConnectionFactory;
 import ru.tpu.hostel.internal.exception.ServiceException;
 import ru.tpu.hostel.internal.external.amqp.AmqpMessageSender;
+import ru.tpu.hostel.internal.external.amqp.AmqpReplyStream;
+import ru.tpu.hostel.internal.external.amqp.AmqpRpcEndpoint;
 import ru.tpu.hostel.internal.external.amqp.Microservice;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherResult;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherResults;
+import ru.tpu.hostel.internal.external.amqp.ScatterGatherTarget;
 import ru.tpu.hostel.internal.utils.TimeUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Дефолтная реализация интерфейса {@link AmqpMessageSender}. Можно использовать везде и всюду, необходимо лишь написать
  * бины конфигов для отправки {@link AmqpMessagingConfig}
  *
  * @author Илья Лапшин
- * @version 1.3.5
+ * @version 2.0.0
+ * @see AmqpProducerMetrics
+ * @see LoopbackAmqpMessageSender
  * @since 1.0.7
  */
 @Service
 @Primary
+@ConditionalOnProperty(prefix = "rabbitmq.loopback", name = "enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
-public class DefaultAmqpMessageSender implements AmqpMessageSender {
+public class DefaultAmqpMessageSender implements AmqpMessageSender, DisposableBean {
 
     private static final String SENDING_MESSAGE_ERROR = "Ошибка отправки сообщения RabbitMQ";
 
@@ -52,6 +83,8 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
 
     private static final String EMPTY_STRING_ERROR = "Пустая строка";
 
+    private static final String REPLY_TIMEOUT = "ReplyTimeout";
+
     private static final ObjectMapper MAPPER = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
@@ -70,6 +103,16 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
 
     private final OpenTelemetry openTelemetry;
 
+    private final AmqpProducerMetrics producerMetrics;
+
+    /**
+     * Асинхронные шаблоны для scatter-gather, по одному на конфиг: у каждого свой общий потребитель ответов через
+     * direct reply-to. Ключ - конфиг, а не {@code RabbitTemplate}, потому что конфиги могут создавать новый шаблон
+     * при каждом обращении, и не фабрика подключений, потому что конфиги одной фабрики могут настраивать шаблоны
+     * по-разному.
+     */
+    private final Map<AmqpMessagingConfig, AsyncRabbitTemplate> asyncRabbitTemplates = new ConcurrentHashMap<>();
+
     @Override
     public void send(@NotNull Enum<?> messageType, @NotNull String messageId, @NotNull Object messagePayload) {
         checkString(messageId);
@@ -80,7 +123,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            amqpMessagingConfig.rabbitTemplate().send(message);
+            publish(amqpMessagingConfig, messageType, null, null, message);
         } catch (AmqpException e) {
             throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
         } catch (IOException e) {
@@ -108,7 +151,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     customMessageProperties
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            amqpMessagingConfig.rabbitTemplate().send(message);
+            publish(amqpMessagingConfig, messageType, null, null, message);
         } catch (AmqpException e) {
             throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
         } catch (IOException e) {
@@ -132,7 +175,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            Message response = amqpMessagingConfig.rabbitTemplate().sendAndReceive(message);
+            Message response = publishAndReceive(amqpMessagingConfig, messageType, null, null, message);
 
             if (response == null || response.getBody() == null || response.getBody().length == 0) {
                 throw new ServiceException.ServiceUnavailable(EMPTY_RESPONSE_ERROR);
@@ -167,7 +210,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
             AmqpMessagingConfig amqpMessagingConfig = getAmqpMessagingConfig(messageType);
             MessageProperties messageProperties = getReplyMessageProperties(properties);
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            amqpMessagingConfig.rabbitTemplate().send("", messageProperties.getReplyTo(), message);
+            publish(amqpMessagingConfig, messageType, "", messageProperties.getReplyTo(), message);
         } catch (AmqpException e) {
             throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
         } catch (IOException e) {
@@ -175,6 +218,23 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
         }
     }
 
+    @Override
+    public void sendErrorReply(
+            @NotNull Enum<?> messageType,
+            @NotNull MessageProperties properties,
+            @NotNull String error
+    ) {
+        try {
+            AmqpMessagingConfig amqpMessagingConfig = getAmqpMessagingConfig(messageType);
+            MessageProperties messageProperties = getReplyMessageProperties(properties);
+            messageProperties.setHeader(AmqpRpcEndpoint.ERROR_HEADER, error);
+            Message message = new Message(new byte[0], messageProperties);
+            publish(amqpMessagingConfig, messageType, "", messageProperties.getReplyTo(), message);
+        } catch (AmqpException e) {
+            throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
+        }
+    }
+
     @Override
     public void send(
             @NotNull Microservice microservice,
@@ -190,7 +250,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            amqpMessagingConfig.rabbitTemplate().send(routingKey, message);
+            publish(amqpMessagingConfig, null, null, routingKey, message);
         } catch (AmqpException e) {
             throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
         } catch (IOException e) {
@@ -214,7 +274,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            amqpMessagingConfig.rabbitTemplate().send(exchange, routingKey, message);
+            publish(amqpMessagingConfig, null, exchange, routingKey, message);
         } catch (AmqpException e) {
             throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
         } catch (IOException e) {
@@ -239,7 +299,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            Message response = amqpMessagingConfig.rabbitTemplate().sendAndReceive(routingKey, message);
+            Message response = publishAndReceive(amqpMessagingConfig, null, null, routingKey, message);
 
             if (response == null || response.getBody() == null || response.getBody().length == 0) {
                 throw new ServiceException.ServiceUnavailable(EMPTY_RESPONSE_ERROR);
@@ -271,7 +331,7 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
                     amqpMessagingConfig.defaultMessageProperties()
             );
             Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
-            Message response = amqpMessagingConfig.rabbitTemplate().sendAndReceive(exchange, routingKey, message);
+            Message response = publishAndReceive(amqpMessagingConfig, null, exchange, routingKey, message);
 
             if (response == null || response.getBody() == null || response.getBody().length == 0) {
                 throw new ServiceException.ServiceUnavailable(EMPTY_RESPONSE_ERROR);
@@ -285,6 +345,364 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
         }
     }
 
+    @Override
+    @NotNull
+    public ScatterGatherResults scatterGather(
+            @NotNull List<ScatterGatherTarget<?>> targets,
+            @NotNull Duration deadline
+    ) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        List<CompletableFuture<Message>> responses = new ArrayList<>(targets.size());
+        for (ScatterGatherTarget<?> target : targets) {
+            responses.add(scatter(target, deadlineNanos));
+        }
+
+        List<ScatterGatherResult<?>> results = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            results.add(gather(targets.get(i), responses.get(i), deadlineNanos));
+        }
+        return new ScatterGatherResults(results);
+    }
+
+    @Override
+    @NotNull
+    public <R> AmqpReplyStream<R> sendAndReceiveStream(
+            @NotNull Enum<?> messageType,
+            @NotNull String messageId,
+            @NotNull Object messagePayload,
+            @NotNull Class<R> itemType,
+            @NotNull Duration chunkTimeout
+    ) {
+        checkString(messageId);
+        ReplyChunkQueue replyChunkQueue = null;
+        try {
+            AmqpMessagingConfig amqpMessagingConfig = getAmqpMessagingConfig(messageType);
+            MessageProperties messageProperties = getMessageProperties(
+                    messageId,
+                    amqpMessagingConfig.defaultMessageProperties()
+            );
+            Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
+            replyChunkQueue = openReplyChunkQueue(amqpMessagingConfig.rabbitTemplate());
+            messageProperties.setReplyTo(replyChunkQueue.name());
+            publish(amqpMessagingConfig, messageType, null, null, message);
+            return new ChunkedReplyStream<>(
+                    replyChunkQueue,
+                    MAPPER,
+                    MAPPER.constructType(itemType),
+                    chunkTimeout.toMillis()
+            );
+        } catch (AmqpException e) {
+            closeQuietly(replyChunkQueue);
+            throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
+        } catch (IOException e) {
+            closeQuietly(replyChunkQueue);
+            throw new ServiceException.InternalServerError(SERIALIZATION_OR_DESERIALIZATION_ERROR, e);
+        }
+    }
+
+    @Override
+    public void sendReplyStream(
+            @NotNull Enum<?> messageType,
+            @NotNull MessageProperties properties,
+            @NotNull Iterator<?> items,
+            int chunkSize
+    ) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер части ответа должен быть положительным: " + chunkSize);
+        }
+        try {
+            AmqpMessagingConfig amqpMessagingConfig = getAmqpMessagingConfig(messageType);
+            long sequence = 0;
+            boolean last;
+            do {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                try (JsonGenerator generator = MAPPER.createGenerator(body)) {
+                    generator.writeStartArray();
+                    for (int i = 0; i < chunkSize && items.hasNext(); i++) {
+                        MAPPER.writeValue(generator, items.next());
+                    }
+                    generator.writeEndArray();
+                }
+                last = !items.hasNext();
+
+                MessageProperties messageProperties = getReplyMessageProperties(properties);
+                messageProperties.setHeader(AmqpReplyStream.CHUNK_SEQUENCE_HEADER, sequence++);
+                messageProperties.setHeader(AmqpReplyStream.LAST_CHUNK_HEADER, last);
+                Message message = new Message(body.toByteArray(), messageProperties);
+                publish(amqpMessagingConfig, messageType, "", messageProperties.getReplyTo(), message);
+            } while (!last);
+        } catch (AmqpException e) {
+            throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
+        } catch (IOException e) {
+            throw new ServiceException.InternalServerError(SERIALIZATION_OR_DESERIALIZATION_ERROR, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        asyncRabbitTemplates.values().forEach(AsyncRabbitTemplate::stop);
+    }
+
+    /**
+     * Отправляет запрос получателю, не дожидаясь ответа. Ошибка подготовки или отправки возвращается
+     * завершённым с ошибкой future, чтобы не прерывать отправку остальным получателям.
+     */
+    private CompletableFuture<Message> scatter(ScatterGatherTarget<?> target, long deadlineNanos) {
+        try {
+            checkString(target.routingKey(), target.messageId());
+            AmqpMessagingConfig amqpMessagingConfig = getAmqpMessagingConfig(target.microservice());
+            MessageProperties messageProperties = getMessageProperties(
+                    target.messageId(),
+                    amqpMessagingConfig.defaultMessageProperties()
+            );
+            Message message = new Message(MAPPER.writeValueAsBytes(target.messagePayload()), messageProperties);
+            return publishAndReceiveAsync(
+                    amqpMessagingConfig,
+                    target.exchange(),
+                    target.routingKey(),
+                    message,
+                    Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()))
+            );
+        } catch (AmqpException e) {
+            return CompletableFuture.failedFuture(new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(
+                    new ServiceException.InternalServerError(SERIALIZATION_OR_DESERIALIZATION_ERROR, e)
+            );
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ждёт ответ получателя до общего дедлайна. Не дождавшийся ответа запрос отменяется, чтобы не держать его в
+     * потребителе ответов.
+     */
+    private <R> ScatterGatherResult<R> gather(
+            ScatterGatherTarget<R> target,
+            CompletableFuture<Message> responseFuture,
+            long deadlineNanos
+    ) {
+        try {
+            Message response = responseFuture.get(
+                    Math.max(0, deadlineNanos - System.nanoTime()),
+                    TimeUnit.NANOSECONDS
+            );
+            if (response == null) {
+                return ScatterGatherResult.timeout(target);
+            }
+            if (response.getBody() == null || response.getBody().length == 0) {
+                return ScatterGatherResult.failed(
+                        target,
+                        new ServiceException.ServiceUnavailable(EMPTY_RESPONSE_ERROR)
+                );
+            }
+            return ScatterGatherResult.ok(target, MAPPER.readValue(response.getBody(), target.responseType()));
+        } catch (TimeoutException e) {
+            responseFuture.cancel(true);
+            return ScatterGatherResult.timeout(target);
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof AmqpReplyTimeoutException
+                    ? ScatterGatherResult.timeout(target)
+                    : ScatterGatherResult.failed(target, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            responseFuture.cancel(true);
+            return ScatterGatherResult.failed(target, e);
+        } catch (IOException e) {
+            return ScatterGatherResult.failed(
+                    target,
+                    new ServiceException.InternalServerError(SERIALIZATION_OR_DESERIALIZATION_ERROR, e)
+            );
+        }
+    }
+
+    /**
+     * Публикует событие в обменник через {@code RabbitTemplate} комплекта свойств, без поиска
+     * {@link AmqpMessagingConfig}. Получатели события неизвестны, поэтому в метриках микросервис не указывается.
+     */
+    void publishEvent(
+            RabbitTemplate rabbitTemplate,
+            String exchange,
+            String routingKey,
+            String messageId,
+            Object messagePayload
+    ) {
+        checkString(routingKey, messageId);
+        try {
+            MessageProperties messageProperties = getMessageProperties(
+                    messageId,
+                    MessagePropertiesBuilder.newInstance()
+                            .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                            .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                            .build()
+            );
+            Message message = new Message(MAPPER.writeValueAsBytes(messagePayload), messageProperties);
+            publish(rabbitTemplate, Set.of(), null, exchange, routingKey, message);
+        } catch (AmqpException e) {
+            throw new ServiceException.ServiceUnavailable(SENDING_MESSAGE_ERROR, e);
+        } catch (IOException e) {
+            throw new ServiceException.InternalServerError(SERIALIZATION_OR_DESERIALIZATION_ERROR, e);
+        }
+    }
+
+    /**
+     * Публикует сообщение и записывает метрики отправки. Если {@code exchange} или {@code routingKey} равны
+     * {@code null}, берутся значения из {@code RabbitTemplate} конфига.
+     */
+    private void publish(
+            AmqpMessagingConfig amqpMessagingConfig,
+            Enum<?> messageType,
+            String exchange,
+            String routingKey,
+            Message message
+    ) {
+        publish(
+                amqpMessagingConfig.rabbitTemplate(),
+                amqpMessagingConfig.receivingMicroservices(),
+                messageType,
+                exchange,
+                routingKey,
+                message
+        );
+    }
+
+    private void publish(
+            RabbitTemplate rabbitTemplate,
+            Set<Microservice> receivingMicroservices,
+            Enum<?> messageType,
+            String exchange,
+            String routingKey,
+            Message message
+    ) {
+        setMessageType(message, messageType);
+        String targetExchange = exchange == null ? rabbitTemplate.getExchange() : exchange;
+        String targetRoutingKey = routingKey == null ? rabbitTemplate.getRoutingKey() : routingKey;
+        Attributes attributes = producerMetrics.attributes(
+                receivingMicroservices,
+                messageType,
+                targetExchange,
+                trafficClass(rabbitTemplate)
+        );
+        CorrelationData correlationData = rabbitTemplate.getConnectionFactory().isPublisherConfirms()
+                ? new CorrelationData()
+                : null;
+
+        throttle(rabbitTemplate, attributes);
+        long startNanos = System.nanoTime();
+        try {
+            doSend(rabbitTemplate, targetExchange, targetRoutingKey, message, correlationData);
+        } catch (AmqpException e) {
+            producerMetrics.recordFailure(attributes, e.getClass().getSimpleName());
+            throw e;
+        }
+        producerMetrics.recordPublish(attributes, startNanos, message.getBody().length);
+        if (correlationData != null) {
+            producerMetrics.trackConfirm(attributes, correlationData, startNanos);
+        }
+    }
+
+    /**
+     * RPC отправка с записью метрик. Возвращает {@code null}, если ответ не пришёл за время ожидания.
+     */
+    private Message publishAndReceive(
+            AmqpMessagingConfig amqpMessagingConfig,
+            Enum<?> messageType,
+            String exchange,
+            String routingKey,
+            Message message
+    ) {
+        RabbitTemplate rabbitTemplate = amqpMessagingConfig.rabbitTemplate();
+        setMessageType(message, messageType);
+        String targetExchange = exchange == null ? rabbitTemplate.getExchange() : exchange;
+        String targetRoutingKey = routingKey == null ? rabbitTemplate.getRoutingKey() : routingKey;
+        Attributes attributes = producerMetrics.attributes(
+                amqpMessagingConfig.receivingMicroservices(),
+                messageType,
+                targetExchange,
+                trafficClass(rabbitTemplate)
+        );
+
+        throttle(rabbitTemplate, attributes);
+        long startNanos = System.nanoTime();
+        Message response;
+        try {
+            response = doSendAndReceive(rabbitTemplate, targetExchange, targetRoutingKey, message);
+        } catch (AmqpException e) {
+            producerMetrics.recordFailure(attributes, e.getClass().getSimpleName());
+            throw e;
+        }
+        producerMetrics.recordRpc(attributes, startNanos, message.getBody().length);
+        if (response == null) {
+            producerMetrics.recordFailure(attributes, REPLY_TIMEOUT);
+        }
+        return response;
+    }
+
+    /**
+     * Асинхронная RPC отправка с записью метрик по завершении. Future завершается значением {@code null}, если
+     * транспорт не дождался ответа сам, а отменённый по дедлайну future считается таймаутом.
+     */
+    private CompletableFuture<Message> publishAndReceiveAsync(
+            AmqpMessagingConfig amqpMessagingConfig,
+            String exchange,
+            String routingKey,
+            Message message,
+            Duration timeout
+    ) {
+        RabbitTemplate rabbitTemplate = amqpMessagingConfig.rabbitTemplate();
+        String targetExchange = exchange == null ? rabbitTemplate.getExchange() : exchange;
+        Attributes attributes = producerMetrics.attributes(
+                amqpMessagingConfig.receivingMicroservices(),
+                null,
+                targetExchange,
+                trafficClass(rabbitTemplate)
+        );
+
+        throttle(rabbitTemplate, attributes);
+        long startNanos = System.nanoTime();
+        CompletableFuture<Message> response;
+        try {
+            response = doSendAndReceiveAsync(amqpMessagingConfig, targetExchange, routingKey, message, timeout);
+        } catch (AmqpException e) {
+            producerMetrics.recordFailure(attributes, e.getClass().getSimpleName());
+            throw e;
+        }
+        // Возвращается исходный future, а не зависимый: его отмена по дедлайну снимает ожидание в транспорте
+        response.whenComplete((reply, error) -> {
+            if (error == null) {
+                producerMetrics.recordRpc(attributes, startNanos, message.getBody().length);
+                if (reply == null) {
+                    producerMetrics.recordFailure(attributes, REPLY_TIMEOUT);
+                }
+            } else {
+                producerMetrics.recordFailure(
+                        attributes,
+                        error instanceof CancellationException || error instanceof AmqpReplyTimeoutException
+                                ? REPLY_TIMEOUT
+                                : error.getClass().getSimpleName()
+                );
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Ждёт лимита отправки, если подключение шаблона принадлежит классу трафика с {@code rate-limit}.
+     */
+    private void throttle(RabbitTemplate rabbitTemplate, Attributes attributes) {
+        if (rabbitTemplate.getConnectionFactory() instanceof TracedConnectionFactory connectionFactory
+                && connectionFactory.getRateLimiter() != null) {
+            producerMetrics.recordThrottle(attributes, connectionFactory.getRateLimiter().acquire());
+        }
+    }
+
+    private static String trafficClass(RabbitTemplate rabbitTemplate) {
+        return rabbitTemplate.getConnectionFactory() instanceof TracedConnectionFactory connectionFactory
+                ? connectionFactory.getTrafficClass()
+                : null;
+    }
+
     private AmqpMessagingConfig getAmqpMessagingConfig(Enum<?> amqpMessageType) {
         return amqpMessagingConfigs.stream()
                 .filter(config -> config.isApplicable(amqpMessageType))
@@ -319,6 +737,82 @@ public class DefaultAmqpMessageSender implements AmqpMessageSender {
         return properties;
     }
 
+    /**
+     * Передаёт сообщение транспорту. По умолчанию - публикация через {@code RabbitTemplate}.
+     */
+    protected void doSend(
+            RabbitTemplate rabbitTemplate,
+            String exchange,
+            String routingKey,
+            Message message,
+            CorrelationData correlationData
+    ) {
+        rabbitTemplate.send(exchange, routingKey, message, correlationData);
+    }
+
+    /**
+     * Передаёт RPC сообщение транспорту и возвращает ответ или {@code null}, если ответ не пришёл за время ожидания.
+     */
+    protected Message doSendAndReceive(
+            RabbitTemplate rabbitTemplate,
+            String exchange,
+            String routingKey,
+            Message message
+    ) {
+        return rabbitTemplate.sendAndReceive(exchange, routingKey, message);
+    }
+
+    /**
+     * Передаёт RPC сообщение транспорту без ожидания ответа. По умолчанию - {@link AsyncRabbitTemplate} поверх
+     * {@code RabbitTemplate} конфига.
+     * <p>
+     * Таймаут ответа {@link AsyncRabbitTemplate} общий для шаблона и читается при отправке, поэтому задаётся перед
+     * каждой отправкой под блокировкой шаблона. Без этого действовал бы таймаут по умолчанию в 30 секунд, и ответ
+     * после него считался бы таймаутом даже при более длинном дедлайне.
+     *
+     * @param timeout время ожидания ответа.
+     */
+    protected CompletableFuture<Message> doSendAndReceiveAsync(
+            AmqpMessagingConfig amqpMessagingConfig,
+            String exchange,
+            String routingKey,
+            Message message,
+            Duration timeout
+    ) {
+        AsyncRabbitTemplate asyncRabbitTemplate = asyncRabbitTemplates.computeIfAbsent(amqpMessagingConfig, _ -> {
+            AsyncRabbitTemplate template = new AsyncRabbitTemplate(amqpMessagingConfig.rabbitTemplate());
+            template.start();
+            return template;
+        });
+        synchronized (asyncRabbitTemplate) {
+            asyncRabbitTemplate.setReceiveTimeout(Math.max(1, timeout.toMillis()));
+            return asyncRabbitTemplate.sendAndReceive(exchange, routingKey, message);
+        }
+    }
+
+    /**
+     * Открывает очередь частей потокового ответа. По умолчанию - временная очередь RabbitMQ на подключении
+     * {@code RabbitTemplate} конфига.
+     */
+    ReplyChunkQueue openReplyChunkQueue(RabbitTemplate rabbitTemplate) {
+        return new RabbitReplyChunkQueue(rabbitTemplate.getConnectionFactory());
+    }
+
+    private static void closeQuietly(ReplyChunkQueue replyChunkQueue) {
+        if (replyChunkQueue != null) {
+            replyChunkQueue.close();
+        }
+    }
+
+    /**
+     * Проставляет тип сообщения в свойства, если он не задан явно. По нему фильтруются сообщения parking-lot очереди.
+     */
+    private void setMessageType(Message message, Enum<?> messageType) {
+        if (messageType != null && message.getMessageProperties().getType() == null) {
+            message.getMessageProperties().setType(messageType.name());
+        }
+    }
+
     private MessageProperties getReplyMessageProperties(MessageProperties messageProperties) {
         ZonedDateTime now = TimeUtil.getZonedDateTime();
         long nowMillis = now.toInstant().toEpochMilli();
@@ -0,0 +1,142 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import io.opentelemetry.api.OpenTelemetry;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.tpu.hostel.internal.config.amqp.AmqpMessagingConfig;
+import ru.tpu.hostel.internal.config.amqp.loopback.RabbitLoopbackBroker;
+import ru.tpu.hostel.internal.config.amqp.metrics.AmqpProducerMetrics;
+import ru.tpu.hostel.internal.external.amqp.AmqpMessageSender;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реализация {@link AmqpMessageSender} для loopback-режима ({@code rabbitmq.loopback.enabled: true}). Сообщения
+ * собираются так же, как в {@link DefaultAmqpMessageSender}, но вместо RabbitMQ передаются в
+ * {@link RabbitLoopbackBroker} и доставляются слушателям этого же процесса.
+ * <p>
+ * Нужен для локальных запусков и нагрузочных замеров без брокера: время обработки сообщений не смешивается с
+ * сетевыми задержками, а задержку и долю ошибок брокера можно задать в свойствах.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "rabbitmq.loopback", name = "enabled", havingValue = "true")
+public class LoopbackAmqpMessageSender extends DefaultAmqpMessageSender {
+
+    private final RabbitLoopbackBroker loopbackBroker;
+
+    private final ExecutorService replyExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LoopbackAmqpMessageSender(
+            Set<AmqpMessagingConfig> amqpMessagingConfigs,
+            OpenTelemetry openTelemetry,
+            AmqpProducerMetrics producerMetrics,
+            RabbitLoopbackBroker loopbackBroker
+    ) {
+        super(amqpMessagingConfigs, openTelemetry, producerMetrics);
+        this.loopbackBroker = loopbackBroker;
+    }
+
+    @Override
+    protected void doSend(
+            RabbitTemplate rabbitTemplate,
+            String exchange,
+            String routingKey,
+            Message message,
+            CorrelationData correlationData
+    ) {
+        loopbackBroker.publish(exchange, routingKey, message);
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+    }
+
+    @Override
+    protected Message doSendAndReceive(
+            RabbitTemplate rabbitTemplate,
+            String exchange,
+            String routingKey,
+            Message message
+    ) {
+        return loopbackBroker.publishAndReceive(exchange, routingKey, message);
+    }
+
+    /**
+     * Брокер отвечает синхронно, поэтому каждый запрос ждёт ответ в своём виртуальном потоке.
+     */
+    @Override
+    protected CompletableFuture<Message> doSendAndReceiveAsync(
+            AmqpMessagingConfig amqpMessagingConfig,
+            String exchange,
+            String routingKey,
+            Message message,
+            Duration timeout
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> loopbackBroker.publishAndReceive(exchange, routingKey, message),
+                replyExecutor
+        );
+    }
+
+    /**
+     * Очередь частей в памяти ограничена {@link ReplyChunkQueue#PREFETCH}: отправитель ответа ждёт, пока клиент не
+     * прочитает предыдущие части, так же как в брокере.
+     */
+    @Override
+    ReplyChunkQueue openReplyChunkQueue(RabbitTemplate rabbitTemplate) {
+        BlockingQueue<Message> chunks = new ArrayBlockingQueue<>(ReplyChunkQueue.PREFETCH);
+        String name = loopbackBroker.openReplyQueue(chunk -> {
+            try {
+                chunks.put(chunk);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException(e);
+            }
+        });
+        return new ReplyChunkQueue() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+                return chunks.poll(timeout, unit);
+            }
+
+            @Override
+            public void ack(Message chunk) {
+                // Место в очереди освобождается при чтении части
+            }
+
+            @Override
+            public void close() {
+                loopbackBroker.closeReplyQueue(name);
+                chunks.clear();
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        replyExecutor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,113 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Временная очередь частей ответа в RabbitMQ: безымянная эксклюзивная очередь с автоудалением на отдельном канале.
+ * Потребитель подтверждает части вручную с prefetch {@link #PREFETCH}, поэтому остальные части ждут в брокере, пока
+ * клиент не прочитает предыдущие. Очередь удаляется брокером при отмене потребителя.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+final class RabbitReplyChunkQueue implements ReplyChunkQueue {
+
+    private static final MessagePropertiesConverter PROPERTIES_CONVERTER = new DefaultMessagePropertiesConverter();
+
+    private static final String CANCEL_EXCEPTION
+            = "[RABBIT] Не удалось отменить потребителя очереди потокового ответа {}";
+
+    private static final String CHANNEL_CLOSE_EXCEPTION
+            = "[RABBIT] Не удалось закрыть канал очереди потокового ответа {}";
+
+    private final BlockingQueue<Message> chunks = new LinkedBlockingQueue<>();
+
+    private final Channel channel;
+
+    private final String name;
+
+    private final String consumerTag;
+
+    RabbitReplyChunkQueue(ConnectionFactory connectionFactory) {
+        this.channel = connectionFactory.createConnection().createChannel(false);
+        try {
+            channel.basicQos(PREFETCH);
+            this.name = channel.queueDeclare().getQueue();
+            this.consumerTag = channel.basicConsume(name, false, new DefaultConsumer(channel) {
+                @Override
+                public void handleDelivery(
+                        String consumerTag,
+                        Envelope envelope,
+                        AMQP.BasicProperties properties,
+                        byte[] body
+                ) {
+                    chunks.add(new Message(body, PROPERTIES_CONVERTER.toMessageProperties(
+                            properties,
+                            envelope,
+                            StandardCharsets.UTF_8.name()
+                    )));
+                }
+            });
+        } catch (IOException e) {
+            closeChannel();
+            throw new AmqpIOException(e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return chunks.poll(timeout, unit);
+    }
+
+    @Override
+    public void ack(Message chunk) {
+        try {
+            channel.basicAck(chunk.getMessageProperties().getDeliveryTag(), false);
+        } catch (IOException e) {
+            throw new AmqpIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            // Канал вернётся в кэш фабрики, поэтому потребитель отменяется явно
+            channel.basicCancel(consumerTag);
+        } catch (IOException | RuntimeException e) {
+            log.debug(CANCEL_EXCEPTION, name, e);
+        }
+        chunks.clear();
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (Exception e) {
+            log.debug(CHANNEL_CLOSE_EXCEPTION, name, e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import org.springframework.amqp.core.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очередь частей потокового ответа со стороны клиента.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see ChunkedReplyStream
+ * @since 2.0.0
+ */
+interface ReplyChunkQueue extends AutoCloseable {
+
+    /**
+     * Сколько частей клиент держит у себя до подтверждения.
+     */
+    int PREFETCH = 4;
+
+    /**
+     * @return адрес для {@code replyTo} запроса.
+     */
+    String name();
+
+    /**
+     * @return следующая часть или {@code null}, если она не пришла за время ожидания.
+     */
+    Message poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Подтверждает прочитанную часть, освобождая место для следующей.
+     */
+    void ack(Message chunk);
+
+    @Override
+    void close();
+
+}
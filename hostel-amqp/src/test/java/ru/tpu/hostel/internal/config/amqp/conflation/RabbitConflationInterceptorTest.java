@@ -0,0 +1,166 @@
+package ru.tpu.hostel.internal.config.amqp.conflation;
+
+import com.rabbitmq.client.Channel;
+import io.opentelemetry.api.OpenTelemetry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitConflationProperties;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitConflationInterceptorTest {
+
+    private static final String KEY_HEADER = "X-Key";
+
+    private final Channel channel = mock(Channel.class);
+
+    private final List<Long> processed = new CopyOnWriteArrayList<>();
+
+    private RabbitConflationInterceptor interceptor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (interceptor != null) {
+            interceptor.destroy();
+        }
+    }
+
+    @Test
+    void supersedesPendingMessageOfSameKey() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        interceptor.invoke(invocation(message(1, "a"), () -> {
+            started.countDown();
+            release.await();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (long deliveryTag = 2; deliveryTag <= 4; deliveryTag++) {
+            interceptor.invoke(invocation(message(deliveryTag, "b"), () -> {
+            }));
+        }
+
+        // Заменённые сообщения подтверждаются сразу, без обработки
+        verify(channel).basicAck(2, false);
+        verify(channel).basicAck(3, false);
+        release.countDown();
+
+        verify(channel, timeout(5_000)).basicAck(4, false);
+        verify(channel, timeout(5_000)).basicAck(1, false);
+        assertEquals(List.of(1L, 4L), processed);
+    }
+
+    @Test
+    void doesNotConflateMessagesWithoutKey() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(null);
+
+        for (long deliveryTag = 1; deliveryTag <= 3; deliveryTag++) {
+            interceptor.invoke(invocation(message(deliveryTag, null), () -> {
+            }));
+        }
+
+        verify(channel, timeout(5_000).times(3)).basicAck(anyLong(), eq(false));
+        assertEquals(List.of(1L, 2L, 3L), processed);
+    }
+
+    @Test
+    void rejectsFailedMessageWithoutRequeue() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(null);
+
+        interceptor.invoke(invocation(message(1, "a"), () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(channel, timeout(5_000)).basicNack(1, false, false);
+        verify(channel, never()).basicAck(anyLong(), eq(false));
+    }
+
+    @Test
+    void requeuesPendingMessagesOnDestroy() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        interceptor.invoke(invocation(message(1, "a"), () -> {
+            started.countDown();
+            release.await();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        interceptor.invoke(invocation(message(2, "b"), () -> {
+        }));
+
+        Thread destroyer = new Thread(() -> {
+            try {
+                interceptor.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        destroyer.start();
+        verify(channel, timeout(5_000)).basicNack(2, false, true);
+        release.countDown();
+        destroyer.join(10_000);
+        interceptor = null;
+
+        verify(channel).basicAck(1, false);
+        assertEquals(List.of(1L), processed);
+    }
+
+    private static RabbitConflationInterceptor create(Integer workers) {
+        return new RabbitConflationInterceptor(
+                new RabbitConflationProperties(KEY_HEADER, null, null, workers),
+                "q",
+                OpenTelemetry.noop()
+        );
+    }
+
+    private MethodInvocation invocation(Message message, Body body) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{channel, message});
+        when(invocation.proceed()).thenAnswer(_ -> {
+            body.run();
+            processed.add(message.getMessageProperties().getDeliveryTag());
+            return null;
+        });
+        return invocation;
+    }
+
+    private static Message message(long deliveryTag, String key) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setMessageId("m" + deliveryTag);
+        if (key != null) {
+            properties.setHeader(KEY_HEADER, key);
+        }
+        return new Message(new byte[0], properties);
+    }
+
+    @FunctionalInterface
+    private interface Body {
+
+        void run() throws Exception;
+
+    }
+
+}
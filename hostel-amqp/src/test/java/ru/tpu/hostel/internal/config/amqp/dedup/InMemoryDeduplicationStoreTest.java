@@ -0,0 +1,75 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryDeduplicationStoreTest {
+
+    @Test
+    void containsAddedMessageWithinWindow() {
+        InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(Duration.ofMinutes(1), 100);
+
+        store.add("m1");
+
+        assertTrue(store.contains("m1"));
+        assertFalse(store.contains("m2"));
+    }
+
+    @Test
+    void forgetsMessageAfterWindow() throws InterruptedException {
+        InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(Duration.ofMillis(100), 100);
+        store.add("m1");
+
+        Thread.sleep(250);
+
+        assertFalse(store.contains("m1"));
+    }
+
+    @Test
+    void keepsMessagesOfPreviousGeneration() throws InterruptedException {
+        InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(Duration.ofMillis(300), 100);
+        store.add("m1");
+
+        // Поколение фильтра Блума сменилось, но окно для m2 ещё не истекло
+        Thread.sleep(200);
+        store.add("m2");
+        Thread.sleep(150);
+
+        assertTrue(store.contains("m2"));
+        assertFalse(store.contains("m1"));
+    }
+
+    @Test
+    void evictsOldestMessageWhenFull() {
+        InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(Duration.ofMinutes(1), 3);
+
+        store.add("m1");
+        store.add("m2");
+        store.add("m3");
+        store.add("m4");
+
+        assertFalse(store.contains("m1"));
+        assertTrue(store.contains("m2"));
+        assertTrue(store.contains("m3"));
+        assertTrue(store.contains("m4"));
+    }
+
+    @Test
+    void readdedMessageBecomesNewest() {
+        InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(Duration.ofMinutes(1), 2);
+
+        store.add("m1");
+        store.add("m2");
+        store.add("m1");
+        store.add("m3");
+
+        assertTrue(store.contains("m1"));
+        assertFalse(store.contains("m2"));
+        assertTrue(store.contains("m3"));
+    }
+
+}
@@ -0,0 +1,75 @@
+package ru.tpu.hostel.internal.config.amqp.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedDeduplicationStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void containsAddedMessageWithinWindow() {
+        MappedDeduplicationStore store = new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 100);
+
+        store.add("m1");
+
+        assertTrue(store.contains("m1"));
+        assertFalse(store.contains("m2"));
+    }
+
+    @Test
+    void forgetsMessageAfterWindow() throws InterruptedException {
+        MappedDeduplicationStore store = new MappedDeduplicationStore(file(), Duration.ofMillis(100), 100);
+        store.add("m1");
+
+        Thread.sleep(250);
+
+        assertFalse(store.contains("m1"));
+    }
+
+    @Test
+    void overwritesOldestSlotWhenProbedSlotsAreAlive() throws InterruptedException {
+        // Одна запись - таблица из двух ячеек, третье сообщение вытесняет самое старое
+        MappedDeduplicationStore store = new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 1);
+
+        store.add("m1");
+        Thread.sleep(5);
+        store.add("m2");
+        Thread.sleep(5);
+        store.add("m3");
+
+        assertFalse(store.contains("m1"));
+        assertTrue(store.contains("m2"));
+        assertTrue(store.contains("m3"));
+    }
+
+    @Test
+    void keepsMessagesAfterReopen() {
+        new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 100).add("m1");
+
+        MappedDeduplicationStore reopened = new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 100);
+
+        assertTrue(reopened.contains("m1"));
+    }
+
+    @Test
+    void recreatesFileWhenSizeChanges() {
+        new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 100).add("m1");
+
+        MappedDeduplicationStore resized = new MappedDeduplicationStore(file(), Duration.ofMinutes(1), 1000);
+
+        assertFalse(resized.contains("m1"));
+    }
+
+    private Path file() {
+        return directory.resolve("dedup.bin");
+    }
+
+}
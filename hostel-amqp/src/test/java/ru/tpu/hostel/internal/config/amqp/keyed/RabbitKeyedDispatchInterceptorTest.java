@@ -0,0 +1,170 @@
+package ru.tpu.hostel.internal.config.amqp.keyed;
+
+import com.rabbitmq.client.Channel;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import ru.tpu.hostel.internal.config.amqp.properties.RabbitKeyedDispatchProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitKeyedDispatchInterceptorTest {
+
+    private static final String KEY_HEADER = "X-Key";
+
+    private final Channel channel = mock(Channel.class);
+
+    private RabbitKeyedDispatchInterceptor interceptor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (interceptor != null) {
+            interceptor.destroy();
+        }
+    }
+
+    @Test
+    void processesMessagesOfOneKeyInOrder() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(4, 8);
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        List<String> keys = List.of("a", "b", "c");
+        int perKey = 50;
+
+        long deliveryTag = 0;
+        for (int i = 0; i < perKey; i++) {
+            for (String key : keys) {
+                int sequence = i;
+                interceptor.invoke(invocation(message(++deliveryTag, key), () -> {
+                    // Разное время обработки, чтобы полосы обгоняли друг друга
+                    Thread.sleep(key.equals("a") ? 2 : 0);
+                    processed.computeIfAbsent(key, _ -> new ArrayList<>()).add(sequence);
+                }));
+            }
+        }
+
+        verify(channel, timeout(10_000).times(keys.size() * perKey)).basicAck(anyLong(), eq(false));
+        for (String key : keys) {
+            List<Integer> sequences = processed.get(key);
+            assertEquals(perKey, sequences.size());
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, sequences.get(i));
+            }
+        }
+    }
+
+    @Test
+    void rejectsFailedMessageWithoutRequeue() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(2, null);
+
+        interceptor.invoke(invocation(message(1, "a"), () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(channel, timeout(5_000)).basicNack(1, false, false);
+        verify(channel, never()).basicAck(anyLong(), eq(false));
+    }
+
+    @Test
+    void requeuesQueuedMessagesOnDestroy() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(1, 8);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> processed = new ArrayList<>();
+
+        interceptor.invoke(invocation(message(1, "a"), () -> {
+            started.countDown();
+            release.await();
+            processed.add(1L);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (long deliveryTag = 2; deliveryTag <= 4; deliveryTag++) {
+            long tag = deliveryTag;
+            interceptor.invoke(invocation(message(tag, "a"), () -> processed.add(tag)));
+        }
+
+        Thread destroyer = new Thread(() -> {
+            try {
+                interceptor.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        destroyer.start();
+        for (long deliveryTag = 2; deliveryTag <= 4; deliveryTag++) {
+            verify(channel, timeout(5_000)).basicNack(deliveryTag, false, true);
+        }
+        release.countDown();
+        destroyer.join(10_000);
+        interceptor = null;
+
+        // Начатое сообщение дорабатывается и подтверждается, остальные не обрабатываются
+        verify(channel).basicAck(1, false);
+        assertEquals(List.of(1L), processed);
+    }
+
+    @Test
+    void requeuesMessageReceivedAfterDestroy() throws Throwable {
+        when(channel.isOpen()).thenReturn(true);
+        interceptor = create(1, null);
+        interceptor.destroy();
+
+        interceptor.invoke(invocation(message(7, "a"), () -> {
+            throw new AssertionError("Сообщение не должно обрабатываться");
+        }));
+
+        verify(channel).basicNack(7, false, true);
+    }
+
+    private static RabbitKeyedDispatchInterceptor create(int lanes, Integer laneCapacity) {
+        return new RabbitKeyedDispatchInterceptor(
+                new RabbitKeyedDispatchProperties(lanes, laneCapacity, KEY_HEADER, null),
+                "q"
+        );
+    }
+
+    private MethodInvocation invocation(Message message, Body body) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{channel, message});
+        when(invocation.proceed()).thenAnswer(_ -> {
+            body.run();
+            return null;
+        });
+        return invocation;
+    }
+
+    private static Message message(long deliveryTag, String key) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryTag(deliveryTag);
+        properties.setMessageId("m" + deliveryTag);
+        properties.setHeader(KEY_HEADER, key);
+        return new Message(new byte[0], properties);
+    }
+
+    @FunctionalInterface
+    private interface Body {
+
+        void run() throws Exception;
+
+    }
+
+}
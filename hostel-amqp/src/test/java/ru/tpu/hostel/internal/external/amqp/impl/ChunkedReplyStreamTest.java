@@ -0,0 +1,138 @@
+package ru.tpu.hostel.internal.external.amqp.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.external.amqp.AmqpReplyStream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedReplyStreamTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final FakeChunkQueue chunks = new FakeChunkQueue();
+
+    @Test
+    void readsItemsOfAllChunksUntilLastChunk() {
+        Message first = chunk(0, "[1, 2]", false);
+        Message empty = chunk(1, "[]", false);
+        Message last = chunk(2, "[3]", true);
+        chunks.add(first, empty, last);
+        ChunkedReplyStream<Integer> stream = stream();
+
+        List<Integer> items = new ArrayList<>();
+        while (stream.hasNext()) {
+            items.add(stream.next());
+        }
+
+        assertEquals(List.of(1, 2, 3), items);
+        assertEquals(List.of(first, empty, last), chunks.acked);
+        assertTrue(chunks.closed);
+        assertThrows(NoSuchElementException.class, stream::next);
+    }
+
+    @Test
+    void acknowledgesChunkOnlyAfterItsLastItem() {
+        Message first = chunk(0, "[1, 2]", false);
+        chunks.add(first, chunk(1, "[3]", true));
+        ChunkedReplyStream<Integer> stream = stream();
+
+        assertEquals(1, stream.next());
+        assertEquals(2, stream.next());
+        assertTrue(chunks.acked.isEmpty());
+
+        assertEquals(3, stream.next());
+        assertEquals(List.of(first), chunks.acked);
+    }
+
+    @Test
+    void readsEmptyResponse() {
+        chunks.add(chunk(0, "[]", true));
+        ChunkedReplyStream<Integer> stream = stream();
+
+        assertFalse(stream.hasNext());
+        assertTrue(chunks.closed);
+    }
+
+    @Test
+    void failsOnChunkOutOfOrder() {
+        chunks.add(chunk(0, "[1]", false), chunk(2, "[3]", true));
+        ChunkedReplyStream<Integer> stream = stream();
+
+        assertEquals(1, stream.next());
+        assertThrows(ServiceException.InternalServerError.class, stream::hasNext);
+        assertTrue(chunks.closed);
+    }
+
+    @Test
+    void failsWhenChunkDoesNotArrive() {
+        chunks.add(chunk(0, "[1]", false));
+        ChunkedReplyStream<Integer> stream = stream();
+
+        assertEquals(1, stream.next());
+        assertThrows(ServiceException.ServiceUnavailable.class, stream::hasNext);
+        assertTrue(chunks.closed);
+    }
+
+    private ChunkedReplyStream<Integer> stream() {
+        return new ChunkedReplyStream<>(chunks, MAPPER, MAPPER.constructType(Integer.class), 10);
+    }
+
+    private static Message chunk(long sequence, String body, boolean last) {
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader(AmqpReplyStream.CHUNK_SEQUENCE_HEADER, sequence);
+        if (last) {
+            properties.setHeader(AmqpReplyStream.LAST_CHUNK_HEADER, true);
+        }
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private static final class FakeChunkQueue implements ReplyChunkQueue {
+
+        private final Queue<Message> pending = new ArrayDeque<>();
+
+        private final List<Message> acked = new ArrayList<>();
+
+        private boolean closed;
+
+        private void add(Message... messages) {
+            pending.addAll(List.of(messages));
+        }
+
+        @Override
+        public String name() {
+            return "reply";
+        }
+
+        @Override
+        public Message poll(long timeout, TimeUnit unit) {
+            return pending.poll();
+        }
+
+        @Override
+        public void ack(Message chunk) {
+            acked.add(chunk);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+}
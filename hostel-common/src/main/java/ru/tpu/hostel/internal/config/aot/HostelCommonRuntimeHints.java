@@ -0,0 +1,50 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.utils.LogFilter;
+import ru.tpu.hostel.internal.utils.Roles;
+import ru.tpu.hostel.internal.utils.SecretArgument;
+
+/**
+ * Подсказки для Spring AOT и GraalVM native-image по классам модуля hostel-common.
+ * <p>
+ * Регистрируется через {@code META-INF/spring/aot.factories}, так как у модуля нет автоконфигурации.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HostelCommonRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(@NotNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        // Аннотации читаются аспектами логирования через рефлексию
+        hints.reflection().registerType(LogFilter.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(SecretArgument.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // Роли приходят в заголовках и DTO сервисов
+        bindingRegistrar.registerReflectionHints(hints.reflection(), Roles.class);
+
+        hints.reflection().registerType(
+                ServiceException.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS
+        );
+        for (Class<?> nestedException : ServiceException.class.getDeclaredClasses()) {
+            hints.reflection().registerType(
+                    nestedException,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS
+            );
+        }
+    }
+
+}
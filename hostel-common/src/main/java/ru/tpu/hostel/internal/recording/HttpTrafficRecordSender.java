@@ -0,0 +1,71 @@
+package ru.tpu.hostel.internal.recording;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Отправка записанных HTTP запросов на другой адрес, например на стенд. AMQP записи пропускаются.
+ * <p>
+ * Заголовки, которыми управляет HTTP клиент, и скрытые при записи заголовки не отправляются.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HttpTrafficRecordSender implements TrafficRecordSender {
+
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection",
+            "content-length",
+            "expect",
+            "host",
+            "upgrade",
+            "transfer-encoding"
+    );
+
+    private static final String REDACTED = "***";
+
+    private final URI baseUri;
+
+    private final Duration timeout;
+
+    private final HttpClient httpClient;
+
+    public HttpTrafficRecordSender(URI baseUri, Duration timeout) {
+        this.baseUri = baseUri;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public boolean send(TrafficRecord trafficRecord) throws Exception {
+        if (trafficRecord.kind() != TrafficRecord.Kind.HTTP) {
+            return true;
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(trafficRecord.target()))
+                .timeout(timeout)
+                .method(
+                        trafficRecord.operation(),
+                        trafficRecord.payload().length == 0
+                                ? HttpRequest.BodyPublishers.noBody()
+                                : HttpRequest.BodyPublishers.ofByteArray(trafficRecord.payload())
+                );
+        trafficRecord.headers().forEach((name, value) -> {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT)) && !REDACTED.equals(value)) {
+                request.header(name, value);
+            }
+        });
+
+        HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+        return response.statusCode() < 500;
+    }
+
+}
@@ -0,0 +1,39 @@
+package ru.tpu.hostel.internal.recording;
+
+import java.util.Map;
+
+/**
+ * Одна записанная единица входящего трафика: HTTP запрос или AMQP сообщение.
+ *
+ * @param kind           вид трафика.
+ * @param timestamp      время получения, мс от эпохи.
+ * @param durationMicros время обработки, мкс.
+ * @param operation      HTTP метод или очередь, из которой получено сообщение.
+ * @param target         путь запроса с query-параметрами или {@code <обменник>/<ключ маршрутизации>}.
+ * @param status         HTTP статус ответа. Для AMQP {@code 0} - сообщение обработано, {@code 1} - ошибка.
+ * @param headers        заголовки после скрытия чувствительных значений.
+ * @param payload        тело после скрытия чувствительных полей, не длиннее {@code recording.max-payload-size}.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record TrafficRecord(
+        Kind kind,
+        long timestamp,
+        long durationMicros,
+        String operation,
+        String target,
+        int status,
+        Map<String, String> headers,
+        byte[] payload
+) {
+
+    /**
+     * Вид трафика.
+     */
+    public enum Kind {
+        HTTP,
+        AMQP
+    }
+
+}
@@ -0,0 +1,74 @@
+package ru.tpu.hostel.internal.recording;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Двоичный формат записи трафика. Записи идут подряд без разделителей:
+ * <pre>
+ * byte    вид трафика ({@link TrafficRecord.Kind#ordinal()})
+ * long    время получения, мс
+ * long    время обработки, мкс
+ * UTF     операция
+ * UTF     цель
+ * int     статус
+ * short   количество заголовков, затем пары UTF имя - UTF значение
+ * int     длина тела, затем байты тела
+ * </pre>
+ * Строки длиннее {@value #MAX_STRING_LENGTH} символов обрезаются.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@UtilityClass
+class TrafficRecordFormat {
+
+    private static final int MAX_STRING_LENGTH = 4096;
+
+    void write(DataOutputStream output, TrafficRecord trafficRecord) throws IOException {
+        output.writeByte(trafficRecord.kind().ordinal());
+        output.writeLong(trafficRecord.timestamp());
+        output.writeLong(trafficRecord.durationMicros());
+        output.writeUTF(limit(trafficRecord.operation()));
+        output.writeUTF(limit(trafficRecord.target()));
+        output.writeInt(trafficRecord.status());
+        output.writeShort(trafficRecord.headers().size());
+        for (Map.Entry<String, String> header : trafficRecord.headers().entrySet()) {
+            output.writeUTF(limit(header.getKey()));
+            output.writeUTF(limit(header.getValue()));
+        }
+        output.writeInt(trafficRecord.payload().length);
+        output.write(trafficRecord.payload());
+    }
+
+    TrafficRecord read(DataInputStream input) throws IOException {
+        TrafficRecord.Kind kind = TrafficRecord.Kind.values()[input.readUnsignedByte()];
+        long timestamp = input.readLong();
+        long durationMicros = input.readLong();
+        String operation = input.readUTF();
+        String target = input.readUTF();
+        int status = input.readInt();
+        int headersCount = input.readUnsignedShort();
+        Map<String, String> headers = new LinkedHashMap<>(headersCount);
+        for (int i = 0; i < headersCount; i++) {
+            headers.put(input.readUTF(), input.readUTF());
+        }
+        byte[] payload = new byte[input.readInt()];
+        input.readFully(payload);
+        return new TrafficRecord(kind, timestamp, durationMicros, operation, target, status, headers, payload);
+    }
+
+    private String limit(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > MAX_STRING_LENGTH ? value.substring(0, MAX_STRING_LENGTH) : value;
+    }
+
+}
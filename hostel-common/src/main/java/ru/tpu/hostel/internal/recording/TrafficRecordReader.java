@@ -0,0 +1,50 @@
+package ru.tpu.hostel.internal.recording;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Последовательное чтение файла записи трафика. Файл читается потоком, в памяти держится одна запись.
+ * <p>
+ * Последняя запись может быть оборвана, если приложение остановилось аварийно. Такая запись пропускается, и чтение
+ * заканчивается.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class TrafficRecordReader implements Closeable {
+
+    private final DataInputStream input;
+
+    public TrafficRecordReader(Path file) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))));
+    }
+
+    /**
+     * @return следующая запись или {@code null}, если записи закончились.
+     * @throws IOException при ошибке чтения файла.
+     */
+    @Nullable
+    public TrafficRecord next() throws IOException {
+        try {
+            return TrafficRecordFormat.read(input);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+}
@@ -0,0 +1,24 @@
+package ru.tpu.hostel.internal.recording;
+
+/**
+ * Отправка записанного запроса или сообщения при воспроизведении трафика.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see TrafficReplayer
+ * @see HttpTrafficRecordSender
+ * @since 2.0.0
+ */
+@FunctionalInterface
+public interface TrafficRecordSender {
+
+    /**
+     * Отправляет запись и ждёт завершения. Время выполнения метода попадает в задержку отчёта.
+     *
+     * @param trafficRecord запись.
+     * @return {@code true}, если отправка успешна.
+     * @throws Exception при ошибке отправки. Считается неуспешной отправкой.
+     */
+    boolean send(TrafficRecord trafficRecord) throws Exception;
+
+}
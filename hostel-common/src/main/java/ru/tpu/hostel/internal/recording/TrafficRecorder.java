@@ -0,0 +1,210 @@
+package ru.tpu.hostel.internal.recording;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Запись входящего трафика в файл для последующего воспроизведения {@link TrafficReplayer}.
+ * <p>
+ * Обработчики запросов только проверяют выборку и кладут запись в ограниченную очередь. Скрытие чувствительных
+ * данных, обрезка тела до {@code max-payload-size} и запись на диск происходят в отдельном потоке. Тело сначала
+ * проходит через {@link TrafficRedactor} и только потом обрезается: обрезанный JSON разобрать нельзя. Если JSON тела
+ * не разбирается (например, HTTP тело длиннее лимита кэша запроса), вместо тела пишется заглушка. Файл - поток gzip
+ * с записями в двоичном формате {@link TrafficRecordFormat}. Каждый запуск приложения дописывает в конец файла новый
+ * gzip-блок, {@link TrafficRecordReader} читает их подряд.
+ * <p>
+ * Файл пишет и закрывает только поток записи. Он не прерывается: прерывание закрыло бы канал файла посреди записи, и
+ * gzip-блок остался бы без завершения.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see TrafficRedactor
+ * @since 2.0.0
+ */
+@Slf4j
+public class TrafficRecorder implements DisposableBean {
+
+    private static final int DEFAULT_MAX_PAYLOAD_SIZE = 64 * 1024;
+
+    private static final int DEFAULT_BUFFER_SIZE = 10_000;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    private static final String WRITE_EXCEPTION = "[RECORDING] Ошибка записи трафика в файл";
+
+    private static final String DROPPED_RECORDS = "[RECORDING] Отброшено записей трафика из-за переполнения очереди "
+            + "или остановки: {}";
+
+    private static final byte[] UNREDACTABLE_PAYLOAD = "\"*** тело не разобрано для скрытия полей ***\""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final double sampleRate;
+
+    private final int maxPayloadSize;
+
+    private final TrafficRedactor redactor;
+
+    private final BlockingQueue<TrafficRecord> buffer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final DataOutputStream output;
+
+    private final Thread writer;
+
+    private volatile boolean stopped;
+
+    /**
+     * Поток записи не успел записать очередь при остановке: остаток отбрасывается, файл закрывается.
+     */
+    private volatile boolean abandoned;
+
+    public TrafficRecorder(TrafficRecordingProperties properties, TrafficRedactor redactor) throws IOException {
+        this.sampleRate = properties.sampleRate() == null ? 1 : properties.sampleRate();
+        this.maxPayloadSize = properties.maxPayloadSize() == null
+                ? DEFAULT_MAX_PAYLOAD_SIZE
+                : properties.maxPayloadSize();
+        this.redactor = redactor;
+        this.buffer = new ArrayBlockingQueue<>(properties.bufferSize() == null
+                ? DEFAULT_BUFFER_SIZE
+                : properties.bufferSize());
+
+        Path file = properties.file();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                true
+        )));
+        this.writer = new Thread(this::write, "traffic-recorder");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Решает, попадает ли запрос или сообщение в выборку. Вызывается до записи, чтобы не собирать данные зря.
+     *
+     * @return {@code true}, если нужно записать.
+     */
+    public boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * @return максимальный размер тела в записи, байт.
+     */
+    public int maxPayloadSize() {
+        return maxPayloadSize;
+    }
+
+    /**
+     * Ставит запись в очередь на запись в файл. Не блокирует: если очередь заполнена, запись отбрасывается.
+     * Чувствительные данные скрываются в потоке записи, поэтому заголовки и тело после вызова изменять нельзя.
+     */
+    public void record(
+            @NotNull TrafficRecord.Kind kind,
+            long timestamp,
+            long durationMicros,
+            @NotNull String operation,
+            @NotNull String target,
+            int status,
+            @NotNull Map<String, String> headers,
+            @NotNull byte[] payload
+    ) {
+        TrafficRecord trafficRecord = new TrafficRecord(
+                kind,
+                timestamp,
+                durationMicros,
+                operation,
+                target,
+                status,
+                headers,
+                payload
+        );
+        if (!buffer.offer(trafficRecord)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return количество записей, отброшенных из-за переполнения очереди.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Даёт потоку записи дописать очередь и закрыть файл. Если он не успевает, остаток очереди отбрасывается.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (writer.isAlive()) {
+            abandoned = true;
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        if (dropped.get() > 0) {
+            log.warn(DROPPED_RECORDS, dropped.get());
+        }
+    }
+
+    private void write() {
+        try {
+            while ((!stopped || !buffer.isEmpty()) && !abandoned) {
+                TrafficRecord trafficRecord = buffer.poll(1, TimeUnit.SECONDS);
+                if (trafficRecord != null) {
+                    TrafficRecordFormat.write(output, redact(trafficRecord));
+                }
+                if (trafficRecord == null || buffer.isEmpty()) {
+                    output.flush();
+                }
+            }
+            dropped.addAndGet(buffer.size());
+            buffer.clear();
+            output.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error(WRITE_EXCEPTION, e);
+        }
+    }
+
+    private TrafficRecord redact(TrafficRecord trafficRecord) {
+        byte[] payload = redactor.redactPayload(trafficRecord.payload());
+        if (payload == null) {
+            payload = UNREDACTABLE_PAYLOAD;
+        } else if (payload.length > maxPayloadSize) {
+            payload = Arrays.copyOf(payload, maxPayloadSize);
+        }
+        return new TrafficRecord(
+                trafficRecord.kind(),
+                trafficRecord.timestamp(),
+                trafficRecord.durationMicros(),
+                trafficRecord.operation(),
+                trafficRecord.target(),
+                trafficRecord.status(),
+                redactor.redactHeaders(trafficRecord.headers()),
+                payload
+        );
+    }
+
+}
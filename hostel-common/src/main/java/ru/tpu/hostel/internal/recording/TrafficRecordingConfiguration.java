@@ -0,0 +1,29 @@
+package ru.tpu.hostel.internal.recording;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Конфигурация записи трафика. Подключается автоконфигурациями модулей, которые записывают трафик (hostel-core для
+ * HTTP, hostel-amqp для RabbitMQ), и включается свойством {@code recording.enabled: true}.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @see TrafficRecordingProperties
+ * @since 2.0.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "recording", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(TrafficRecordingProperties.class)
+public class TrafficRecordingConfiguration {
+
+    @Bean
+    TrafficRecorder trafficRecorder(TrafficRecordingProperties properties) throws IOException {
+        return new TrafficRecorder(properties, new TrafficRedactor(properties));
+    }
+
+}
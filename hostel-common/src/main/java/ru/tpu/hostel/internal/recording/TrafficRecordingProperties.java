@@ -0,0 +1,70 @@
+package ru.tpu.hostel.internal.recording;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Свойства записи входящего трафика. Пишутся в <b><i>application.yaml</i></b>.
+ * <p>Пример:
+ * <pre><code>
+ *     recording:
+ *       enabled: true
+ *       file: /var/log/booking-service/traffic.bin.gz
+ *       sample-rate: 0.05
+ *       max-payload-size: 65536
+ *       redacted-fields: password, token
+ *       redaction-packages: ru.tpu.hostel.booking.dto
+ * </code></pre>
+ *
+ * @param enabled           включает запись.
+ * @param file              файл записи. Открывается на дозапись.
+ * @param sampleRate        доля записываемых запросов и сообщений, от 0 до 1. По умолчанию 1.
+ * @param maxPayloadSize    максимальный размер тела в записи, байт. Тело длиннее обрезается после скрытия полей.
+ *                          HTTP тело кэшируется только до этого размера, поэтому более длинный JSON записывается
+ *                          заглушкой. По умолчанию 64 КБ.
+ * @param bufferSize        размер очереди записей перед файлом. При переполнении записи отбрасываются, обработка
+ *                          запросов не ждёт диск. По умолчанию 10000.
+ * @param redactedFields    поля JSON, значения которых скрываются.
+ * @param redactedHeaders   заголовки, значения которых скрываются, в дополнение к стандартным
+ *                          ({@code Authorization}, {@code Cookie} и т.п.).
+ * @param redactionPackages пакеты DTO, поля которых с {@link ru.tpu.hostel.internal.utils.SecretArgument}
+ *                          скрываются.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Validated
+@ConfigurationProperties(prefix = "recording")
+public record TrafficRecordingProperties(
+
+        Boolean enabled,
+
+        @NotNull
+        Path file,
+
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        Double sampleRate,
+
+        @Positive
+        Integer maxPayloadSize,
+
+        @Positive
+        Integer bufferSize,
+
+        Set<String> redactedFields,
+
+        Set<String> redactedHeaders,
+
+        List<String> redactionPackages
+
+) {
+}
@@ -0,0 +1,159 @@
+package ru.tpu.hostel.internal.recording;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+import ru.tpu.hostel.internal.utils.SecretArgument;
+
+import java.io.IOException;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.RecordComponent;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Скрытие чувствительных данных в записях трафика.
+ * <p>
+ * Значения заголовков и полей JSON заменяются на {@value #REDACTED}. Поля JSON берутся из
+ * {@code recording.redacted-fields} и из DTO пакетов {@code recording.redaction-packages}: поле или компонент
+ * записи с {@link SecretArgument} скрывается под своим JSON именем. Поиск скрываемых полей происходит по имени на
+ * любой глубине, тело не в формате JSON записывается как есть.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class TrafficRedactor {
+
+    private static final String REDACTED = "***";
+
+    private static final Set<String> DEFAULT_REDACTED_HEADERS = Set.of(
+            "authorization",
+            "proxy-authorization",
+            "cookie",
+            "set-cookie",
+            "x-api-key"
+    );
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Set<String> redactedFields = new HashSet<>();
+
+    private final Set<String> redactedHeaders = new HashSet<>(DEFAULT_REDACTED_HEADERS);
+
+    public TrafficRedactor(TrafficRecordingProperties properties) {
+        if (properties.redactedFields() != null) {
+            redactedFields.addAll(properties.redactedFields());
+        }
+        if (properties.redactedHeaders() != null) {
+            properties.redactedHeaders().forEach(header -> redactedHeaders.add(header.toLowerCase(Locale.ROOT)));
+        }
+        if (properties.redactionPackages() != null) {
+            properties.redactionPackages().forEach(this::collectSecretFields);
+        }
+    }
+
+    /**
+     * Возвращает копию заголовков со скрытыми значениями чувствительных заголовков.
+     *
+     * @param headers заголовки.
+     * @return заголовки для записи.
+     */
+    public Map<String, String> redactHeaders(Map<String, String> headers) {
+        Map<String, String> result = new LinkedHashMap<>(headers.size());
+        headers.forEach((name, value) -> result.put(
+                name,
+                redactedHeaders.contains(name.toLowerCase(Locale.ROOT)) ? REDACTED : value
+        ));
+        return result;
+    }
+
+    /**
+     * Возвращает тело со скрытыми чувствительными полями.
+     *
+     * @param payload полное тело. Обрезанный JSON не разбирается, поэтому обрезать тело нужно после скрытия.
+     * @return тело для записи или {@code null}, если тело похоже на JSON, но не разбирается, и проверить его на
+     * чувствительные поля нельзя.
+     */
+    public byte[] redactPayload(byte[] payload) {
+        if (redactedFields.isEmpty() || payload.length == 0 || (payload[0] != '{' && payload[0] != '[')) {
+            return payload;
+        }
+        try {
+            JsonNode tree = MAPPER.readTree(payload);
+            return redact(tree) ? MAPPER.writeValueAsBytes(tree) : payload;
+        } catch (IOException e) {
+            // Обрезанный или некорректный JSON: записывать его как есть нельзя, в нём могут быть скрываемые поля
+            return null;
+        }
+    }
+
+    private boolean redact(JsonNode node) {
+        boolean changed = false;
+        if (node instanceof ObjectNode objectNode) {
+            for (Map.Entry<String, JsonNode> field : objectNode.properties()) {
+                if (redactedFields.contains(field.getKey())) {
+                    field.setValue(objectNode.textNode(REDACTED));
+                    changed = true;
+                } else {
+                    changed |= redact(field.getValue());
+                }
+            }
+        } else if (node instanceof ArrayNode arrayNode) {
+            for (JsonNode element : arrayNode) {
+                changed |= redact(element);
+            }
+        }
+        return changed;
+    }
+
+    private void collectSecretFields(String basePackage) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((_, _) -> true);
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            try {
+                Class<?> type = ClassUtils.forName(candidate.getBeanClassName(), getClass().getClassLoader());
+                if (type.isRecord()) {
+                    collectSecretFields(type.getRecordComponents());
+                } else {
+                    collectSecretFields(type.getDeclaredFields());
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.debug("Класс {} пропущен при поиске скрываемых полей", candidate.getBeanClassName(), e);
+            }
+        }
+    }
+
+    private void collectSecretFields(AnnotatedElement[] elements) {
+        for (AnnotatedElement element : elements) {
+            if (element.isAnnotationPresent(SecretArgument.class)) {
+                redactedFields.add(jsonName(element));
+            }
+        }
+    }
+
+    private static String jsonName(AnnotatedElement element) {
+        // С компонента записи JsonProperty переносится на метод доступа
+        JsonProperty jsonProperty = element instanceof RecordComponent component
+                ? component.getAccessor().getAnnotation(JsonProperty.class)
+                : element.getAnnotation(JsonProperty.class);
+        if (jsonProperty != null && !jsonProperty.value().isEmpty()) {
+            return jsonProperty.value();
+        }
+        return element instanceof RecordComponent component
+                ? component.getName()
+                : ((Field) element).getName();
+    }
+
+}
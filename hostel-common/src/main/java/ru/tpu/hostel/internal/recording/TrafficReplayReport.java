@@ -0,0 +1,53 @@
+package ru.tpu.hostel.internal.recording;
+
+/**
+ * Итог воспроизведения трафика. Задержки считаются от запланированного времени отправки, а не от фактического, поэтому
+ * очередь на стороне воспроизведения тоже попадает в задержку.
+ *
+ * @param sent          отправлено записей.
+ * @param failed        из них неуспешно.
+ * @param elapsedMillis длительность воспроизведения, мс.
+ * @param p50Millis     медиана задержки, мс.
+ * @param p90Millis     90-й перцентиль задержки, мс.
+ * @param p99Millis     99-й перцентиль задержки, мс.
+ * @param p999Millis    99.9-й перцентиль задержки, мс.
+ * @param maxMillis     максимальная задержка, мс.
+ * @param maxLagMillis  максимальное отставание отправки от расписания, мс. Большое значение означает, что не хватило
+ *                      параллелизма и реальная скорость была ниже заданной.
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public record TrafficReplayReport(
+        long sent,
+        long failed,
+        long elapsedMillis,
+        double p50Millis,
+        double p90Millis,
+        double p99Millis,
+        double p999Millis,
+        double maxMillis,
+        long maxLagMillis
+) {
+
+    /**
+     * @return отчёт одной строкой для вывода в лог или консоль.
+     */
+    public String summary() {
+        return String.format(
+                "sent=%d failed=%d elapsed=%d ms rate=%.1f/s p50=%.2f ms p90=%.2f ms p99=%.2f ms p99.9=%.2f ms "
+                        + "max=%.2f ms max-lag=%d ms",
+                sent,
+                failed,
+                elapsedMillis,
+                elapsedMillis == 0 ? 0 : sent * 1000d / elapsedMillis,
+                p50Millis,
+                p90Millis,
+                p99Millis,
+                p999Millis,
+                maxMillis,
+                maxLagMillis
+        );
+    }
+
+}
@@ -0,0 +1,166 @@
+package ru.tpu.hostel.internal.recording;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Воспроизведение записанного трафика с сохранением интервалов между запросами.
+ * <p>
+ * Запись отправляется в момент {@code (время записи - время первой записи) / speedFactor} от начала воспроизведения,
+ * независимо от того, ответил ли сервис на предыдущие. Так нагрузка повторяет реальный профиль, а при
+ * {@code speedFactor > 1} - тот же профиль в несколько раз плотнее. Число одновременных отправок ограничено
+ * {@code maxConcurrency}; если его не хватает, отправки отстают от расписания, и это видно в
+ * {@link TrafficReplayReport#maxLagMillis()}.
+ * <p>
+ * HTTP трафик можно воспроизвести из командной строки:
+ * <pre>{@code
+ * java -cp hostel-common.jar ru.tpu.hostel.internal.recording.TrafficReplayer \
+ *         traffic.bin.gz http://staging-booking:8080 3 256
+ * }</pre>
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+@Slf4j
+public class TrafficReplayer {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Воспроизводит файл записи и ждёт завершения всех отправок.
+     *
+     * @param file           файл записи.
+     * @param speedFactor    во сколько раз ускорить воспроизведение относительно записи.
+     * @param maxConcurrency максимальное число одновременных отправок.
+     * @param sender         способ отправки записей.
+     * @return итог воспроизведения.
+     * @throws IOException при ошибке чтения файла.
+     */
+    public TrafficReplayReport replay(
+            Path file,
+            double speedFactor,
+            int maxConcurrency,
+            TrafficRecordSender sender
+    ) throws IOException, InterruptedException {
+        if (speedFactor <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Скорость и параллелизм должны быть положительными");
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Latencies latencies = new Latencies();
+        AtomicLong failed = new AtomicLong();
+        long maxLagNanos = 0;
+        long sent = 0;
+
+        long startNanos = System.nanoTime();
+        try (TrafficRecordReader reader = new TrafficRecordReader(file)) {
+            long firstTimestamp = -1;
+            TrafficRecord trafficRecord;
+            while ((trafficRecord = reader.next()) != null) {
+                if (firstTimestamp < 0) {
+                    firstTimestamp = trafficRecord.timestamp();
+                }
+                long offsetNanos = TimeUnit.MILLISECONDS.toNanos(trafficRecord.timestamp() - firstTimestamp);
+                long scheduledNanos = startNanos + (long) (offsetNanos / speedFactor);
+                long waitNanos = scheduledNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+
+                permits.acquire();
+                maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - scheduledNanos);
+                sent++;
+                TrafficRecord toSend = trafficRecord;
+                executor.execute(() -> {
+                    try {
+                        if (!sender.send(toSend)) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                        log.debug("[RECORDING] Ошибка отправки записи {} {}", toSend.operation(), toSend.target(), e);
+                    } finally {
+                        latencies.add(System.nanoTime() - scheduledNanos);
+                        permits.release();
+                    }
+                });
+            }
+        }
+        permits.acquire(maxConcurrency);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        long[] sorted = latencies.sorted();
+        return new TrafficReplayReport(
+                sent,
+                failed.get(),
+                elapsedMillis,
+                percentile(sorted, 0.5),
+                percentile(sorted, 0.9),
+                percentile(sorted, 0.99),
+                percentile(sorted, 0.999),
+                percentile(sorted, 1),
+                TimeUnit.NANOSECONDS.toMillis(maxLagNanos)
+        );
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000d;
+    }
+
+    /**
+     * Воспроизводит HTTP трафик из файла.
+     * <p>
+     * Аргументы: файл записи, базовый адрес сервиса, ускорение (по умолчанию 1), параллелизм (по умолчанию 128).
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Использование: TrafficReplayer <файл> <базовый адрес> [ускорение] [параллелизм]");
+            System.exit(1);
+        }
+        TrafficReplayReport report = new TrafficReplayer().replay(
+                Path.of(args[0]),
+                args.length > 2 ? Double.parseDouble(args[2]) : 1,
+                args.length > 3 ? Integer.parseInt(args[3]) : 128,
+                new HttpTrafficRecordSender(URI.create(args[1]), Duration.ofSeconds(30))
+        );
+        System.out.println(report.summary());
+        System.exit(0);
+    }
+
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        private synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private synchronized long[] sorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+    }
+
+}
@@ -102,6 +102,22 @@ public final class ExecutionContext {
         CONTEXT_HOLDER.remove();
     }
 
+    /**
+     * Возвращает контекст, сохранённый через {@link #get()} перед созданием вложенного контекста.
+     *
+     * <p>💡Вызывать в {@code finally} блоке вместо {@link #clear()}, если до создания контекст уже был</p>
+     *
+     * @param context сохранённый контекст, {@code null} очищает контекст
+     * @since 2.0.0
+     */
+    public static void restore(ExecutionContext context) {
+        if (context == null) {
+            CONTEXT_HOLDER.remove();
+        } else {
+            CONTEXT_HOLDER.set(context);
+        }
+    }
+
     public Set<Roles> getUserRoles() {
         return this.userRoles == null
                 ? Collections.emptySet()
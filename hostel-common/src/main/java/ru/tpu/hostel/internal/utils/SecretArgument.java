@@ -9,13 +9,16 @@ import java.lang.annotation.Target;
  * Аннотация для скрытия чувствительных данных в параметрах (аргументах) метода из логов.
  * <p>💡Необходимо ставить аннотацию на параметры метода, если их необходимо скрыть из логов.
  * <p>❗<b><i>РАБОТАЕТ ТОЛЬКО НА СЕРВИСНЫХ КЛАССАХ И МЕТОДАХ (в пакете service)</i></b>
+ * <p>На полях и компонентах записей DTO аннотация скрывает одноимённые поля JSON из записи трафика
+ * ({@link ru.tpu.hostel.internal.recording.TrafficRedactor}), если пакет DTO указан в
+ * {@code recording.redaction-packages}.
  *
  * @author Илья Лапшин
- * @version 1.0.0
+ * @version 2.0.0
  * @see LogFilter
  * @since 1.0.0
  */
-@Target(ElementType.PARAMETER)
+@Target({ElementType.PARAMETER, ElementType.FIELD, ElementType.RECORD_COMPONENT})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface SecretArgument {
 }
@@ -2,19 +2,24 @@ package ru.tpu.hostel.internal;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import ru.tpu.hostel.internal.common.exception.GlobalExceptionHandler;
 import ru.tpu.hostel.internal.common.logging.RepositoryLoggingFilter;
 import ru.tpu.hostel.internal.common.logging.ServiceLoggingFilter;
+import ru.tpu.hostel.internal.config.aot.HostelCoreRuntimeHints;
 import ru.tpu.hostel.internal.config.otlp.OpenTelemetryConfig;
 import ru.tpu.hostel.internal.config.rest.HttpRestInterceptor;
+import ru.tpu.hostel.internal.recording.TrafficRecordingConfiguration;
 
 @AutoConfiguration
+@ImportRuntimeHints(HostelCoreRuntimeHints.class)
 @Import({
         GlobalExceptionHandler.class,
         RepositoryLoggingFilter.class,
         ServiceLoggingFilter.class,
         OpenTelemetryConfig.class,
-        HttpRestInterceptor.class
+        HttpRestInterceptor.class,
+        TrafficRecordingConfiguration.class
 })
 public class HostelCoreAutoConfiguration {
 }
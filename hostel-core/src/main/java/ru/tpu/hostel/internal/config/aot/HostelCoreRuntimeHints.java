@@ -0,0 +1,49 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+import ru.tpu.hostel.internal.common.logging.RepositoryLoggingFilter;
+import ru.tpu.hostel.internal.common.logging.ServiceLoggingFilter;
+import ru.tpu.hostel.internal.config.otlp.OpenTelemetryProperties;
+
+/**
+ * Подсказки для Spring AOT и GraalVM native-image по классам модуля hostel-core: аспекты логирования,
+ * свойства Open Telemetry и SPI экспортёра OTLP.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HostelCoreRuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * Провайдеры отправки OTLP, которые экспортёр находит через {@link java.util.ServiceLoader}.
+     */
+    private static final String[] OTLP_SENDER_PROVIDERS = {
+            "io.opentelemetry.exporter.sender.okhttp.internal.OkHttpGrpcSenderProvider",
+            "io.opentelemetry.exporter.sender.okhttp.internal.OkHttpHttpSenderProvider",
+            "io.opentelemetry.exporter.sender.jdk.internal.JdkHttpSenderProvider"
+    };
+
+    @Override
+    public void registerHints(@NotNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        hints.reflection().registerType(ServiceLoggingFilter.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(RepositoryLoggingFilter.class, MemberCategory.INVOKE_DECLARED_METHODS);
+
+        BindableRuntimeHintsRegistrar.forTypes(OpenTelemetryProperties.class).registerHints(hints, classLoader);
+
+        hints.resources().registerPattern("META-INF/services/io.opentelemetry.*");
+        for (String provider : OTLP_SENDER_PROVIDERS) {
+            hints.reflection().registerType(
+                    TypeReference.of(provider),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS
+            );
+        }
+    }
+
+}
@@ -17,22 +17,29 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.util.ContentCachingRequestWrapper;
 import ru.tpu.hostel.internal.exception.ServiceException;
+import ru.tpu.hostel.internal.recording.TrafficRecord;
+import ru.tpu.hostel.internal.recording.TrafficRecorder;
 import ru.tpu.hostel.internal.utils.ExecutionContext;
 import ru.tpu.hostel.internal.utils.Roles;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ID_HEADER;
@@ -40,10 +47,11 @@ import static ru.tpu.hostel.internal.utils.ServiceHeaders.USER_ROLES_HEADER;
 
 /**
  * Интерцептор для создания {@link ExecutionContext} на старте выполнения запроса и очистке контекста по завершении
- * обработки запроса
+ * обработки запроса. При включённой записи трафика ({@code recording.enabled}) записывает выбранные запросы в
+ * {@link TrafficRecorder}
  *
  * @author Илья Лапшин
- * @version 1.2.0
+ * @version 2.0.0
  * @since 1.0.0
  */
 @Configuration
@@ -79,6 +87,8 @@ public class HttpRestInterceptor {
 
     private final OpenTelemetry openTelemetry;
 
+    private final ObjectProvider<TrafficRecorder> trafficRecorder;
+
     @Order(Ordered.HIGHEST_PRECEDENCE)
     public Filter httpFilter() {
         return (request, response, chain) -> {
@@ -97,6 +107,11 @@ public class HttpRestInterceptor {
                 return;
             }
 
+            TrafficRecorder recorder = trafficRecorder.getIfAvailable();
+            ContentCachingRequestWrapper recordedRequest = recorder != null && recorder.sample()
+                    ? new ContentCachingRequestWrapper(req, recorder.maxPayloadSize())
+                    : null;
+
             String path = req.getRequestURI();
             String method = req.getMethod();
 
@@ -117,6 +132,8 @@ public class HttpRestInterceptor {
                     .setAttribute("http.url", req.getRequestURL().toString())
                     .startSpan();
 
+            long receivedAt = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
             try (Scope ignore = span.makeCurrent()) {
                 SpanContext sc = span.getSpanContext();
                 String traceId = sc.isValid() ? sc.getTraceId() : null;
@@ -136,7 +153,7 @@ public class HttpRestInterceptor {
                 boolean needToLog = needToLog(req.getRequestURI());
                 logRequest(req, needToLog);
                 long startTime = System.currentTimeMillis();
-                chain.doFilter(request, response);
+                chain.doFilter(recordedRequest == null ? request : recordedRequest, response);
                 long endTime = System.currentTimeMillis() - startTime;
                 logResponse(res, endTime, needToLog);
 
@@ -155,6 +172,9 @@ public class HttpRestInterceptor {
                 ExecutionContext.clear();
                 MDC.clear();
                 span.end();
+                if (recordedRequest != null) {
+                    record(recorder, recordedRequest, res, receivedAt, startNanos);
+                }
             }
         };
     }
@@ -170,6 +190,31 @@ public class HttpRestInterceptor {
         return fr;
     }
 
+    private void record(
+            TrafficRecorder recorder,
+            ContentCachingRequestWrapper request,
+            HttpServletResponse response,
+            long receivedAt,
+            long startNanos
+    ) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        Collections.list(request.getHeaderNames()).forEach(name -> headers.put(name, request.getHeader(name)));
+        String target = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+
+        recorder.record(
+                TrafficRecord.Kind.HTTP,
+                receivedAt,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos),
+                request.getMethod(),
+                target,
+                response.getStatus(),
+                headers,
+                request.getContentAsByteArray()
+        );
+    }
+
     private UUID getUserId(HttpServletRequest request) {
         String userIdString = request.getHeader(USER_ID_HEADER);
         return userIdString == null || userIdString.isEmpty()
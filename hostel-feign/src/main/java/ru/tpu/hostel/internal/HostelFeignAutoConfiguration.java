@@ -2,12 +2,15 @@ package ru.tpu.hostel.internal;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import ru.tpu.hostel.internal.common.exception.FeignExceptionHandler;
 import ru.tpu.hostel.internal.common.logging.FeignClientLoggingFilter;
+import ru.tpu.hostel.internal.config.aot.HostelFeignRuntimeHints;
 import ru.tpu.hostel.internal.config.rest.HttpFeignInterceptor;
 import ru.tpu.hostel.internal.config.rest.TracingFeignAspect;
 
 @AutoConfiguration
+@ImportRuntimeHints(HostelFeignRuntimeHints.class)
 @Import({
         FeignExceptionHandler.class,
         FeignClientLoggingFilter.class,
@@ -0,0 +1,26 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import ru.tpu.hostel.internal.common.logging.FeignClientLoggingFilter;
+import ru.tpu.hostel.internal.config.rest.TracingFeignAspect;
+
+/**
+ * Подсказки для Spring AOT и GraalVM native-image по аспектам модуля hostel-feign.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HostelFeignRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(@NotNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        hints.reflection().registerType(FeignClientLoggingFilter.class, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.reflection().registerType(TracingFeignAspect.class, MemberCategory.INVOKE_DECLARED_METHODS);
+    }
+
+}
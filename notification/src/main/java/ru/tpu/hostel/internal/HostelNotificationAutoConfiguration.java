@@ -2,10 +2,13 @@ package ru.tpu.hostel.internal;
 
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import ru.tpu.hostel.internal.builder.impl.DefaultNotificationRequestBuilder;
+import ru.tpu.hostel.internal.config.aot.HostelNotificationRuntimeHints;
 import ru.tpu.hostel.internal.service.impl.DefaultNotificationSender;
 
 @AutoConfiguration
+@ImportRuntimeHints(HostelNotificationRuntimeHints.class)
 @Import({
         DefaultNotificationRequestBuilder.class,
         DefaultNotificationSender.class
@@ -0,0 +1,29 @@
+package ru.tpu.hostel.internal.config.aot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import ru.tpu.hostel.internal.external.amqp.NotificationMessageType;
+import ru.tpu.hostel.internal.external.amqp.dto.NotificationRequestDto;
+
+/**
+ * Подсказки для Spring AOT и GraalVM native-image по модулю notification: DTO уведомления сериализуется Jackson.
+ *
+ * @author Илья Лапшин
+ * @version 2.0.0
+ * @since 2.0.0
+ */
+public class HostelNotificationRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(@NotNull RuntimeHints hints, @Nullable ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(), NotificationRequestDto.class);
+        hints.reflection().registerType(NotificationMessageType.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+}